@@ -0,0 +1,74 @@
+package colonies;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The elementary placement operations of the BookKeeper, on a synthetic infrastructure
+ * that is partly loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class BookKeeperBenchmark {
+	/** Nr. of regions */
+	@Param({"2","8"})
+	int nrRegions;
+
+	/** The BookKeeper */
+	private BookKeeper bookKeeper;
+	/** The component that is placed */
+	private Component component;
+	/** The server on which the component is placed */
+	private Server server;
+	/** The connector that is routed */
+	private Connector connector;
+	/** The path on which the connector is routed */
+	private Path path;
+
+	/** Create the instance, deploy some applications, and choose the elements to place and route */
+	@Setup(Level.Trial)
+	public void createInstance() {
+		TestDriver driver=Instances.create(Instances.Shape.synthetic,nrRegions,10,8,4);
+		bookKeeper=new BookKeeper(driver.infra);
+		Instances.deployBackground(new Conductor(bookKeeper,Instances.quietSolverSB(bookKeeper),Conductor.ModeType.independent),driver.colonies,3);
+		Application app=driver.colonies[0].getApplication(3);
+		component=app.getComponent(0);
+		server=driver.colonies[0].getServers().get(0);
+		connector=component.getConnectors().iterator().next();
+		//the longest path, i.e., the one with the most links to update
+		for(Path p : driver.infra.getAllPaths()) {
+			if(path==null || p.getLinks().size()>path.getLinks().size())
+				path=p;
+		}
+	}
+
+	/** Place a component and remove it again */
+	@Benchmark
+	public void placeUnPlace() {
+		bookKeeper.place(component,server);
+		bookKeeper.unPlace(component);
+	}
+
+	/** Route a connector and remove it again */
+	@Benchmark
+	public void routeUnRoute() {
+		bookKeeper.route(connector,path);
+		bookKeeper.unRoute(connector);
+	}
+}
@@ -0,0 +1,66 @@
+package colonies;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deployment of an application by a Conductor with SolverSB in each mode, on a partly
+ * loaded synthetic instance. After each deployment, the application is undeployed again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class ConductorBenchmark {
+	/** The mode of the Conductor (JMH parameters must be public types) */
+	@Param({"centralized","independent","communicating","overlapping","hierarchical"})
+	String mode;
+	/** Nr. of regions */
+	@Param({"4","8"})
+	int nrRegions;
+	/** Nr. of components per application */
+	@Param({"8","16"})
+	int appSize;
+
+	/** The Conductor */
+	private Conductor conductor;
+	/** The colony of the application */
+	private Colony colony;
+	/** The application that is deployed */
+	private Application app;
+
+	/** Create the instance and the Conductor, and deploy some applications */
+	@Setup(Level.Trial)
+	public void createInstance() {
+		TestDriver driver=Instances.create(Instances.Shape.synthetic,nrRegions,10,appSize,4);
+		BookKeeper bookKeeper=new BookKeeper(driver.infra);
+		Conductor.ModeType modeType=Conductor.ModeType.valueOf(mode);
+		conductor=new Conductor(bookKeeper,Instances.quietSolverSB(bookKeeper),modeType);
+		Colony[] colonies=(modeType==Conductor.ModeType.overlapping)?driver.createOverlappingColonies():driver.colonies;
+		Instances.deployBackground(conductor,colonies,3);
+		colony=colonies[0];
+		app=colony.getApplication(3);
+	}
+
+	/** Deploy the application, then undeploy it */
+	@Benchmark
+	public Result deployApplication() {
+		Result result=conductor.deployApplication(colony,app);
+		conductor.undeployApplication(app);
+		return result;
+	}
+}
@@ -0,0 +1,120 @@
+package colonies;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of the ILP model of SolverILP with the embedded backend, on a partly
+ * loaded synthetic instance, depending on the number of fog nodes and the application
+ * size. The construction is measured in two ways: the empty model of a colony (its
+ * capacity constraints and candidate paths), and the difference between a cold
+ * optimization run, which builds the complete model, and a warm run, which only updates
+ * the persistent model of the previous run. Each run places an application in its colony,
+ * which is removed again afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class IlpBenchmark {
+	/** Nr. of fog nodes per region */
+	@Param({"5","10"})
+	int nrFogNodesPerRegion;
+	/** Nr. of components per application */
+	@Param({"4","8"})
+	int appSize;
+
+	/** The BookKeeper */
+	private BookKeeper bookKeeper;
+	/** The solver of the warm runs, which keeps its model */
+	private SolverILP warmSolver;
+	/** The solver of the current cold run */
+	private SolverILP coldSolver;
+	/** The colony of the application */
+	private Colony colony;
+	/** The application that is deployed */
+	private Application app;
+	/** The servers of the colony */
+	private Set<Server> servers;
+	/** The components already placed in the colony */
+	private Set<Component> placedComponents;
+
+	/** Create the instance, deploy some applications, and build the model of the warm runs */
+	@Setup(Level.Trial)
+	public void createInstance() {
+		TestDriver driver=Instances.create(Instances.Shape.synthetic,2,nrFogNodesPerRegion,appSize,4);
+		bookKeeper=new BookKeeper(driver.infra);
+		Instances.deployBackground(new Conductor(bookKeeper,Instances.quietSolverSB(bookKeeper),Conductor.ModeType.independent),driver.colonies,3);
+		colony=driver.colonies[0];
+		app=colony.getApplication(3);
+		servers=new HashSet<>(colony.getServers());
+		placedComponents=new HashSet<>(bookKeeper.getComponents(colony));
+		warmSolver=new SolverILP(bookKeeper,MilpBackend.embedded);
+		warmSolver.setQuiet(true);
+		deploy(warmSolver);
+	}
+
+	/** Create the solver of the next cold run */
+	@Setup(Level.Invocation)
+	public void createColdSolver() {
+		coldSolver=new SolverILP(bookKeeper,MilpBackend.embedded);
+		coldSolver.setQuiet(true);
+	}
+
+	/** Release the model of the last cold run */
+	@TearDown(Level.Invocation)
+	public void disposeColdSolver() {
+		coldSolver.dispose();
+	}
+
+	/** Release the model of the warm runs */
+	@TearDown(Level.Trial)
+	public void disposeWarmSolver() {
+		warmSolver.dispose();
+	}
+
+	/** Place the application with the given solver, then remove it */
+	private Result deploy(SolverILP solver) {
+		Result result=solver.optimize(servers,Collections.emptySet(),new HashSet<>(app.getComponents()),placedComponents,
+				Collections.emptySet(),Collections.emptySet(),colony,Conductor.ModeType.independent,new Deadline());
+		bookKeeper.removeApplication(app);
+		return result;
+	}
+
+	/** Build the empty model of the colony */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object constructEmptyModel() throws MilpException {
+		return new SolverILP.PersistentModel(MilpBackend.embedded,bookKeeper.getInfra(),servers,Collections.emptySet(),Conductor.ModeType.independent);
+	}
+
+	/** Optimization run building the complete model */
+	@Benchmark
+	public Result optimizeCold() {
+		return deploy(coldSolver);
+	}
+
+	/** Optimization run updating the model of the previous run */
+	@Benchmark
+	public Result optimizeWarm() {
+		return deploy(warmSolver);
+	}
+}
@@ -0,0 +1,60 @@
+package colonies;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Path computation of synthetic infrastructures, depending on the number of regions and
+ * of fog nodes per region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class InfrastructureBenchmark {
+	/** Nr. of regions */
+	@Param({"2","4","8"})
+	int nrRegions;
+	/** Nr. of fog nodes per region */
+	@Param({"5","10","20"})
+	int nrFogNodesPerRegion;
+
+	/** The generated infrastructure */
+	private Infrastructure template;
+	/** A copy of the generated infrastructure without paths */
+	private Infrastructure infra;
+
+	/** Generate the infrastructure */
+	@Setup(Level.Trial)
+	public void createInfra() {
+		template=Instances.create(Instances.Shape.synthetic,nrRegions,nrFogNodesPerRegion,1,0).infra;
+	}
+
+	/** Copy the nodes (and thus the links) of the infrastructure, but not its paths */
+	@Setup(Level.Invocation)
+	public void copyInfra() {
+		infra=Infrastructure.unite(new Infrastructure[] {template});
+	}
+
+	/** Determine the paths, as TestSynthetic and TestReal do */
+	@Benchmark
+	public Infrastructure determinePaths() {
+		infra.determinePaths(2,new Random(Instances.seed));
+		return infra;
+	}
+}
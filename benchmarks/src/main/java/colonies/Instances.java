@@ -0,0 +1,57 @@
+package colonies;
+
+/**
+ * Problem instances for the benchmarks, created like the instances of TestSynthetic and
+ * TestReal, from a fixed seed and with the given size parameters.
+ */
+public class Instances {
+	/** The seed used for all instances */
+	static final long seed=1;
+
+	/** The generators of the instances */
+	enum Shape {synthetic, real}
+
+	/**
+	 * Create the infrastructure (with paths), the colonies and the applications of an
+	 * instance. The number of fog nodes per region only applies to synthetic instances;
+	 * the regions of real instances always have the same structure.
+	 */
+	static TestDriver create(Shape shape,int nrRegions,int nrFogNodesPerRegion,int appSize,int nrAppsPerRegion) {
+		TestDriver driver;
+		if(shape==Shape.synthetic) {
+			TestSynthetic synthetic=new TestSynthetic(seed);
+			synthetic.nrFogNodesPerRegion=nrFogNodesPerRegion;
+			synthetic.nrEndDevicesPerRegion=nrFogNodesPerRegion;
+			synthetic.nrAdditionalLinks=nrFogNodesPerRegion*2;
+			driver=synthetic;
+		} else
+			driver=new TestReal(seed);
+		driver.nrRegions=nrRegions;
+		driver.appSize=appSize;
+		driver.nrAppsPerRegion=nrAppsPerRegion;
+		driver.createInfra();
+		driver.createApps();
+		return driver;
+	}
+
+	/**
+	 * Create a SolverSB that does not print the Result of its runs, since printing would
+	 * distort the measurements.
+	 */
+	static SolverSB quietSolverSB(BookKeeper bookKeeper) {
+		SolverSB solver=new SolverSB(bookKeeper);
+		solver.setQuiet(true);
+		return solver;
+	}
+
+	/**
+	 * Deploy the first nrApps applications of each of the given colonies with the given
+	 * Conductor, so that the measured deployments find a partly loaded infrastructure.
+	 */
+	static void deployBackground(Conductor conductor,Colony[] colonies,int nrApps) {
+		for(int j=0;j<nrApps;j++) {
+			for(Colony colony : colonies)
+				conductor.deployApplication(colony,colony.getApplication(j));
+		}
+	}
+}
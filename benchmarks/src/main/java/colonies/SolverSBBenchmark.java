@@ -0,0 +1,112 @@
+package colonies;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Route search and optimization runs of SolverSB, on partly loaded synthetic and real
+ * instances. An optimization run places an application in its colony (as in the
+ * independent mode, with the components of the colony being movable); afterwards, the
+ * application is removed again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class SolverSBBenchmark {
+	/** The generator of the instance (JMH parameters must be public types) */
+	@Param({"synthetic","real"})
+	String shape;
+	/** Nr. of regions */
+	@Param({"2","8"})
+	int nrRegions;
+	/** Nr. of components per application */
+	@Param({"8","32"})
+	int appSize;
+
+	/** The BookKeeper */
+	private BookKeeper bookKeeper;
+	/** The solver */
+	private SolverSB solver;
+	/** The colony of the application */
+	private Colony colony;
+	/** The application that is deployed */
+	private Application app;
+	/** The servers of the colony */
+	private Set<Server> servers;
+	/** The components already placed in the colony */
+	private Set<Component> placedComponents;
+	/** A connector between a component of the application and an end device */
+	private Connector connector;
+	/** The server from which the connector is routed */
+	private Server server;
+	/** The end device to which the connector is routed */
+	private EndDevice endDevice;
+	/** All nodes of the infrastructure */
+	private Set<IHwNode> allHwNodes;
+
+	/** Create the instance, deploy some applications, and choose the application and connector */
+	@Setup(Level.Trial)
+	public void createInstance() {
+		TestDriver driver=Instances.create(Instances.Shape.valueOf(shape),nrRegions,10,appSize,4);
+		bookKeeper=new BookKeeper(driver.infra);
+		solver=Instances.quietSolverSB(bookKeeper);
+		Instances.deployBackground(new Conductor(bookKeeper,solver,Conductor.ModeType.independent),driver.colonies,3);
+		colony=driver.colonies[0];
+		app=colony.getApplication(3);
+		servers=new HashSet<>(colony.getServers());
+		placedComponents=new HashSet<>(bookKeeper.getComponents(colony));
+		for(Component c : app.getComponents()) {
+			for(Connector conn : c.getConnectors()) {
+				if(connector==null && conn.getOtherVertex(c).isEndDevice()) {
+					connector=conn;
+					endDevice=(EndDevice)conn.getOtherVertex(c);
+				}
+			}
+		}
+		for(Server s : colony.getServers()) {
+			if(server==null && !s.isCloud())
+				server=s;
+		}
+		allHwNodes=driver.infra.getNodes();
+	}
+
+	/** Search a route without memoized answers */
+	@Benchmark
+	public Path findRoute() {
+		solver.clearRouteMemo();
+		return solver.findRoute(connector,server,endDevice,allHwNodes);
+	}
+
+	/** Search a route whose answer is memoized */
+	@Benchmark
+	public Path findRouteMemoized() {
+		return solver.findRoute(connector,server,endDevice,allHwNodes);
+	}
+
+	/** Place the application, then remove it */
+	@Benchmark
+	public Result optimize() {
+		Result result=solver.optimize(servers,Collections.emptySet(),new HashSet<>(app.getComponents()),placedComponents,
+				Collections.emptySet(),Collections.emptySet(),colony,Conductor.ModeType.independent,new Deadline());
+		bookKeeper.removeApplication(app);
+		return result;
+	}
+}
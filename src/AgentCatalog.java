@@ -0,0 +1,112 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Common numbering of the servers, paths, components and connectors, used by the colony
+ * agents to refer to them in messages. The infrastructure is numbered when the catalog
+ * is created; the components and connectors of an application are numbered when it is
+ * registered, before it is submitted to an agent. This corresponds to the descriptors
+ * of the infrastructure and the applications that all colonies know in advance; the
+ * state of the colonies (placements and routes) is only exchanged through messages.
+ */
+@SuppressWarnings("serial")
+public class AgentCatalog implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
+	/** The servers, in the order of their numbers */
+	private List<Server> servers;
+	/** Number of each server */
+	private Map<Server,Integer> serverNrs;
+	/** The paths, in the order of their numbers */
+	private List<Path> paths;
+	/** Number of each path */
+	private Map<Path,Integer> pathNrs;
+	/** The registered components, in the order of their numbers */
+	private List<Component> components;
+	/** Number of each registered component */
+	private Map<Component,Integer> componentNrs;
+	/** The registered connectors, in the order of their numbers */
+	private List<Connector> connectors;
+	/** Number of each registered connector */
+	private Map<Connector,Integer> connectorNrs;
+
+	/**
+	 * Create the catalog of the given infrastructure, without any applications.
+	 */
+	public AgentCatalog(Infrastructure infra) {
+		servers=new ArrayList<>(infra.getServers());
+		serverNrs=new HashMap<>();
+		for(int i=0;i<servers.size();i++)
+			serverNrs.put(servers.get(i),i);
+		paths=new ArrayList<>(infra.getAllPaths());
+		pathNrs=new HashMap<>();
+		for(int i=0;i<paths.size();i++)
+			pathNrs.put(paths.get(i),i);
+		components=new ArrayList<>();
+		componentNrs=new HashMap<>();
+		connectors=new ArrayList<>();
+		connectorNrs=new HashMap<>();
+	}
+
+	/**
+	 * Number the components and connectors of the given application that are not
+	 * numbered yet.
+	 */
+	public synchronized void register(Application app) {
+		for(Component c : app.getComponents()) {
+			if(!componentNrs.containsKey(c)) {
+				componentNrs.put(c,components.size());
+				components.add(c);
+			}
+			for(Connector conn : c.getConnectors()) {
+				if(!connectorNrs.containsKey(conn)) {
+					connectorNrs.put(conn,connectors.size());
+					connectors.add(conn);
+				}
+			}
+		}
+	}
+
+	/** Returns the number of the given server */
+	public int getNr(Server s) {
+		return serverNrs.get(s);
+	}
+
+	/** Returns the server with the given number */
+	public Server getServer(int nr) {
+		return servers.get(nr);
+	}
+
+	/** Returns the number of the given path */
+	public int getNr(Path p) {
+		return pathNrs.get(p);
+	}
+
+	/** Returns the path with the given number */
+	public Path getPath(int nr) {
+		return paths.get(nr);
+	}
+
+	/** Returns the number of the given registered component */
+	public synchronized int getNr(Component c) {
+		return componentNrs.get(c);
+	}
+
+	/** Returns the registered component with the given number */
+	public synchronized Component getComponent(int nr) {
+		return components.get(nr);
+	}
+
+	/** Returns the number of the given registered connector */
+	public synchronized int getNr(Connector conn) {
+		return connectorNrs.get(conn);
+	}
+
+	/** Returns the registered connector with the given number */
+	public synchronized Connector getConnector(int nr) {
+		return connectors.get(nr);
+	}
+}
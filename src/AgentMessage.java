@@ -0,0 +1,141 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A message between colony agents. Messages are sent in binary form (see encode() and
+ * decode()), so that their size can be measured. A message consists of a header (type,
+ * sender, request ID) and, for the messages carrying state, a list of placements and a
+ * list of routes, in which the servers, paths, components and connectors are referred
+ * to by their numbers in the AgentCatalog.
+ */
+public class AgentMessage {
+	/** The types of messages */
+	enum Type {
+		/** Request for the lock of the receiver */
+		lock,
+		/** Reply to lock: the sender of the lock request holds the lock now */
+		granted,
+		/** Release of the lock of the receiver (no reply) */
+		unlock,
+		/** Request for the state of the servers of the receiver */
+		stateRequest,
+		/** Reply to stateRequest: the placements on the servers of the sender, and the routes via them */
+		state,
+		/** Request to apply the given changes of the placements and routes to the state of the receiver */
+		apply,
+		/** Reply to apply */
+		applied
+	}
+	/** Type of the message */
+	private Type type;
+	/** Number of the colony of the sending agent */
+	private int sender;
+	/** Identifier of the request; a reply has the identifier of the request it answers */
+	private long requestId;
+	/** Placements (null value: the component is not placed on the servers concerned) */
+	private Map<Component,Server> placements;
+	/** Routes (null value: the connector is not routed via the servers concerned) */
+	private Map<Connector,Path> routes;
+
+	/**
+	 * Construct a message without placements and routes.
+	 */
+	public AgentMessage(Type type,int sender,long requestId) {
+		this(type,sender,requestId,new HashMap<>(),new HashMap<>());
+	}
+
+	/**
+	 * Construct a message with the given placements and routes.
+	 */
+	public AgentMessage(Type type,int sender,long requestId,Map<Component,Server> placements,Map<Connector,Path> routes) {
+		this.type=type;
+		this.sender=sender;
+		this.requestId=requestId;
+		this.placements=placements;
+		this.routes=routes;
+	}
+
+	/** Returns the type of the message */
+	public Type getType() {
+		return type;
+	}
+
+	/** Returns the number of the colony of the sending agent */
+	public int getSender() {
+		return sender;
+	}
+
+	/** Returns the identifier of the request */
+	public long getRequestId() {
+		return requestId;
+	}
+
+	/** Returns the placements carried by the message */
+	public Map<Component,Server> getPlacements() {
+		return placements;
+	}
+
+	/** Returns the routes carried by the message */
+	public Map<Connector,Path> getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * Encode the message in binary form.
+	 */
+	public byte[] encode(AgentCatalog catalog) {
+		ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+		try(DataOutputStream out=new DataOutputStream(bytes)) {
+			out.writeByte(type.ordinal());
+			out.writeInt(sender);
+			out.writeLong(requestId);
+			out.writeInt(placements.size());
+			for(Map.Entry<Component,Server> entry : placements.entrySet()) {
+				out.writeInt(catalog.getNr(entry.getKey()));
+				out.writeInt(entry.getValue()==null?-1:catalog.getNr(entry.getValue()));
+			}
+			out.writeInt(routes.size());
+			for(Map.Entry<Connector,Path> entry : routes.entrySet()) {
+				out.writeInt(catalog.getNr(entry.getKey()));
+				out.writeInt(entry.getValue()==null?-1:catalog.getNr(entry.getValue()));
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decode a message from its binary form.
+	 */
+	public static AgentMessage decode(byte[] data,AgentCatalog catalog) {
+		try(DataInputStream in=new DataInputStream(new ByteArrayInputStream(data))) {
+			Type type=Type.values()[in.readByte()];
+			int sender=in.readInt();
+			long requestId=in.readLong();
+			Map<Component,Server> placements=new HashMap<>();
+			int nrPlacements=in.readInt();
+			for(int i=0;i<nrPlacements;i++) {
+				Component c=catalog.getComponent(in.readInt());
+				int serverNr=in.readInt();
+				placements.put(c,serverNr<0?null:catalog.getServer(serverNr));
+			}
+			Map<Connector,Path> routes=new HashMap<>();
+			int nrRoutes=in.readInt();
+			for(int i=0;i<nrRoutes;i++) {
+				Connector conn=catalog.getConnector(in.readInt());
+				int pathNr=in.readInt();
+				routes.put(conn,pathNr<0?null:catalog.getPath(pathNr));
+			}
+			return new AgentMessage(type,sender,requestId,placements,routes);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A set of colony agents orchestrating the colonies in a decentralized way, in the
+ * independent, communicating or overlapping mode, and communicating only through
+ * messages (see ColonyAgent). Each server is owned by exactly one agent: the agent of
+ * the colony with the smallest number among the colonies containing the server. The
+ * statistics of the messages between the agents are collected, so that the cost of the
+ * coordination can be measured.
+ */
+public class AgentSystem implements IAgentNetwork {
+	/** The common numbering of infrastructure and application elements */
+	private AgentCatalog catalog;
+	/** Statistics of the messages between the agents */
+	private MessageStats stats;
+	/** The agent of each colony, by colony number */
+	private Map<Integer,ColonyAgent> agents;
+	/** The number of the colony owning each server */
+	private Map<Server,Integer> owners;
+
+	/**
+	 * Constructor, without agents. Use create(), which also creates and starts the agents.
+	 */
+	private AgentSystem(Infrastructure infra,List<Colony> colonies) {
+		catalog=new AgentCatalog(infra);
+		stats=new MessageStats();
+		owners=determineOwners(colonies);
+		agents=new HashMap<>();
+	}
+
+	/**
+	 * Create and start an agent for each of the given colonies. Each agent gets its own
+	 * replica of the state and its own solver, created by the given factory for the
+	 * replica. The centralized mode is not supported, since it has no colonies to
+	 * coordinate.
+	 */
+	public static AgentSystem create(Infrastructure infra,List<Colony> colonies,Conductor.ModeType mode,Function<BookKeeper,ISolver> solverFactory) {
+		if(mode==Conductor.ModeType.centralized)
+			throw new IllegalArgumentException("The centralized mode cannot be run by colony agents");
+		AgentSystem system=new AgentSystem(infra,colonies);
+		Colony[] sortedColonies=colonies.toArray(new Colony[0]);
+		Arrays.sort(sortedColonies,Comparator.comparingInt(Colony::getNr));
+		for(Colony colony : sortedColonies) {
+			BookKeeper replica=new BookKeeper(infra);
+			system.agents.put(colony.getNr(),new ColonyAgent(system,colony,mode,solverFactory.apply(replica),replica));
+		}
+		for(ColonyAgent agent : system.agents.values())
+			agent.start();
+		return system;
+	}
+
+	/**
+	 * Determine the owner of each server of the given colonies: the colony with the
+	 * smallest number among the colonies containing the server.
+	 */
+	static Map<Server,Integer> determineOwners(List<Colony> colonies) {
+		Colony[] sortedColonies=colonies.toArray(new Colony[0]);
+		Arrays.sort(sortedColonies,Comparator.comparingInt(Colony::getNr));
+		Map<Server,Integer> owners=new HashMap<>();
+		for(Colony colony : sortedColonies) {
+			for(Server s : colony.getServers())
+				owners.putIfAbsent(s,colony.getNr());
+		}
+		return owners;
+	}
+
+	/** Returns the common numbering of infrastructure and application elements */
+	public AgentCatalog getCatalog() {
+		return catalog;
+	}
+
+	/** Returns the statistics of the messages between the agents */
+	public MessageStats getStats() {
+		return stats;
+	}
+
+	/** Returns the agent of the colony with the given number */
+	public ColonyAgent getAgent(int colonyNr) {
+		return agents.get(colonyNr);
+	}
+
+	/** Returns the number of the colony owning the given server */
+	public int getOwner(Server s) {
+		return owners.get(s);
+	}
+
+	/** Put the given message into the mailbox of the agent of the given colony */
+	public void deliver(int receiver,byte[] message) {
+		agents.get(receiver).deliver(message);
+	}
+
+	/**
+	 * Set the time limit for deploying an application (in milliseconds) in each agent.
+	 * 0 means no time limit.
+	 */
+	public void setTimeLimit(long timeLimitMs) {
+		for(ColonyAgent agent : agents.values())
+			agent.setTimeLimit(timeLimitMs);
+	}
+
+	/**
+	 * Submit an application for deployment to the colony with the given number. The
+	 * returned future is completed with the Result of the deployment.
+	 */
+	public CompletableFuture<Result> submit(int colonyNr,Application app) {
+		catalog.register(app);
+		return agents.get(colonyNr).submit(app);
+	}
+
+	/**
+	 * Wait until the submitted deployments have finished, and stop the agents.
+	 */
+	public void shutdown() throws InterruptedException {
+		for(ColonyAgent agent : agents.values())
+			agent.finishDeployments();
+		for(ColonyAgent agent : agents.values())
+			agent.stop();
+	}
+}
@@ -1,12 +1,17 @@
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represents an application, storing the list of components that the application
  * consists of. The application does not know where it should be or is already
  * deployed.
  */
-public class Application {
+@SuppressWarnings("serial")
+public class Application implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** The components of the application */
 	private List<Component> components;
 
@@ -40,11 +45,11 @@ public class Application {
 	}
 
 	/**
-	 * Get a randomly chosen component. PRE: there is at least one component, and
-	 * Main.random is already initialized.
+	 * Get a component, chosen with the given random generator. PRE: there is at least
+	 * one component.
 	 */
-	public Component getRandomComponent() {
-		return components.get(Main.random.nextInt(components.size()));
+	public Component getRandomComponent(Random random) {
+		return components.get(random.nextInt(components.size()));
 	}
 
 	/**
@@ -1,12 +1,16 @@
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Keeps track of the components and connectors mapped on the infrastructure. There 
  * can be multiple BookKeeper objects for the same infrastructure, keeping track of 
- * different experiments.
+ * different experiments. The mappings are kept in concurrent maps and the free
+ * capacities are updated atomically, so that deployments working on disjoint sets of
+ * servers (see ParallelConductor) can use the same BookKeeper at the same time.
  */
 public class BookKeeper {
 	/** Reference to the infrastructure for read-only access */
@@ -21,23 +25,94 @@ public class BookKeeper {
 	private Map<Server,Double> freeRamCap;
 	/** Available bandwidth of the links */
 	private Map<Link,Double> freeBandwidth;
+	/** The listeners notified about placement changes */
+	private List<IPlacementListener> listeners;
+
+	/** Interface for objects that need to follow the placement of the components */
+	interface IPlacementListener {
+		/** Called after component c has been placed on server s */
+		void placed(Component c,Server s);
+		/** Called after component c has been removed from server s */
+		void unPlaced(Component c,Server s);
+	}
 
 	/**
 	 * Create new BookKeeper with no components and no connectors mapped.
 	 */
 	public BookKeeper(Infrastructure infrastructure) {
 		this.infra=infrastructure;
-		alpha=new HashMap<>();
-		beta=new HashMap<>();
-		freeCpuCap=new HashMap<>();
+		alpha=new ConcurrentHashMap<>();
+		beta=new ConcurrentHashMap<>();
+		freeCpuCap=new ConcurrentHashMap<>();
 		for(Server s : infra.getServers())
 			freeCpuCap.put(s,s.getCpuCap());
-		freeRamCap=new HashMap<>();
+		freeRamCap=new ConcurrentHashMap<>();
 		for(Server s : infra.getServers())
 			freeRamCap.put(s,s.getRamCap());
-		freeBandwidth=new HashMap<>();
+		freeBandwidth=new ConcurrentHashMap<>();
 		for(Link l : infra.getAllInternalLinks())
 			freeBandwidth.put(l,l.getBw());
+		listeners=new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Create a copy of the given BookKeeper, with the same components and connectors
+	 * mapped. The copy refers to the same infrastructure, but its mappings and free
+	 * capacities can be changed independently of the original. The listeners of the
+	 * original are not notified about changes of the copy.
+	 */
+	public BookKeeper(BookKeeper other) {
+		this.infra=other.infra;
+		alpha=new ConcurrentHashMap<>(other.alpha);
+		beta=new ConcurrentHashMap<>(other.beta);
+		freeCpuCap=new ConcurrentHashMap<>(other.freeCpuCap);
+		freeRamCap=new ConcurrentHashMap<>(other.freeRamCap);
+		freeBandwidth=new ConcurrentHashMap<>(other.freeBandwidth);
+		listeners=new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Register a listener that is notified whenever a component is placed or un-placed.
+	 */
+	public void addListener(IPlacementListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Unregister a listener registered with addListener().
+	 */
+	public void removeListener(IPlacementListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Take over the placement of the given components and the routing of their connectors
+	 * from the given copy of this BookKeeper.
+	 */
+	public void copyPlacementFrom(BookKeeper fork,Set<Component> components) {
+		Set<Connector> connectors=new HashSet<>();
+		for(Component c : components)
+			connectors.addAll(c.getConnectors());
+		//first release the resources that are not used anymore, then occupy the new ones
+		for(Connector conn : connectors) {
+			if(getPath(conn)!=fork.getPath(conn))
+				unRoute(conn);
+		}
+		for(Component c : components) {
+			Server oldServer=getHost(c);
+			Server newServer=fork.getHost(c);
+			if(oldServer!=newServer) {
+				if(oldServer!=null)
+					unPlace(c);
+				if(newServer!=null)
+					place(c,newServer);
+			}
+		}
+		for(Connector conn : connectors) {
+			Path p=fork.getPath(conn);
+			if(p!=null && getPath(conn)!=p)
+				route(conn,p);
+		}
 	}
 
 	/**
@@ -47,6 +122,13 @@ public class BookKeeper {
 		return alpha;
 	}
 
+	/**
+	 * Return current routing of connectors.
+	 */
+	public Map<Connector,Path> getBeta() {
+		return beta;
+	}
+
 	/**
 	 * Return the server that hosts the given component, or null if the component is not placed.
 	 */
@@ -114,9 +196,11 @@ public class BookKeeper {
 	 * by this method. Note also that if the component is already placed, it should first be un-placed.
 	 */
 	public void place(Component c, Server s) {
-		freeCpuCap.put(s,freeCpuCap.get(s)-c.getCpuReq());
-		freeRamCap.put(s,freeRamCap.get(s)-c.getRamReq());
+		freeCpuCap.merge(s,-c.getCpuReq(),Double::sum);
+		freeRamCap.merge(s,-c.getRamReq(),Double::sum);
 		alpha.put(c,s);
+		for(IPlacementListener listener : listeners)
+			listener.placed(c,s);
 	}
 
 	/**
@@ -125,9 +209,11 @@ public class BookKeeper {
 	 */
 	public void unPlace(Component c) {
 		Server s=alpha.get(c);
-		freeCpuCap.put(s,freeCpuCap.get(s)+c.getCpuReq());
-		freeRamCap.put(s,freeRamCap.get(s)+c.getRamReq());
+		freeCpuCap.merge(s,c.getCpuReq(),Double::sum);
+		freeRamCap.merge(s,c.getRamReq(),Double::sum);
 		alpha.remove(c);
+		for(IPlacementListener listener : listeners)
+			listener.unPlaced(c,s);
 	}
 
 	/**
@@ -136,7 +222,7 @@ public class BookKeeper {
 	 */
 	public void route(Connector conn, Path p) {
 		for(Link l : p.getLinks())
-			freeBandwidth.put(l,freeBandwidth.get(l)-conn.getBwReq());
+			freeBandwidth.merge(l,-conn.getBwReq(),Double::sum);
 		beta.put(conn,p);
 	}
 
@@ -147,8 +233,33 @@ public class BookKeeper {
 		Path p=beta.get(conn);
 		if(p!=null) {
 			for(Link l : p.getLinks())
-				freeBandwidth.put(l,freeBandwidth.get(l)+conn.getBwReq());
+				freeBandwidth.merge(l,conn.getBwReq(),Double::sum);
 			beta.remove(conn);
 		}
 	}
+
+	/**
+	 * Remove all components of the given application, together with their connectors,
+	 * from the infrastructure. Components that are not placed and connectors that are not
+	 * routed are skipped. Takes time proportional to the number of components and
+	 * connectors of the application. Returns the capacity that became free.
+	 */
+	public ReleasedCapacity removeApplication(Application app) {
+		ReleasedCapacity released=new ReleasedCapacity();
+		for(Component c : app.getComponents()) {
+			for(Connector conn : c.getConnectors()) {
+				Path p=beta.get(conn);
+				if(p!=null) { //a connector between two components of the application is un-routed when the first of them is processed
+					released.addConnector(conn,p);
+					unRoute(conn);
+				}
+			}
+			Server s=alpha.get(c);
+			if(s!=null) {
+				released.addComponent(c,s);
+				unPlace(c);
+			}
+		}
+		return released;
+	}
 }
@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Preprocessing step for placement: contracts tightly coupled components of an
+ * application into groups ("super-components") that should be co-located on the same
+ * server. A connector is tightly coupled if its bandwidth requirement is at least
+ * {@link #minBwReq} and its maximum latency is at most {@link #maxLatency}. Groups are
+ * formed greedily along the tightly coupled connectors in decreasing order of their
+ * bandwidth requirement, as long as the summed CPU and RAM requirements of the group
+ * still fit on a single server. The connectors inside a group need no routing attempts,
+ * since they are mapped to the trivial path of the hosting server.
+ */
+public class CoLocationContraction {
+	/** Minimum bandwidth requirement of a tightly coupled connector */
+	private double minBwReq;
+	/** Maximum allowed latency of a tightly coupled connector */
+	private double maxLatency;
+
+	/**
+	 * Constructor. Use Double.POSITIVE_INFINITY as maxLatency (or 0 as minBwReq) to
+	 * select tightly coupled connectors based on only one of the two criteria.
+	 */
+	public CoLocationContraction(double minBwReq,double maxLatency) {
+		this.minBwReq=minBwReq;
+		this.maxLatency=maxLatency;
+	}
+
+	/**
+	 * Returns true iff the given connector is tightly coupled.
+	 */
+	private boolean isTight(Connector conn) {
+		return conn.getBwReq()>=minBwReq && conn.getMaxLatency()<=maxLatency;
+	}
+
+	/**
+	 * Find the representative of the group of the given component (union-find with path
+	 * compression).
+	 */
+	private static Component find(Map<Component,Component> parent,Component c) {
+		Component root=c;
+		while(parent.get(root)!=root)
+			root=parent.get(root);
+		while(parent.get(c)!=root) {
+			Component next=parent.get(c);
+			parent.put(c,root);
+			c=next;
+		}
+		return root;
+	}
+
+	/**
+	 * Contract the given components into groups. A group is only formed if its summed
+	 * requirements fit on one of the given servers, considering their free capacity in
+	 * the bookKeeper; if any fog node is among the servers, the cloud is disregarded for
+	 * this purpose, so that groups that would only fit in the cloud are not formed. The
+	 * groups are returned in the order of their first member in the given list, and the
+	 * members of a group are also in the order of the given list. Components that are not
+	 * contracted with others form singleton groups.
+	 */
+	public List<List<Component>> contract(List<Component> components,List<Server> servers,BookKeeper bookKeeper) {
+		List<Server> hosts=new ArrayList<>();
+		for(Server s : servers) {
+			if(!s.isCloud())
+				hosts.add(s);
+		}
+		if(hosts.isEmpty())
+			hosts.addAll(servers);
+		Set<Component> componentSet=new HashSet<>(components);
+		Map<Component,Component> parent=new HashMap<>();
+		Map<Component,Double> groupCpu=new HashMap<>();
+		Map<Component,Double> groupRam=new HashMap<>();
+		for(Component c : components) {
+			parent.put(c,c);
+			groupCpu.put(c,c.getCpuReq());
+			groupRam.put(c,c.getRamReq());
+		}
+		List<Connector> tightConnectors=new ArrayList<>();
+		for(Component c : components) {
+			for(Connector conn : c.getConnectors()) {
+				if(conn.getV1()==c && componentSet.contains(conn.getV2()) && isTight(conn)) //each connector is considered once
+					tightConnectors.add(conn);
+			}
+		}
+		Collections.sort(tightConnectors,new Comparator<Connector>() {
+			@Override
+			public int compare(Connector lhs,Connector rhs) {
+				return Double.compare(rhs.getBwReq(),lhs.getBwReq());
+			}
+		});
+		for(Connector conn : tightConnectors) {
+			Component root1=find(parent,(Component)conn.getV1());
+			Component root2=find(parent,(Component)conn.getV2());
+			if(root1==root2)
+				continue;
+			double cpu=groupCpu.get(root1)+groupCpu.get(root2);
+			double ram=groupRam.get(root1)+groupRam.get(root2);
+			boolean fits=false;
+			for(Server s : hosts) {
+				if(bookKeeper.getFreeCpuCap(s)>=cpu && bookKeeper.getFreeRamCap(s)>=ram) {
+					fits=true;
+					break;
+				}
+			}
+			if(fits) {
+				parent.put(root2,root1);
+				groupCpu.put(root1,cpu);
+				groupRam.put(root1,ram);
+			}
+		}
+		Map<Component,List<Component>> groupOfRoot=new HashMap<>();
+		List<List<Component>> groups=new ArrayList<>();
+		for(Component c : components) {
+			Component root=find(parent,c);
+			List<Component> group=groupOfRoot.get(root);
+			if(group==null) {
+				group=new ArrayList<>();
+				groupOfRoot.put(root,group);
+				groups.add(group);
+			}
+			group.add(c);
+		}
+		return groups;
+	}
+}
@@ -1,6 +1,8 @@
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -8,7 +10,10 @@ import java.util.Set;
  * nodes, cloud) contained in the colony. The Colony knows which applications it
  * has to host, but does not maintain the specific placement. 
  */
-public class Colony {
+@SuppressWarnings("serial")
+public class Colony implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** The set of all HW nodes in the colony, including end devices, fog nodes, cloud */
 	private Set<IHwNode> nodes;
 	/** The list of all servers in the colony, including fog nodes and the cloud */
@@ -44,6 +49,15 @@ public class Colony {
 		return nr;
 	}
 
+	/**
+	 * Returns the hash code of the colony, i.e., its number, so that the iteration
+	 * order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return nr;
+	}
+
 	/**
 	 * Add a server to the colony.
 	 */
@@ -52,6 +66,15 @@ public class Colony {
 		nodes.add(node);
 	}
 
+	/**
+	 * Remove a server from the colony. If it was marked as shared, the mark is removed too.
+	 */
+	public void removeServer(Server node) {
+		servers.remove(node);
+		nodes.remove(node);
+		sharedNodes.remove(node);
+	}
+
 	/**
 	 * Add an end device to the colony.
 	 */
@@ -61,19 +84,19 @@ public class Colony {
 	}
 
 	/**
-	 * Get a randomly chosen server of the colony. PRE: the colony contains at least
-	 * one server, and Main.random has already been initialized.
+	 * Get a server of the colony, chosen with the given random generator. PRE: the
+	 * colony contains at least one server.
 	 */
-	public Server getRandomServer() {
-		return servers.get(Main.random.nextInt(servers.size()));
+	public Server getRandomServer(Random random) {
+		return servers.get(random.nextInt(servers.size()));
 	}
 
 	/**
-	 * Get a randomly chosen end device of the colony. PRE: the colony contains at 
-	 * least one end device, and Main.random has already been initialized.
+	 * Get an end device of the colony, chosen with the given random generator. PRE:
+	 * the colony contains at least one end device.
 	 */
-	public EndDevice getRandomEndDevice() {
-		return endDevices.get(Main.random.nextInt(endDevices.size()));
+	public EndDevice getRandomEndDevice(Random random) {
+		return endDevices.get(random.nextInt(endDevices.size()));
 	}
 
 	/**
@@ -137,7 +160,7 @@ public class Colony {
 	 * PRE: k is not more than the number of fog nodes in the colony that are not
 	 * shared yet.
 	 */
-	public Set<Server> shareNodes(int k) {
+	public Set<Server> shareNodes(int k,Random random) {
 		Set<Server> result=new HashSet<>();
 		List<Server> potentialNodesToShare=new ArrayList<>();
 		for(Server s : servers) {
@@ -145,7 +168,7 @@ public class Colony {
 				potentialNodesToShare.add(s);
 		}
 		for(int i=0;i<k;i++) {
-			Server s=potentialNodesToShare.get(Main.random.nextInt(potentialNodesToShare.size()));
+			Server s=potentialNodesToShare.get(random.nextInt(potentialNodesToShare.size()));
 			potentialNodesToShare.remove(s);
 			result.add(s);
 		}
@@ -160,6 +183,13 @@ public class Colony {
 		sharedNodes.add(s);
 	}
 
+	/**
+	 * Remove the shared mark of the given server.
+	 */
+	public void unmarkShared(Server s) {
+		sharedNodes.remove(s);
+	}
+
 	/**
 	 * Return the set of fog nodes shared with neighboring colonies.
 	 */
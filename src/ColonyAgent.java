@@ -0,0 +1,320 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orchestrates one colony as an agent with its own state: a replica of the BookKeeper
+ * that is authoritative for the servers owned by the agent (see AgentSystem), and kept
+ * in sync for the other servers only through messages. The agent has a mailbox, served
+ * by a virtual thread, and deploys the applications submitted to it one after the other
+ * on a second virtual thread.
+ * <p>
+ * A deployment locks the agents owning the servers in the scope of the deployment (in
+ * the order of their colony numbers, so that deadlocks cannot occur), requests their
+ * state and applies it to the replica, runs the Conductor on the replica, sends each
+ * of the other agents the changes on its servers, and finally releases the locks. The
+ * neighbor information used by the solver (the read-only components, the components
+ * obtained from other colonies) is thus derived from state received in messages.
+ */
+public class ColonyAgent {
+	/** The environment of the agent */
+	private IAgentNetwork network;
+	/** The colony orchestrated by the agent */
+	private Colony colony;
+	/** The local state of the agent */
+	private BookKeeper replica;
+	/** Performs the deployments on the local state */
+	private Conductor conductor;
+	/** The incoming messages, in binary form */
+	private BlockingQueue<byte[]> mailbox;
+	/** The thread serving the mailbox */
+	private Thread mailboxThread;
+	/** The thread performing the deployments */
+	private ExecutorService deployer;
+	/** Number of the colony whose agent holds the lock of this agent, or -1 */
+	private int lockHolder;
+	/** The lock requests waiting for the lock to be released */
+	private Queue<AgentMessage> waitingLockRequests;
+	/** The requests sent by this agent that have not been answered yet */
+	private Map<Long,CompletableFuture<AgentMessage>> pendingRequests;
+	/** Source of request identifiers */
+	private AtomicLong nextRequestId;
+
+	/**
+	 * Create the agent of the given colony. Messages delivered to it are only processed
+	 * after start() has been called.
+	 */
+	public ColonyAgent(IAgentNetwork network,Colony colony,Conductor.ModeType mode,ISolver solver,BookKeeper replica) {
+		this.network=network;
+		this.colony=colony;
+		this.replica=replica;
+		conductor=new Conductor(replica,solver,mode);
+		mailbox=new LinkedBlockingQueue<>();
+		lockHolder=-1;
+		waitingLockRequests=new ArrayDeque<>();
+		pendingRequests=new ConcurrentHashMap<>();
+		nextRequestId=new AtomicLong();
+		deployer=Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+	}
+
+	/**
+	 * Start serving the mailbox.
+	 */
+	public void start() {
+		mailboxThread=Thread.ofVirtual().start(this::serveMailbox);
+	}
+
+	/** Returns the number of the colony of the agent */
+	public int getNr() {
+		return colony.getNr();
+	}
+
+	/**
+	 * Set the time limit for deploying an application (in milliseconds). 0 means no time
+	 * limit.
+	 */
+	public void setTimeLimit(long timeLimitMs) {
+		conductor.setTimeLimit(timeLimitMs);
+	}
+
+	/**
+	 * Put a message, in binary form, into the mailbox of the agent.
+	 */
+	public void deliver(byte[] message) {
+		mailbox.add(message);
+	}
+
+	/**
+	 * Send the given message to the agent of the given colony.
+	 */
+	private void send(int receiver,AgentMessage message) {
+		byte[] bytes=message.encode(network.getCatalog());
+		if(receiver!=getNr())
+			network.getStats().recordMessage(bytes.length);
+		network.deliver(receiver,bytes);
+	}
+
+	/**
+	 * Send a request of the given type (with the given placements and routes) to the
+	 * agent of the given colony, and wait for the reply.
+	 */
+	private AgentMessage request(int receiver,AgentMessage.Type type,Map<Component,Server> placements,Map<Connector,Path> routes) {
+		long requestId=nextRequestId.getAndIncrement();
+		CompletableFuture<AgentMessage> reply=new CompletableFuture<>();
+		pendingRequests.put(requestId,reply);
+		long startTime=System.nanoTime();
+		send(receiver,new AgentMessage(type,getNr(),requestId,placements,routes));
+		AgentMessage result=reply.join();
+		if(receiver!=getNr())
+			network.getStats().recordRoundTrip(System.nanoTime()-startTime);
+		return result;
+	}
+
+	/**
+	 * Send a request without placements and routes, and wait for the reply.
+	 */
+	private AgentMessage request(int receiver,AgentMessage.Type type) {
+		return request(receiver,type,new HashMap<>(),new HashMap<>());
+	}
+
+	/**
+	 * The main loop of the mailbox thread.
+	 */
+	private void serveMailbox() {
+		while(true) {
+			byte[] bytes;
+			try {
+				bytes=mailbox.take();
+			} catch(InterruptedException e) {
+				return;
+			}
+			handle(AgentMessage.decode(bytes,network.getCatalog()));
+		}
+	}
+
+	/**
+	 * Process an incoming message.
+	 */
+	private void handle(AgentMessage message) {
+		int sender=message.getSender();
+		long requestId=message.getRequestId();
+		switch(message.getType()) {
+		case lock:
+			if(lockHolder<0) {
+				lockHolder=sender;
+				send(sender,new AgentMessage(AgentMessage.Type.granted,getNr(),requestId));
+			} else
+				waitingLockRequests.add(message);
+			break;
+		case unlock:
+			lockHolder=-1;
+			AgentMessage next=waitingLockRequests.poll();
+			if(next!=null) {
+				lockHolder=next.getSender();
+				send(lockHolder,new AgentMessage(AgentMessage.Type.granted,getNr(),next.getRequestId()));
+			}
+			break;
+		case stateRequest:
+			Map<Component,Server> placements=new HashMap<>();
+			Map<Connector,Path> routes=new HashMap<>();
+			getOwnedState(getNr(),placements,routes);
+			send(sender,new AgentMessage(AgentMessage.Type.state,getNr(),requestId,placements,routes));
+			break;
+		case apply:
+			applyChanges(message.getPlacements(),message.getRoutes());
+			send(sender,new AgentMessage(AgentMessage.Type.applied,getNr(),requestId));
+			break;
+		case granted:
+		case state:
+		case applied:
+			pendingRequests.remove(requestId).complete(message);
+			break;
+		}
+	}
+
+	/**
+	 * Collect from the replica the state of the servers owned by the agent of the given
+	 * colony: the placements on them, and the routes of the connectors whose path
+	 * contains one of them.
+	 */
+	private void getOwnedState(int owner,Map<Component,Server> placements,Map<Connector,Path> routes) {
+		for(Map.Entry<Component,Server> entry : replica.getAlpha().entrySet()) {
+			if(network.getOwner(entry.getValue())==owner)
+				placements.put(entry.getKey(),entry.getValue());
+		}
+		for(Map.Entry<Connector,Path> entry : replica.getBeta().entrySet()) {
+			for(IHwNode n : entry.getValue().getNodes()) {
+				if(n instanceof Server && network.getOwner((Server)n)==owner) {
+					routes.put(entry.getKey(),entry.getValue());
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Apply the given changes to the replica. A null value means that the component is
+	 * removed from its host, or the connector is un-routed.
+	 */
+	private void applyChanges(Map<Component,Server> placements,Map<Connector,Path> routes) {
+		//first release the resources that are not used anymore, then occupy the new ones
+		for(Map.Entry<Connector,Path> entry : routes.entrySet()) {
+			Path p=replica.getPath(entry.getKey());
+			if(p!=null && p!=entry.getValue())
+				replica.unRoute(entry.getKey());
+		}
+		for(Map.Entry<Component,Server> entry : placements.entrySet()) {
+			Server oldServer=replica.getHost(entry.getKey());
+			if(oldServer!=entry.getValue()) {
+				if(oldServer!=null)
+					replica.unPlace(entry.getKey());
+				if(entry.getValue()!=null)
+					replica.place(entry.getKey(),entry.getValue());
+			}
+		}
+		for(Map.Entry<Connector,Path> entry : routes.entrySet()) {
+			if(entry.getValue()!=null && replica.getPath(entry.getKey())!=entry.getValue())
+				replica.route(entry.getKey(),entry.getValue());
+		}
+	}
+
+	/**
+	 * Helper method to compute the changes from the old to the new version of a map, i.e.,
+	 * the new values of the keys whose value has changed (null for the removed keys).
+	 */
+	private static <K,V> Map<K,V> diff(Map<K,V> oldMap,Map<K,V> newMap) {
+		Map<K,V> changes=new HashMap<>();
+		for(Map.Entry<K,V> entry : newMap.entrySet()) {
+			if(oldMap.get(entry.getKey())!=entry.getValue())
+				changes.put(entry.getKey(),entry.getValue());
+		}
+		for(K key : oldMap.keySet()) {
+			if(!newMap.containsKey(key))
+				changes.put(key,null);
+		}
+		return changes;
+	}
+
+	/**
+	 * Submit an application for deployment to the colony of the agent. The returned future
+	 * is completed with the Result of the deployment.
+	 */
+	public CompletableFuture<Result> submit(Application app) {
+		return CompletableFuture.supplyAsync(() -> deploy(app),deployer);
+	}
+
+	/**
+	 * Deploy an application, coordinating with the agents owning the servers in scope.
+	 * The locks obtained are released also if the deployment fails.
+	 */
+	private Result deploy(Application app) {
+		Set<Integer> owners=new TreeSet<>(); //sorted, so that the locks are requested in the order of the colony numbers
+		owners.add(getNr());
+		for(Server s : conductor.getScope(colony))
+			owners.add(network.getOwner(s));
+		List<Integer> locked=new ArrayList<>();
+		try {
+			for(int owner : owners) {
+				request(owner,AgentMessage.Type.lock);
+				locked.add(owner);
+			}
+			Set<Integer> others=new HashSet<>(owners);
+			others.remove(getNr());
+			//synchronize the replica with the state of the other agents
+			Map<Integer,Map<Component,Server>> oldPlacements=new HashMap<>();
+			Map<Integer,Map<Connector,Path>> oldRoutes=new HashMap<>();
+			for(int owner : others) {
+				Map<Component,Server> localPlacements=new HashMap<>();
+				Map<Connector,Path> localRoutes=new HashMap<>();
+				getOwnedState(owner,localPlacements,localRoutes);
+				AgentMessage state=request(owner,AgentMessage.Type.stateRequest);
+				applyChanges(diff(localPlacements,state.getPlacements()),diff(localRoutes,state.getRoutes()));
+				oldPlacements.put(owner,state.getPlacements());
+				oldRoutes.put(owner,state.getRoutes());
+			}
+			Result result=conductor.deployApplication(colony,app);
+			//send the changes to the other agents
+			for(int owner : others) {
+				Map<Component,Server> newPlacements=new HashMap<>();
+				Map<Connector,Path> newRoutes=new HashMap<>();
+				getOwnedState(owner,newPlacements,newRoutes);
+				Map<Component,Server> placementChanges=diff(oldPlacements.get(owner),newPlacements);
+				Map<Connector,Path> routeChanges=diff(oldRoutes.get(owner),newRoutes);
+				if(!placementChanges.isEmpty() || !routeChanges.isEmpty())
+					request(owner,AgentMessage.Type.apply,placementChanges,routeChanges);
+			}
+			return result;
+		} finally {
+			for(int owner : locked)
+				send(owner,new AgentMessage(AgentMessage.Type.unlock,getNr(),-1));
+		}
+	}
+
+	/**
+	 * Stop accepting deployments, and wait until the submitted ones have finished.
+	 */
+	public void finishDeployments() {
+		deployer.close();
+	}
+
+	/**
+	 * Stop serving the mailbox. Must only be called when no agent is deploying anymore.
+	 */
+	public void stop() throws InterruptedException {
+		mailboxThread.interrupt();
+		mailboxThread.join();
+	}
+}
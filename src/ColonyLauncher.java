@@ -0,0 +1,153 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts a ColonyProcess for each colony, i.e., a separate JVM for each colony, with the
+ * agents of the colonies talking over loopback TCP, and deploys the applications of the
+ * colonies with them. In each round, the next application of each colony is submitted
+ * to all processes at the same time, and the round ends when all of them are deployed.
+ * The results of the deployments, the wall-clock time of the rounds and the statistics
+ * of the messages are written to files.
+ */
+public class ColonyLauncher {
+	/** The configuration sent to the processes */
+	private ColonyProcess.Setup setup;
+	/** The port of colony 0; colony i listens on basePort+i */
+	private int basePort;
+
+	/**
+	 * Create a launcher for the given colonies in the given mode. The centralized mode is
+	 * not supported, since it has no colonies to coordinate.
+	 */
+	public ColonyLauncher(Infrastructure infra,Colony[] colonies,Conductor.ModeType mode,int basePort) {
+		if(mode==Conductor.ModeType.centralized)
+			throw new IllegalArgumentException("The centralized mode cannot be run by colony processes");
+		setup=new ColonyProcess.Setup();
+		setup.infra=infra;
+		setup.colonies=new ArrayList<>(Arrays.asList(colonies));
+		setup.catalog=new AgentCatalog(infra);
+		setup.mode=mode;
+		this.basePort=basePort;
+	}
+
+	/**
+	 * Set the time limit for deploying an application (in milliseconds) in each process.
+	 * 0 means no time limit.
+	 */
+	public void setTimeLimit(long timeLimitMs) {
+		setup.timeLimitMs=timeLimitMs;
+	}
+
+	/**
+	 * Parse the fields of a Result from its string representation.
+	 */
+	private static Result parseResult(String s) {
+		String[] fields=s.split(";");
+		Result result=new Result();
+		result.success=Integer.parseInt(fields[0]);
+		result.timeMs=Long.parseLong(fields[1]);
+		result.migrations=Long.parseLong(fields[2]);
+		result.timeouts=Integer.parseInt(fields[3]);
+		return result;
+	}
+
+	/**
+	 * Read the next reply of a process, which must start with the given word, and return
+	 * the rest of the reply.
+	 */
+	private static String readReply(BufferedReader reader,String word,int colonyNr) throws IOException {
+		String line=reader.readLine();
+		if(line==null || !line.startsWith(word))
+			throw new IOException("Unexpected reply from colony process "+colonyNr+": "+line);
+		return line.substring(word.length()).trim();
+	}
+
+	/**
+	 * Start the processes, deploy the first nrApps applications of each colony, and stop
+	 * the processes.
+	 */
+	public void run(int nrApps,String fileNameSuffix) throws IOException, InterruptedException {
+		//all processes get the same numbering of the applications
+		for(int j=0;j<nrApps;j++) {
+			for(Colony colony : setup.colonies)
+				setup.catalog.register(colony.getApplication(j));
+		}
+		File setupFile=File.createTempFile("colonies",".ser");
+		setupFile.deleteOnExit();
+		try(ObjectOutputStream out=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(setupFile)))) {
+			out.writeObject(setup);
+		}
+		String java=System.getProperty("java.home")+File.separator+"bin"+File.separator+"java";
+		List<Process> processes=new ArrayList<>();
+		List<PrintWriter> commands=new ArrayList<>();
+		List<BufferedReader> replies=new ArrayList<>();
+		try {
+			long startTime=System.currentTimeMillis();
+			for(Colony colony : setup.colonies) {
+				ProcessBuilder builder=new ProcessBuilder(java,"-cp",System.getProperty("java.class.path"),"ColonyProcess",
+						setupFile.getPath(),""+colony.getNr(),""+basePort);
+				builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+				Process process=builder.start();
+				processes.add(process);
+				commands.add(new PrintWriter(process.getOutputStream(),true));
+				replies.add(new BufferedReader(new InputStreamReader(process.getInputStream())));
+			}
+			for(int i=0;i<processes.size();i++)
+				readReply(replies.get(i),"ready",setup.colonies.get(i).getNr());
+			long startupMs=System.currentTimeMillis()-startTime;
+			//main experiment cycle
+			FileWriter fileWriter=new FileWriter("results_processes"+fileNameSuffix+".csv");
+			fileWriter.write("App;NrColonies;Success;TimeMs;Migrations;Timeouts;WallMs\n");
+			Result grandTotalResult=new Result();
+			long totalWallMs=0;
+			for(int j=0;j<nrApps;j++) {
+				long roundStart=System.currentTimeMillis();
+				for(PrintWriter command : commands)
+					command.println("deploy "+j);
+				Result totalResult=new Result();
+				for(int i=0;i<processes.size();i++)
+					totalResult.increaseBy(parseResult(readReply(replies.get(i),"result "+j+" ",setup.colonies.get(i).getNr())));
+				long wallMs=System.currentTimeMillis()-roundStart;
+				fileWriter.write(j+";"+processes.size()+";"+totalResult+";"+wallMs+"\n");
+				fileWriter.flush();
+				grandTotalResult.increaseBy(totalResult);
+				totalWallMs+=wallMs;
+			}
+			fileWriter.close();
+			//stop the processes and collect the statistics of the messages
+			long nrMessages=0, nrBytes=0, nrRoundTrips=0;
+			double totalRoundTripMs=0, maxRoundTripMs=0;
+			for(PrintWriter command : commands)
+				command.println("quit");
+			for(int i=0;i<processes.size();i++) {
+				String[] fields=readReply(replies.get(i),"stats",setup.colonies.get(i).getNr()).split(";");
+				nrMessages+=Long.parseLong(fields[0]);
+				nrBytes+=Long.parseLong(fields[1]);
+				long n=Long.parseLong(fields[2]);
+				nrRoundTrips+=n;
+				totalRoundTripMs+=n*Double.parseDouble(fields[3]);
+				maxRoundTripMs=Math.max(maxRoundTripMs,Double.parseDouble(fields[4]));
+				processes.get(i).waitFor();
+			}
+			double avgRoundTripMs=(nrRoundTrips==0)?0:totalRoundTripMs/nrRoundTrips;
+			fileWriter=new FileWriter("results_processes_total"+fileNameSuffix+".csv");
+			fileWriter.write("Model;NrColonies;Success;TimeMs;Migrations;Timeouts;WallMs;StartupMs;Messages;Bytes;RoundTrips;AvgRoundTripMs;MaxRoundTripMs\n");
+			fileWriter.write(setup.mode+";"+processes.size()+";"+grandTotalResult+";"+totalWallMs+";"+startupMs+";"
+					+nrMessages+";"+nrBytes+";"+nrRoundTrips+";"+avgRoundTripMs+";"+maxRoundTripMs+"\n");
+			fileWriter.close();
+		} finally {
+			for(Process process : processes)
+				process.destroy();
+		}
+	}
+}
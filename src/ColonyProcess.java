@@ -0,0 +1,269 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the agent of one colony (see ColonyAgent) with a SolverSB in its own JVM. The
+ * agents of the colonies are connected by TCP over the loopback interface: the agent of
+ * colony i listens on port basePort+i, and each message is sent as a frame consisting of
+ * its length and its binary form (see AgentMessage). The processes are started by the
+ * ColonyLauncher, which sends the commands to a process on its standard input, and gets
+ * the replies on its standard output:
+ * <ul>
+ * <li>ready: reply when the process accepts connections from the other colonies</li>
+ * <li>deploy j: deploy the j-th application of the colony; reply "result j" and the Result</li>
+ * <li>quit: reply "stats" and the statistics of the messages sent by the agent, then stop</li>
+ * </ul>
+ */
+public class ColonyProcess implements IAgentNetwork {
+	/**
+	 * The common configuration of the colony processes, written by the launcher and read
+	 * by each process.
+	 */
+	@SuppressWarnings("serial")
+	static class Setup implements Serializable {
+		/** Version of the serialized form */
+		private static final long serialVersionUID=1L;
+		/** The complete infrastructure */
+		Infrastructure infra;
+		/** All colonies, with their applications */
+		List<Colony> colonies;
+		/** The numbering of the infrastructure and of all applications */
+		AgentCatalog catalog;
+		/** The mode of the Conductors */
+		Conductor.ModeType mode;
+		/** Time limit for deploying an application (in milliseconds), 0 for no limit */
+		long timeLimitMs;
+	}
+
+	/** The colony of this process */
+	private Colony colony;
+	/** The common numbering of infrastructure and application elements */
+	private AgentCatalog catalog;
+	/** Statistics of the messages sent by the agent of this process */
+	private MessageStats stats;
+	/** The number of the colony owning each server */
+	private Map<Server,Integer> owners;
+	/** The agent of the colony */
+	private ColonyAgent agent;
+	/** The port of colony 0; colony i listens on basePort+i */
+	private int basePort;
+	/** Listens for the connections of the other colonies */
+	private ServerSocket serverSocket;
+	/** The thread accepting the connections of the other colonies */
+	private Thread acceptThread;
+	/** Outgoing connections to the other colonies, by colony number */
+	private Map<Integer,DataOutputStream> connections;
+	/** All sockets opened by this process, so that they can be closed */
+	private List<Socket> sockets;
+
+	/**
+	 * Constructor, without agent. Use start(), which also creates and starts the agent.
+	 */
+	private ColonyProcess(Setup setup,int colonyNr,int basePort) {
+		for(Colony c : setup.colonies) {
+			if(c.getNr()==colonyNr)
+				colony=c;
+		}
+		catalog=setup.catalog;
+		stats=new MessageStats();
+		owners=AgentSystem.determineOwners(setup.colonies);
+		this.basePort=basePort;
+		connections=new ConcurrentHashMap<>();
+		sockets=new ArrayList<>();
+	}
+
+	/**
+	 * Create the process of the colony with the given number: create and start its agent,
+	 * and start listening for the connections of the other colonies.
+	 */
+	public static ColonyProcess start(Setup setup,int colonyNr,int basePort) throws IOException {
+		ColonyProcess process=new ColonyProcess(setup,colonyNr,basePort);
+		BookKeeper replica=new BookKeeper(setup.infra);
+		process.agent=new ColonyAgent(process,process.colony,setup.mode,new SolverSB(replica),replica);
+		process.agent.setTimeLimit(setup.timeLimitMs);
+		process.agent.start();
+		process.serverSocket=new ServerSocket(basePort+colonyNr,50,InetAddress.getLoopbackAddress());
+		process.acceptThread=Thread.ofVirtual().start(process::acceptConnections);
+		return process;
+	}
+
+	/** Returns the common numbering of infrastructure and application elements */
+	public AgentCatalog getCatalog() {
+		return catalog;
+	}
+
+	/** Returns the statistics of the messages sent by the agent of this process */
+	public MessageStats getStats() {
+		return stats;
+	}
+
+	/** Returns the number of the colony owning the given server */
+	public int getOwner(Server s) {
+		return owners.get(s);
+	}
+
+	/**
+	 * Send the given message to the agent of the given colony; messages to the agent of
+	 * this process are put directly into its mailbox.
+	 */
+	public void deliver(int receiver,byte[] message) {
+		if(receiver==colony.getNr()) {
+			agent.deliver(message);
+			return;
+		}
+		try {
+			DataOutputStream out=getConnection(receiver);
+			synchronized(out) {
+				out.writeInt(message.length);
+				out.write(message);
+				out.flush();
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException("Cannot send message to colony "+receiver,e);
+		}
+	}
+
+	/**
+	 * Return the connection to the given colony, opening it if it does not exist yet.
+	 */
+	private DataOutputStream getConnection(int receiver) throws IOException {
+		DataOutputStream out=connections.get(receiver);
+		if(out!=null)
+			return out;
+		synchronized(connections) {
+			out=connections.get(receiver);
+			if(out==null) {
+				Socket socket=new Socket(InetAddress.getLoopbackAddress(),basePort+receiver);
+				socket.setTcpNoDelay(true); //the messages are small and mostly wait for a reply
+				sockets.add(socket);
+				out=new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				connections.put(receiver,out);
+			}
+			return out;
+		}
+	}
+
+	/**
+	 * The main loop of the accepting thread: serve each incoming connection on its own
+	 * virtual thread.
+	 */
+	private void acceptConnections() {
+		while(true) {
+			Socket socket;
+			try {
+				socket=serverSocket.accept();
+				socket.setTcpNoDelay(true);
+			} catch(IOException e) {
+				return; //the server socket was closed
+			}
+			synchronized(connections) {
+				sockets.add(socket);
+			}
+			Thread.ofVirtual().start(() -> receive(socket));
+		}
+	}
+
+	/**
+	 * Read the frames from the given connection, and put the messages into the mailbox of
+	 * the agent, until the connection is closed.
+	 */
+	private void receive(Socket socket) {
+		try(DataInputStream in=new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+			while(true) {
+				byte[] message=new byte[in.readInt()];
+				in.readFully(message);
+				agent.deliver(message);
+			}
+		} catch(EOFException e) {
+			//the other colony closed the connection
+		} catch(IOException e) {
+			//the connection was closed by this process
+		}
+	}
+
+	/**
+	 * Submit the j-th application of the colony for deployment, and print the reply when
+	 * the deployment has finished.
+	 */
+	private void deploy(int j,PrintStream protocol) {
+		agent.submit(colony.getApplication(j)).whenComplete((result,e) -> {
+			synchronized(protocol) {
+				if(e!=null) {
+					e.printStackTrace();
+					protocol.println("error "+j);
+				} else
+					protocol.println("result "+j+" "+result);
+				protocol.flush();
+			}
+		});
+	}
+
+	/**
+	 * Wait until the submitted deployments have finished, stop the agent and close the
+	 * connections. Must only be called when no other colony is deploying anymore.
+	 */
+	public void close() throws IOException, InterruptedException {
+		agent.finishDeployments();
+		agent.stop();
+		serverSocket.close();
+		acceptThread.join();
+		synchronized(connections) {
+			for(Socket socket : sockets)
+				socket.close();
+		}
+	}
+
+	/**
+	 * Main method of a colony process. Arguments: the file containing the Setup, the
+	 * number of the colony, and the base port.
+	 */
+	public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+		//the solvers print progress information, which must not mix with the replies
+		PrintStream protocol=System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		Setup setup;
+		try(ObjectInputStream in=new ObjectInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+			setup=(Setup)in.readObject();
+		}
+		ColonyProcess process=ColonyProcess.start(setup,Integer.parseInt(args[1]),Integer.parseInt(args[2]));
+		synchronized(protocol) {
+			protocol.println("ready");
+			protocol.flush();
+		}
+		BufferedReader commands=new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while((line=commands.readLine())!=null) {
+			String[] words=line.trim().split(" ");
+			if(words[0].equals("deploy"))
+				process.deploy(Integer.parseInt(words[1]),protocol);
+			else if(words[0].equals("quit"))
+				break;
+			else
+				System.err.println("Unknown command: "+Arrays.toString(words));
+		}
+		process.close();
+		synchronized(protocol) {
+			protocol.println("stats "+process.getStats());
+			protocol.flush();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Adapts the colonies to the load: fog nodes of lightly loaded colonies are lent to
+ * adjacent colonies that are heavily loaded, and returned when the load of the borrower
+ * has dropped. The utilization of a colony is the higher one of the CPU and RAM
+ * utilization of its fog nodes, taken from the BookKeeper. A lent fog node is shared:
+ * it stays in the lending colony (so its components remain under the control of that
+ * colony), and is added to the borrowing colony as a shared node. Among the unshared fog
+ * nodes of the lender, the ones linked to a node of the borrower are preferred, and among
+ * them the one with the most free capacity. A fog node is only returned when it hosts no
+ * component under the control of the borrower anymore, i.e., none of the components
+ * placed in the borrower, whether targeted to the borrower or obtained from another
+ * colony; these are taken from a ScopeCache of the rebalancer.
+ * <p>
+ * The colonies must not be changed while a deployment is running. The rebalancer can be
+ * called between deployments with rebalance(), or run in the background with start(),
+ * e.g. with ParallelConductor.runExclusively() as the runner; each change is reported to
+ * the given listener, e.g. ParallelConductor.colonyChanged(), so that cached views of the
+ * colonies are updated.
+ */
+public class ColonyRebalancer {
+	/** A fog node lent by a colony to an adjacent colony */
+	class Loan {
+		/** The lent fog node */
+		private Server server;
+		/** The colony owning the fog node */
+		private Colony lender;
+		/** The colony using the fog node */
+		private Colony borrower;
+
+		/** Constructor */
+		public Loan(Server server,Colony lender,Colony borrower) {
+			this.server=server;
+			this.lender=lender;
+			this.borrower=borrower;
+		}
+	}
+
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** The components placed in the colonies, kept up to date by the bookKeeper */
+	private ScopeCache scopeCache;
+	/** The colonies to rebalance */
+	private List<Colony> colonies;
+	/** Notified about each colony whose servers have changed */
+	private Consumer<Colony> changeListener;
+	/** A colony with at least this utilization borrows a fog node */
+	private double hotUtilization;
+	/** A colony lends fog nodes only if its utilization is below this value, and returns borrowed ones if its utilization falls below it */
+	private double coldUtilization;
+	/** Maximum number of fog nodes that a colony may borrow at the same time */
+	private int maxLoansPerColony;
+	/** The current loans */
+	private List<Loan> loans;
+	/** Runs the rebalancing in the background, or null */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Construct a rebalancer for the given colonies, with default thresholds.
+	 */
+	public ColonyRebalancer(BookKeeper bookKeeper,List<Colony> colonies,Consumer<Colony> changeListener) {
+		this.bookKeeper=bookKeeper;
+		scopeCache=ScopeCache.create(bookKeeper);
+		this.colonies=colonies;
+		this.changeListener=changeListener;
+		hotUtilization=0.8;
+		coldUtilization=0.5;
+		maxLoansPerColony=2;
+		loans=new ArrayList<>();
+	}
+
+	/**
+	 * Set the utilization thresholds: a colony at or above hot borrows, a colony below
+	 * cold lends or returns its borrowed fog nodes.
+	 */
+	public void setThresholds(double hot,double cold) {
+		hotUtilization=hot;
+		coldUtilization=cold;
+	}
+
+	/**
+	 * Set the maximum number of fog nodes that a colony may borrow at the same time.
+	 */
+	public void setMaxLoansPerColony(int maxLoansPerColony) {
+		this.maxLoansPerColony=maxLoansPerColony;
+	}
+
+	/**
+	 * Returns the utilization of the fog nodes of the given colony: the higher one of the
+	 * CPU and RAM utilization.
+	 */
+	public double getUtilization(Colony colony) {
+		double cpuCap=0, cpuUsed=0, ramCap=0, ramUsed=0;
+		for(Server s : colony.getServers()) {
+			if(s.isCloud())
+				continue;
+			cpuCap+=s.getCpuCap();
+			cpuUsed+=s.getCpuCap()-bookKeeper.getFreeCpuCap(s);
+			ramCap+=s.getRamCap();
+			ramUsed+=s.getRamCap()-bookKeeper.getFreeRamCap(s);
+		}
+		if(cpuCap==0 || ramCap==0)
+			return 0;
+		return Math.max(cpuUsed/cpuCap,ramUsed/ramCap);
+	}
+
+	/**
+	 * Returns the number of fog nodes currently borrowed by the given colony.
+	 */
+	private int getNrLoans(Colony borrower) {
+		int n=0;
+		for(Loan loan : loans) {
+			if(loan.borrower==borrower)
+				n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns true iff a component under the control of the given colony, i.e., a
+	 * component placed in the colony, is placed on the given server.
+	 */
+	private boolean hostsComponentOf(Server s,Colony colony) {
+		for(Component c : scopeCache.getOwnComponents(colony)) {
+			if(bookKeeper.getHost(c)==s)
+				return true;
+		}
+		for(Component c : scopeCache.getForeignComponents(colony)) {
+			if(bookKeeper.getHost(c)==s)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Forget the cached sets of the given colony, whose servers have changed, and report
+	 * the change to the listener.
+	 */
+	private void colonyChanged(Colony colony) {
+		scopeCache.invalidate(colony);
+		changeListener.accept(colony);
+	}
+
+	/**
+	 * Choose the fog node that the lender lends to the borrower, or null if it has none to
+	 * lend. The lender keeps at least one unshared fog node.
+	 */
+	private Server chooseServerToLend(Colony lender,Colony borrower) {
+		List<Server> candidates=new ArrayList<>();
+		for(Server s : lender.getServers()) {
+			if(!s.isCloud() && !lender.isShared(s) && !borrower.getServers().contains(s))
+				candidates.add(s);
+		}
+		if(candidates.size()<2)
+			return null;
+		Set<IHwNode> borrowerNodes=new HashSet<>(borrower.getServers());
+		borrowerNodes.addAll(borrower.getEndDevices());
+		Server best=null;
+		boolean bestAdjacent=false;
+		for(Server s : candidates) {
+			boolean adjacent=false;
+			for(Link l : s.getLinks()) {
+				if(borrowerNodes.contains(l.getOtherNode(s)))
+					adjacent=true;
+			}
+			if(best==null || (adjacent && !bestAdjacent)
+					|| (adjacent==bestAdjacent && bookKeeper.getFreeCpuCap(s)>bookKeeper.getFreeCpuCap(best))) {
+				best=s;
+				bestAdjacent=adjacent;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Perform one rebalancing step: each colony whose load has dropped returns the
+	 * borrowed fog nodes that it does not use anymore, and each hot colony borrows one
+	 * fog node from its least loaded adjacent cold colony. Must only be called while no
+	 * deployment is running. Returns the number of fog nodes lent or returned.
+	 */
+	public synchronized int rebalance() {
+		int nrChanges=0;
+		//return the fog nodes that are not needed anymore
+		for(Loan loan : new ArrayList<>(loans)) {
+			if(getUtilization(loan.borrower)<coldUtilization && !hostsComponentOf(loan.server,loan.borrower)) {
+				loan.borrower.removeServer(loan.server);
+				loan.server.removeFromColony(loan.borrower.getNr());
+				loans.remove(loan);
+				boolean stillLent=false;
+				for(Loan other : loans) {
+					if(other.server==loan.server)
+						stillLent=true;
+				}
+				if(!stillLent)
+					loan.lender.unmarkShared(loan.server);
+				colonyChanged(loan.borrower);
+				colonyChanged(loan.lender);
+				nrChanges++;
+			}
+		}
+		//lend fog nodes to the hot colonies
+		for(Colony borrower : colonies) {
+			if(getUtilization(borrower)<hotUtilization || getNrLoans(borrower)>=maxLoansPerColony)
+				continue;
+			Colony lender=null;
+			double lenderUtilization=coldUtilization;
+			for(Colony neighbor : borrower.getNeighbors()) {
+				double utilization=getUtilization(neighbor);
+				if(utilization<lenderUtilization) {
+					lender=neighbor;
+					lenderUtilization=utilization;
+				}
+			}
+			if(lender==null)
+				continue;
+			Server s=chooseServerToLend(lender,borrower);
+			if(s==null)
+				continue;
+			lender.markShared(s);
+			borrower.addServer(s);
+			borrower.markShared(s);
+			s.addToColony(borrower.getNr());
+			loans.add(new Loan(s,lender,borrower));
+			colonyChanged(borrower);
+			colonyChanged(lender);
+			nrChanges++;
+		}
+		return nrChanges;
+	}
+
+	/**
+	 * Start rebalancing in the background with the given period. Each step is executed by
+	 * the given runner, which must ensure that no deployment runs at the same time.
+	 */
+	public void start(long periodMs,Consumer<Runnable> runner) {
+		scheduler=Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+		scheduler.scheduleAtFixedRate(() -> runner.accept(this::rebalance),periodMs,periodMs,TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop rebalancing in the background.
+	 */
+	public void stop() {
+		if(scheduler!=null) {
+			scheduler.close();
+			scheduler=null;
+		}
+	}
+
+	/**
+	 * Stop rebalancing and unregister the cache of the rebalancer from the bookKeeper.
+	 * The rebalancer must not be used afterwards.
+	 */
+	public void dispose() {
+		stop();
+		bookKeeper.removeListener(scopeCache);
+	}
+}
@@ -1,18 +1,23 @@
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Represents a component of an application.
  */
-public class Component implements ISwNode {
+public class Component implements ISwNode, Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** ID of the component */
 	private String id;
+	/** Hash code of the component, derived from its ID */
+	private int hash;
 	/** CPU requirement of the component */
 	private double cpuReq;
 	/** RAM requirement of the component */
 	private double ramReq;
 	/** Set of connectors incident to the component */
-	private Set<Connector> connectors;
+	private HashSet<Connector> connectors;
 	/** The identifier of the fog colony that this component (actually, the whole application) is designated for */
 	private int targetColony;
 
@@ -22,6 +27,7 @@ public class Component implements ISwNode {
 	 */
 	public Component(String id, double cpuReq, double ramReq, int targetColony) {
 		this.id=id;
+		hash=id.hashCode();
 		this.cpuReq = cpuReq;
 		this.ramReq = ramReq;
 		connectors=new HashSet<>();
@@ -49,6 +55,15 @@ public class Component implements ISwNode {
 		return id;
 	}
 
+	/**
+	 * Returns the hash code of the component. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/** 
 	 * Return the identifier number of the colony that the component (actually, the 
 	 * application that the component belongs to) is designated for.
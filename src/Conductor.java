@@ -1,4 +1,6 @@
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -6,13 +8,23 @@ import java.util.Set;
  */
 public class Conductor {
 	/** Supported approaches for decentralization and coordination */
-	enum ModeType {centralized,independent,communicating,overlapping}
+	enum ModeType {centralized,independent,communicating,overlapping,hierarchical}
 	/** 1:1 relation to a BookKeeper */
 	private BookKeeper bookKeeper;
 	/** The decentralization and coordination model used in the experiments */
 	private ModeType mode;
 	/** 1:1 relation to a Solver */
 	private ISolver solver;
+	/** Time limit for deploying an application (in milliseconds); 0 means no time limit */
+	private long timeLimitMs;
+	/** The sets of servers and components making up the scope of the colonies, kept up to date as the placement changes */
+	private ScopeCache scopeCache;
+	/** Cheap pre-check rejecting clearly infeasible deployments before the solver is invoked */
+	private FeasibilityOracle feasibilityOracle;
+	/** True iff the deployments are checked by the feasibility oracle */
+	private boolean admissionControl;
+	/** Selects the colonies taking part in a deployment in the hierarchical mode */
+	private Coordinator coordinator;
 
 	/**
 	 * Construct the Conductor.
@@ -21,15 +33,132 @@ public class Conductor {
 		this.bookKeeper=bookKeeper;
 		this.mode=mode;
 		this.solver=solver;
+		timeLimitMs=0;
+		scopeCache=ScopeCache.create(bookKeeper);
+		feasibilityOracle=new FeasibilityOracle(bookKeeper);
+		admissionControl=true;
+		if(mode==ModeType.hierarchical)
+			coordinator=Coordinator.create(bookKeeper);
 	}
 
 	/**
-	 * Deploy an application to the given colony.
+	 * Set the time limit for deploying an application (in milliseconds). If the time
+	 * limit is exceeded, the deployment fails. 0 means no time limit.
+	 */
+	public void setTimeLimit(long timeLimitMs) {
+		this.timeLimitMs=timeLimitMs;
+	}
+
+	/**
+	 * Switch the admission control (see FeasibilityOracle) on or off. It is on by default.
+	 */
+	public void setAdmissionControl(boolean admissionControl) {
+		this.admissionControl=admissionControl;
+	}
+
+	/**
+	 * Notify the Conductor that the servers of the given colony have changed (see
+	 * ColonyRebalancer), so that the cached views of the colony and its neighbors are
+	 * recomputed.
+	 */
+	public void colonyChanged(Colony colony) {
+		scopeCache.invalidate(colony);
+		for(Colony colony2 : colony.getNeighbors())
+			scopeCache.invalidate(colony2);
+		if(coordinator!=null)
+			coordinator.invalidate(colony);
+	}
+
+	/**
+	 * Return the servers that a deployment to the given colony may use, i.e., the servers
+	 * whose state the deployment reads or changes in the BookKeeper.
+	 */
+	public Set<Server> getScope(Colony colony) {
+		Set<Server> scope=null;
+		switch(mode) {
+		case centralized:
+			scope=new HashSet<>(bookKeeper.getInfra().getServers());
+			break;
+		case independent:
+		case overlapping:
+			scope=new HashSet<>(colony.getServers());
+			break;
+		case communicating:
+		case hierarchical:
+			scope=new HashSet<>(colony.getServers());
+			for(Colony colony2 : colony.getNeighbors())
+				scope.addAll(colony2.getServers());
+			break;
+		}
+		return scope;
+	}
+
+	/**
+	 * Deploy an application to the given colony, using the time limit of the Conductor.
 	 */
 	public Result deployApplication(Colony colony,Application app) {
+		return deployApplication(colony,app,new Deadline(timeLimitMs));
+	}
+
+	/**
+	 * Deploy an application to the given colony. The deployment is stopped when the
+	 * given deadline expires.
+	 */
+	public Result deployApplication(Colony colony,Application app,Deadline deadline) {
+		return deployComponents(colony,new HashSet<>(app.getComponents()),deadline);
+	}
+
+	/**
+	 * Deploy several applications to the given colony, using the time limit of the
+	 * Conductor, and return one Result for each application. First, all applications are
+	 * placed together in one optimization run; if that fails, they are deployed one by
+	 * one. The time of each Result is the completion time of its application, i.e., the
+	 * time from the start of the batch until the application was deployed (for a
+	 * successful joint run, the time of the whole run), so the time of the batch is the
+	 * largest of them. The migrations of the joint run (also if it failed) are counted in
+	 * the Result of the first application, so that the migrations can be aggregated.
+	 */
+	public List<Result> deployApplications(Colony colony,List<Application> apps) {
+		List<Result> results=new ArrayList<>();
+		if(apps.size()==1) {
+			results.add(deployApplication(colony,apps.get(0)));
+			return results;
+		}
+		Set<Component> newComponents=new HashSet<>();
+		for(Application app : apps)
+			newComponents.addAll(app.getComponents());
+		Result jointResult=deployComponents(colony,newComponents,new Deadline(timeLimitMs));
+		if(jointResult.success>0) {
+			results.add(jointResult);
+			for(int i=1;i<apps.size();i++) {
+				Result result=new Result();
+				result.success=1;
+				result.timeMs=jointResult.timeMs;
+				results.add(result);
+			}
+			return results;
+		}
+		long completionTimeMs=jointResult.timeMs;
+		for(Application app : apps) {
+			Result result=deployApplication(colony,app);
+			completionTimeMs+=result.timeMs;
+			result.timeMs=completionTimeMs;
+			results.add(result);
+		}
+		results.get(0).migrations+=jointResult.migrations;
+		return results;
+	}
+
+	/**
+	 * Place the given new components in the given colony. The deployment is stopped when
+	 * the given deadline expires.
+	 */
+	private Result deployComponents(Colony colony,Set<Component> newComponents,Deadline deadline) {
+		if(mode==ModeType.hierarchical)
+			return deployHierarchically(colony,newComponents,deadline);
 		Set<Server> freelyUsableServers=null; //servers that should be preferred for placement
 		Set<Server> unpreferredServers=null; //additional servers that can be used for placement if necessary
-		Set<Component> newComponents=new HashSet<>(app.getComponents()); //newly submitted components that are not placed yet
+		//newComponents: newly submitted components that are not placed yet
 		Set<Component> fullyControlledComponents=null; //already placed components whose placement is in our control
 		Set<Component> obtainedComponents=null; //already placed components that we got from another colony and hence must not forward it to a third colony
 		Set<Component> readOnlyComponents=null; //already placed components in a neighboring colony that have a connector to a component in our colony
@@ -42,62 +171,23 @@ public class Conductor {
 			readOnlyComponents=new HashSet<>();
 			break;
 		case independent:
-			freelyUsableServers=new HashSet<>(colony.getServers());
+			freelyUsableServers=scopeCache.getServers(colony);
 			unpreferredServers=new HashSet<>();
-			fullyControlledComponents=new HashSet<>();
-			for(Component c : bookKeeper.getComponents(colony)) {
-				if(c.getTargetColony()==colony.getNr()) //need this to ensure we do not take components targeted to other colonies that reside in the shared cloud
-					fullyControlledComponents.add(c);
-			}
+			fullyControlledComponents=scopeCache.getOwnComponents(colony); //only the components targeted to this colony, since components targeted to other colonies may reside in the shared cloud
 			obtainedComponents=new HashSet<>();
 			readOnlyComponents=new HashSet<>();
 			break;
 		case communicating:
-			freelyUsableServers=new HashSet<>(colony.getServers());
-			unpreferredServers=new HashSet<>();
-			for(Colony colony2 : colony.getNeighbors()) {
-				for(Server s : colony2.getServers()) {
-					if(!freelyUsableServers.contains(s)) //important so that the cloud is not added as an unpreferred server
-						unpreferredServers.add(s);
-				}
-			}
-			fullyControlledComponents=new HashSet<>();
-			obtainedComponents=new HashSet<>();
-			readOnlyComponents=new HashSet<>();
-			for(Component c : bookKeeper.getComponents(colony)) {
-				if(c.getTargetColony()==colony.getNr())
-					fullyControlledComponents.add(c);
-				//else if(colony.getNeighbors().contains(c.getTargetColony()))
-				else
-					obtainedComponents.add(c);
-			}
-			for(Colony neiCol : colony.getNeighbors()) {
-				for(Component c : bookKeeper.getComponents(neiCol)) {
-					boolean relevant=false;
-					for(Connector conn : c.getConnectors()) {
-						ISwNode otherVertex=conn.getOtherVertex(c);
-						if(otherVertex instanceof Component) {
-							Component c2=(Component)otherVertex;
-							if(fullyControlledComponents.contains(c2) || obtainedComponents.contains(c2)) {
-								relevant=true;
-								break;
-							}
-						}
-					}
-					if(relevant)
-						readOnlyComponents.add(c);
-				}
-			}
+			freelyUsableServers=scopeCache.getServers(colony);
+			unpreferredServers=scopeCache.getUnpreferredServers(colony);
+			fullyControlledComponents=scopeCache.getOwnComponents(colony);
+			obtainedComponents=scopeCache.getForeignComponents(colony);
+			readOnlyComponents=scopeCache.getConnectedNeighborComponents(colony); //components in neighboring colonies with a connector to one of our components
 			break;
 		case overlapping:
-			freelyUsableServers=new HashSet<>(colony.getServers());
-			freelyUsableServers.removeAll(colony.getSharedNodes());
+			freelyUsableServers=scopeCache.getUnsharedServers(colony);
 			unpreferredServers=colony.getSharedNodes();
-			fullyControlledComponents=new HashSet<>();
-			for(Component c : bookKeeper.getComponents(colony)) {
-				if(c.getTargetColony()==colony.getNr())
-					fullyControlledComponents.add(c);
-			}
+			fullyControlledComponents=scopeCache.getOwnComponents(colony);
 			obtainedComponents=new HashSet<>();
 			readOnlyComponents=new HashSet<>();
 			break;
@@ -110,6 +200,91 @@ public class Conductor {
 		System.out.println("obtainedComponents: "+obtainedComponents);
 		System.out.println("readOnlyComponents: "+readOnlyComponents);
 		*/
-		return solver.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,colony,mode);
+		return solve(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,colony,deadline);
+	}
+
+	/**
+	 * Deploy the given new components in the hierarchical mode. The coordinator selects
+	 * the colonies taking part in the deployment, based on their free capacity; the
+	 * components are then placed on the servers of the selected colonies, preferring the
+	 * given colony. If this fails (but not because of the deadline), the deployment is
+	 * retried once with all neighbors that have free capacity. The components of the
+	 * given colony placed on the servers of the selected colonies may be migrated; all
+	 * other components are fixed.
+	 */
+	private Result deployHierarchically(Colony colony,Set<Component> newComponents,Deadline deadline) {
+		List<Colony> selected=coordinator.selectColonies(colony,newComponents,false);
+		Result result=deployToColonies(colony,selected,newComponents,deadline);
+		if(result.success>0 || result.timeouts>0 || deadline.isExpired())
+			return result;
+		List<Colony> extended=coordinator.selectColonies(colony,newComponents,true);
+		if(extended.size()==selected.size())
+			return result;
+		Result retryResult=deployToColonies(colony,extended,newComponents,deadline);
+		retryResult.timeMs+=result.timeMs;
+		retryResult.migrations+=result.migrations;
+		return retryResult;
+	}
+
+	/**
+	 * Place the given new components on the servers of the selected colonies, the first
+	 * of which is the given colony.
+	 */
+	private Result deployToColonies(Colony colony,List<Colony> selected,Set<Component> newComponents,Deadline deadline) {
+		Set<Server> freelyUsableServers=scopeCache.getServers(colony);
+		Set<Server> unpreferredServers=new HashSet<>();
+		Set<Component> fullyControlledComponents=new HashSet<>(scopeCache.getOwnComponents(colony)); //copied, since the components of the other colonies are added
+		for(Colony colony2 : selected) {
+			if(colony2==colony)
+				continue;
+			unpreferredServers.addAll(scopeCache.getServers(colony2));
+			for(Component c : scopeCache.getForeignComponents(colony2)) {
+				if(c.getTargetColony()==colony.getNr())
+					fullyControlledComponents.add(c);
+			}
+		}
+		unpreferredServers.removeAll(freelyUsableServers);
+		//the placed components connected to the movable ones are fixed
+		Set<Component> readOnlyComponents=new HashSet<>();
+		for(Component c : fullyControlledComponents) {
+			for(Connector conn : c.getConnectors()) {
+				ISwNode other=conn.getOtherVertex(c);
+				if(!other.isEndDevice() && !fullyControlledComponents.contains(other) && bookKeeper.getHost((Component)other)!=null)
+					readOnlyComponents.add((Component)other);
+			}
+		}
+		return solve(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,new HashSet<>(),readOnlyComponents,colony,deadline);
+	}
+
+	/**
+	 * Invoke the solver on the given sets, after checking them with the feasibility oracle
+	 * if admission control is on.
+	 */
+	private Result solve(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents,
+			Set<Component> readOnlyComponents,
+			Colony colony,
+			Deadline deadline) {
+		if(admissionControl) {
+			long startTime=System.currentTimeMillis();
+			if(!feasibilityOracle.isFeasible(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents)) {
+				Result result=new Result();
+				result.timeMs=System.currentTimeMillis()-startTime;
+				return result;
+			}
+		}
+		return solver.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,colony,mode,deadline);
+	}
+
+	/**
+	 * Remove a previously deployed application, releasing the resources occupied by its
+	 * components and connectors. Returns the capacity that became free.
+	 */
+	public ReleasedCapacity undeployApplication(Application app) {
+		return bookKeeper.removeApplication(app);
 	}
 }
@@ -1,11 +1,17 @@
+import java.io.Serializable;
+
 /**
  * Represents a connector either between two components or between a component and
  * an end device. The connector is undirected. There can be multiple connectors
  * between the same two vertices.
  */
-public class Connector {
+public class Connector implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** ID of the connector */
 	private String id;
+	/** Hash code of the connector, derived from its ID */
+	private int hash;
 	/** Bandwidth requirement of the connector */
 	private double bwReq;
 	/** Maximum allowed latency for the connector */
@@ -19,6 +25,7 @@ public class Connector {
 	 * its uniqueness. The connector is automatically added to v1's and v2's set of 
 	 * incident connectors.
 	 */
+	@SuppressWarnings("this-escape")
 	public Connector(double bwReq, double maxLatency, ISwNode v1, ISwNode v2) {
 		id=v1.getId()+"-"+v2.getId();
 		//If there are already connectors between v1 and v2, then this ID needs to be changed to make it unique
@@ -34,6 +41,7 @@ public class Connector {
 			if(idAlreadyExists)
 				id=id+"'";
 		} while(idAlreadyExists);
+		hash=id.hashCode();
 		this.bwReq = bwReq;
 		this.maxLatency = maxLatency;
 		this.v1=v1;
@@ -89,6 +97,15 @@ public class Connector {
 		return id;
 	}
 
+	/**
+	 * Returns the hash code of the connector. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/**
 	 * Return string representation.
 	 */
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * The coordinator of the hierarchical mode. It keeps a compact capacity summary of each
+ * colony (the free CPU and RAM capacity of its fog nodes; the cloud is not budgeted,
+ * since it is not the scarce resource), and decides which colonies take part in the
+ * deployment of an application: the colony of the application, and if the free capacity
+ * there does not cover the demand of the application, the neighbors with the most free
+ * capacity, until the demand is covered. The colony solvers then place the application
+ * (possibly partitioned among the selected colonies) locally. Decisions only look at the
+ * summaries, so they cost O(colonies), independently of the number of servers.
+ * <p>
+ * The summaries are kept up to date as the placement changes, at constant cost per
+ * placement change. A colony is tracked from the first query about it; the summaries
+ * of a colony and its neighbors must only be queried while no other thread changes the
+ * placement on their servers (as ensured by ParallelConductor).
+ */
+public class Coordinator implements BookKeeper.IPlacementListener {
+	/** The capacity summary of one colony */
+	class ColonySummary {
+		/** The colony */
+		private Colony colony;
+		/** Free CPU capacity of the fog nodes of the colony */
+		private DoubleAdder freeCpu;
+		/** Free RAM capacity of the fog nodes of the colony */
+		private DoubleAdder freeRam;
+
+		/** Construct the summary of the given colony, from the current state of the BookKeeper */
+		public ColonySummary(Colony colony) {
+			this.colony=colony;
+			freeCpu=new DoubleAdder();
+			freeRam=new DoubleAdder();
+			for(Server s : colony.getServers()) {
+				if(s.isCloud())
+					continue;
+				freeCpu.add(bookKeeper.getFreeCpuCap(s));
+				freeRam.add(bookKeeper.getFreeRamCap(s));
+			}
+		}
+
+		/**
+		 * Returns how much of the given demand the free capacity of the colony covers: the
+		 * smaller one of the CPU and RAM ratios.
+		 */
+		private double getCoverage(double cpuDemand,double ramDemand) {
+			double cpuCoverage=(cpuDemand>0)?freeCpu.sum()/cpuDemand:Double.POSITIVE_INFINITY;
+			double ramCoverage=(ramDemand>0)?freeRam.sum()/ramDemand:Double.POSITIVE_INFINITY;
+			return Math.min(cpuCoverage,ramCoverage);
+		}
+	}
+
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** The summaries of the tracked colonies */
+	private Map<Colony,ColonySummary> summaries;
+	/** For each fog node of a tracked colony: the summaries of the tracked colonies containing it */
+	private Map<Server,List<ColonySummary>> summariesOfServer;
+
+	/**
+	 * Constructor. Use create(), which also registers the coordinator as a listener.
+	 */
+	private Coordinator(BookKeeper bookKeeper) {
+		this.bookKeeper=bookKeeper;
+		summaries=new ConcurrentHashMap<>();
+		summariesOfServer=new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Create a coordinator for the given BookKeeper, registered as a listener of it.
+	 */
+	public static Coordinator create(BookKeeper bookKeeper) {
+		Coordinator coordinator=new Coordinator(bookKeeper);
+		bookKeeper.addListener(coordinator);
+		return coordinator;
+	}
+
+	/**
+	 * Returns the summary of the given colony, computing it if the colony is not tracked
+	 * yet.
+	 */
+	private ColonySummary getSummary(Colony colony) {
+		return summaries.computeIfAbsent(colony,k -> {
+			ColonySummary summary=new ColonySummary(colony);
+			for(Server s : colony.getServers()) {
+				if(!s.isCloud())
+					summariesOfServer.computeIfAbsent(s,k2 -> new CopyOnWriteArrayList<>()).add(summary);
+			}
+			return summary;
+		});
+	}
+
+	/**
+	 * Forget the summary of the given colony, e.g. because its servers have changed. It
+	 * is recomputed on the next query about the colony.
+	 */
+	public void invalidate(Colony colony) {
+		ColonySummary summary=summaries.remove(colony);
+		if(summary==null)
+			return;
+		for(List<ColonySummary> list : summariesOfServer.values())
+			list.remove(summary);
+	}
+
+	/**
+	 * Update the summaries after component c has been placed on server s.
+	 */
+	@Override
+	public void placed(Component c,Server s) {
+		List<ColonySummary> list=summariesOfServer.get(s);
+		if(list!=null) {
+			for(ColonySummary summary : list) {
+				summary.freeCpu.add(-c.getCpuReq());
+				summary.freeRam.add(-c.getRamReq());
+			}
+		}
+	}
+
+	/**
+	 * Update the summaries after component c has been removed from server s.
+	 */
+	@Override
+	public void unPlaced(Component c,Server s) {
+		List<ColonySummary> list=summariesOfServer.get(s);
+		if(list!=null) {
+			for(ColonySummary summary : list) {
+				summary.freeCpu.add(c.getCpuReq());
+				summary.freeRam.add(c.getRamReq());
+			}
+		}
+	}
+
+	/**
+	 * Returns the neighbors of the given colony that have free capacity, in decreasing
+	 * order of the part of the given demand that their free capacity covers.
+	 */
+	private List<ColonySummary> rankNeighbors(Colony colony,double cpuDemand,double ramDemand) {
+		List<ColonySummary> ranking=new ArrayList<>();
+		for(Colony neighbor : colony.getNeighbors()) {
+			ColonySummary summary=getSummary(neighbor);
+			if(summary.freeCpu.sum()>0 && summary.freeRam.sum()>0)
+				ranking.add(summary);
+		}
+		ranking.sort(Comparator.comparingDouble((ColonySummary summary) -> summary.getCoverage(cpuDemand,ramDemand)).reversed());
+		return ranking;
+	}
+
+	/**
+	 * Select the colonies taking part in the deployment of the given components to the
+	 * given colony. The first element of the returned list is the given colony. If
+	 * allNeighbors is false, neighbors are only added as long as the free capacity of the
+	 * selected colonies does not cover the demand of the components; otherwise each
+	 * neighbor with free capacity is added.
+	 */
+	public List<Colony> selectColonies(Colony colony,Set<Component> newComponents,boolean allNeighbors) {
+		double cpuDemand=0, ramDemand=0;
+		for(Component c : newComponents) {
+			cpuDemand+=c.getCpuReq();
+			ramDemand+=c.getRamReq();
+		}
+		List<Colony> selected=new ArrayList<>();
+		selected.add(colony);
+		ColonySummary home=getSummary(colony);
+		double cpuCovered=home.freeCpu.sum();
+		double ramCovered=home.freeRam.sum();
+		for(ColonySummary summary : rankNeighbors(colony,cpuDemand,ramDemand)) {
+			if(!allNeighbors && cpuCovered>=cpuDemand && ramCovered>=ramDemand)
+				break;
+			selected.add(summary.colony);
+			cpuCovered+=summary.freeCpu.sum();
+			ramCovered+=summary.freeRam.sum();
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Deadline and cancellation token for an optimization run. Solvers check the token
+ * cooperatively at safe points of their search and stop when it has expired, i.e.,
+ * when its time limit has passed or when it has been cancelled (possibly from another
+ * thread). A token may be derived from a parent token, in which case it also expires
+ * when the parent expires.
+ */
+public class Deadline {
+	/** Whether the token has a time limit at all */
+	private boolean bTimeLimit;
+	/** Point in time (in terms of System.nanoTime()) when the time limit is reached */
+	private long expiresAtNs;
+	/** Whether the token has been cancelled explicitly */
+	private volatile boolean cancelled;
+	/** The token that this one has been derived from, or null */
+	private Deadline parent;
+
+	/**
+	 * Construct a token without time limit. It expires only if it is cancelled.
+	 */
+	public Deadline() {
+		bTimeLimit=false;
+		cancelled=false;
+		parent=null;
+	}
+
+	/**
+	 * Construct a token that expires after the given number of milliseconds. A
+	 * non-positive value means that there is no time limit.
+	 */
+	public Deadline(long timeLimitMs) {
+		this();
+		if(timeLimitMs>0) {
+			bTimeLimit=true;
+			expiresAtNs=System.nanoTime()+timeLimitMs*1000000L;
+		}
+	}
+
+	/**
+	 * Derive a new token from this one, which expires after the given number of
+	 * milliseconds (non-positive value: no own time limit), or when this token
+	 * expires, whichever happens first. Cancelling the new token does not affect
+	 * this one.
+	 */
+	public Deadline child(long timeLimitMs) {
+		Deadline other=new Deadline(timeLimitMs);
+		other.parent=this;
+		return other;
+	}
+
+	/**
+	 * Cancel the token, so that the solvers checking it stop as soon as possible.
+	 */
+	public void cancel() {
+		cancelled=true;
+	}
+
+	/**
+	 * Returns true iff the token has been cancelled, either directly or through its parent.
+	 */
+	public boolean isCancelled() {
+		return cancelled || (parent!=null && parent.isCancelled());
+	}
+
+	/**
+	 * Returns true iff the token has expired, i.e., it has been cancelled or its time
+	 * limit has passed.
+	 */
+	public boolean isExpired() {
+		if(cancelled)
+			return true;
+		if(bTimeLimit && System.nanoTime()-expiresAtNs>=0)
+			return true;
+		return parent!=null && parent.isExpired();
+	}
+
+	/**
+	 * Returns the remaining time in milliseconds, Long.MAX_VALUE if there is no time
+	 * limit, or 0 if the token has expired.
+	 */
+	public long getRemainingMs() {
+		if(isCancelled())
+			return 0;
+		long remaining=Long.MAX_VALUE;
+		if(bTimeLimit)
+			remaining=Math.max(0,(expiresAtNs-System.nanoTime())/1000000L);
+		if(parent!=null)
+			remaining=Math.min(remaining,parent.getRemainingMs());
+		return remaining;
+	}
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous front end of a ParallelConductor. Applications are submitted to a
+ * bounded queue of the target colony, and the caller gets a CompletableFuture of the
+ * Result instead of waiting for the solver. Each colony has a worker on a virtual
+ * thread, which takes the requests waiting in the queue of the colony (at most
+ * maxBatchSize of them) and deploys them as one batch. If the queue of a colony is full,
+ * submitting blocks until there is space again, so that a burst of requests slows down
+ * the callers instead of increasing the latency without bound.
+ */
+public class DeploymentQueue {
+	/** The conductor performing the deployments */
+	private ParallelConductor conductor;
+	/** Maximum number of waiting requests per colony */
+	private int queueCapacity;
+	/** Maximum number of applications deployed in one batch */
+	private int maxBatchSize;
+	/** The queue of each colony, created on first use */
+	private Map<Colony,ColonyQueue> queues;
+	/** Whether shutdown() has been called */
+	private volatile boolean shutDown;
+
+	/** A submitted application, waiting for deployment */
+	static class Request {
+		/** The application to deploy; null marks the end of the requests */
+		private Application app;
+		/** The future to complete with the Result */
+		private CompletableFuture<Result> future;
+
+		/** Construct new request */
+		public Request(Application app) {
+			this.app=app;
+			future=new CompletableFuture<>();
+		}
+	}
+
+	/** The queue of one colony, together with its worker */
+	class ColonyQueue {
+		/** The colony that the requests are deployed to */
+		private Colony colony;
+		/** The waiting requests */
+		private BlockingQueue<Request> requests;
+		/** The worker thread */
+		private Thread worker;
+
+		/** Construct the queue of the given colony and start its worker */
+		public ColonyQueue(Colony colony) {
+			this.colony=colony;
+			requests=new ArrayBlockingQueue<>(queueCapacity);
+			worker=Thread.ofVirtual().start(this::work);
+		}
+
+		/** The main loop of the worker: deploy the waiting requests batch by batch, until the end mark is reached */
+		private void work() {
+			List<Request> batch=new ArrayList<>();
+			boolean finished=false;
+			while(!finished) {
+				batch.clear();
+				try {
+					batch.add(requests.take());
+				} catch(InterruptedException e) {
+					break;
+				}
+				requests.drainTo(batch,maxBatchSize-1);
+				int end=batch.size();
+				for(int i=0;i<batch.size();i++) {
+					if(batch.get(i).app==null) {
+						end=i;
+						finished=true;
+						break;
+					}
+				}
+				if(end>0)
+					deploy(batch.subList(0,end));
+			}
+		}
+
+		/** Deploy the given requests as one batch, and complete their futures, exceptionally if the deployment failed */
+		private void deploy(List<Request> batch) {
+			List<Application> apps=new ArrayList<>();
+			for(Request request : batch)
+				apps.add(request.app);
+			try {
+				List<Result> results=conductor.deployBatch(colony,apps);
+				for(int i=0;i<batch.size();i++)
+					batch.get(i).future.complete(results.get(i));
+			} catch(Throwable e) { //also errors (e.g. an OutOfMemoryError of the solver) must not leave the callers waiting or stop the worker
+				for(Request request : batch)
+					request.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	public DeploymentQueue(ParallelConductor conductor,int queueCapacity,int maxBatchSize) {
+		this.conductor=conductor;
+		this.queueCapacity=queueCapacity;
+		this.maxBatchSize=maxBatchSize;
+		queues=new ConcurrentHashMap<>();
+		shutDown=false;
+	}
+
+	/**
+	 * Submit an application for deployment to the given colony. Blocks while the queue of
+	 * the colony is full. The returned future is completed with the Result of the
+	 * deployment.
+	 */
+	public CompletableFuture<Result> submit(Colony colony,Application app) throws InterruptedException {
+		if(shutDown)
+			throw new IllegalStateException("The deployment queue has been shut down");
+		Request request=new Request(app);
+		queues.computeIfAbsent(colony,ColonyQueue::new).requests.put(request);
+		return request.future;
+	}
+
+	/**
+	 * Stop accepting new requests, and wait until the requests submitted so far have
+	 * been deployed. Must not be called while other threads are still submitting.
+	 */
+	public void shutdown() throws InterruptedException {
+		shutDown=true;
+		for(ColonyQueue queue : queues.values())
+			queue.requests.put(new Request(null));
+		for(ColonyQueue queue : queues.values())
+			queue.worker.join();
+	}
+}
@@ -0,0 +1,1280 @@
+import java.util.Arrays;
+
+/**
+ * Pure-Java IMilpModel, solved by LP-based branch and bound. The LP relaxations are
+ * solved by a bounded-variable revised dual simplex method: each constraint
+ * gets a slack variable (bounded according to the sense of the constraint), the slacks
+ * form the initial basis, and every structural variable starts at the bound that makes
+ * the basis dual feasible. Branching only changes bounds, which keeps the basis dual
+ * feasible, so each node of the depth-first search is re-optimized from the basis of
+ * the previous node by a few dual simplex iterations. Before solving the LP of a node,
+ * the bounds of the integer variables are tightened by bound propagation. The basis
+ * matrix is kept as a sparse LU factorization plus the eta vectors of the pivots since
+ * the factorization, so memory and time per iteration grow with the number of non-zeros
+ * rather than with the product of the numbers of rows and columns. The basis matrix is
+ * factorized again from the original constraints periodically and whenever it has
+ * become numerically inaccurate.
+ * <p>
+ * Intended for small and medium models, e.g., to run and benchmark the ILP-based
+ * solvers where no commercial solver is available. Variables whose objective
+ * coefficient is positive (negative) must have a finite lower (upper) bound, and free
+ * variables are not supported.
+ * <p>
+ * The model is stored row by row, so that it can be modified cheaply between calls to
+ * optimize(); each call compiles the current model into compact arrays for the solver.
+ */
+public class EmbeddedMilpModel implements IMilpModel {
+	/** Tolerance for the violation of bounds */
+	private static final double feasTol=1e-7;
+	/** Tolerance for the integrality of variables */
+	private static final double intTol=1e-6;
+	/** Entries of the pivot row with smaller absolute value are not used as pivots */
+	private static final double pivotTol=1e-6;
+	/** Pivot elements with smaller absolute value are only used right after the basis matrix has been factorized */
+	private static final double stablePivotTol=1e-4;
+	/** Tolerance for the sign of the reduced costs, used by the ratio test */
+	private static final double dualTol=1e-9;
+	/** Maximum residual of the constraints that is accepted before the basis matrix is factorized again */
+	private static final double residualTol=1e-6;
+	/** Entries of the factors with smaller absolute value are dropped */
+	private static final double dropTol=1e-12;
+	/** Number of nodes after which the numerical accuracy of the factorization is checked */
+	private static final int refreshInterval=64;
+	/** Number of pivots after which the basis matrix is factorized again */
+	private static final int refactorInterval=64;
+	/** Maximum number of passes over the constraints in the bound propagation of a node */
+	private static final int maxPropagationPasses=10;
+	/** Maximum number of nodes explored to complete a partial MIP start */
+	private static final int startNodeLimit=200;
+	/** Result of a dual simplex run */
+	private enum LpStatus {optimal, infeasible, stopped}
+
+	/**
+	 * A sequence of sparse vectors, each with a pivot row and a pivot value. Used for the
+	 * factors of the basis matrix and for its updates.
+	 */
+	private static class EtaFile {
+		/** Number of vectors */
+		private int size;
+		/** Pivot row of each vector */
+		private int[] row;
+		/** Pivot value of each vector */
+		private double[] pivot;
+		/** Start of each vector's entries in idx and val */
+		private int[] start;
+		/** Row indices of the entries */
+		private int[] idx;
+		/** Values of the entries */
+		private double[] val;
+
+		/** Construct empty file */
+		public EtaFile() {
+			row=new int[16];
+			pivot=new double[16];
+			start=new int[17];
+			idx=new int[64];
+			val=new double[64];
+		}
+
+		/** Remove all vectors */
+		private void clear() {
+			size=0;
+		}
+
+		/** Start a new vector with the given pivot row and value */
+		private void begin(int r,double p) {
+			if(size==row.length) {
+				row=Arrays.copyOf(row,2*size);
+				pivot=Arrays.copyOf(pivot,2*size);
+				start=Arrays.copyOf(start,2*size+1);
+			}
+			row[size]=r;
+			pivot[size]=p;
+			start[size+1]=start[size];
+			size++;
+		}
+
+		/** Add an entry to the last vector */
+		private void add(int i,double v) {
+			int k=start[size];
+			if(k==idx.length) {
+				idx=Arrays.copyOf(idx,2*k);
+				val=Arrays.copyOf(val,2*k);
+			}
+			idx[k]=i;
+			val[k]=v;
+			start[size]=k+1;
+		}
+	}
+
+	//the model, indexed by the indices of the variables and constraints
+	/** Number of variables ever added */
+	private int nModelVars;
+	/** Lower bounds of the variables */
+	private double[] varLb;
+	/** Upper bounds of the variables */
+	private double[] varUb;
+	/** Objective coefficients of the variables */
+	private double[] varObj;
+	/** Integrality of the variables */
+	private boolean[] varInteger;
+	/** Values of the MIP start (NaN if not given) */
+	private double[] varStart;
+	/** Whether the variables have been removed */
+	private boolean[] varRemoved;
+	/** Number of constraints ever added */
+	private int nModelRows;
+	/** Variable indices of the terms of each constraint */
+	private int[][] rowVars;
+	/** Coefficients of the terms of each constraint */
+	private double[][] rowCoefs;
+	/** Number of terms of each constraint */
+	private int[] rowLength;
+	/** Senses of the constraints */
+	private Sense[] rowSense;
+	/** Right-hand sides of the constraints */
+	private double[] rowRhs;
+	/** Whether the constraints have been removed */
+	private boolean[] rowRemoved;
+
+	//the compiled model, without the removed variables and constraints
+	/** Number of variables */
+	private int nVars;
+	/** Contribution of the fixed variables to the objective */
+	private double objOffset;
+	/** Column of each variable of the model, or -1 for removed and fixed ones */
+	private int[] colOfVar;
+	/** Lower bounds of the variables */
+	private double[] lb;
+	/** Upper bounds of the variables */
+	private double[] ub;
+	/** Objective coefficients of the variables */
+	private double[] obj;
+	/** Integrality of the variables */
+	private boolean[] integer;
+	/** Values of the MIP start (NaN if not given) */
+	private double[] start;
+	/** Number of constraints */
+	private int nRows;
+	/** Start of each constraint's terms in colIdx and vals (compressed row storage) */
+	private int[] rowStart;
+	/** Variable indices of the terms of the constraints */
+	private int[] colIdx;
+	/** Coefficients of the terms of the constraints */
+	private double[] vals;
+	/** Total number of terms of the constraints */
+	private int nnz;
+	/** Senses of the constraints */
+	private Sense[] senses;
+	/** Right-hand sides of the constraints */
+	private double[] rhs;
+	/** Solutions with larger objective value are not of interest */
+	private double cutoff;
+	/** Time limit in seconds */
+	private double timeLimitSec;
+	/** Deadline of the optimization, or null */
+	private Deadline deadline;
+	/** Best solution found, or null */
+	private double[] solution;
+	/** Objective value of the best solution */
+	private double solutionObj;
+
+	//state of the solver during optimize(); columns 0..nVars-1 are the variables, nVars..nCols-1 the slacks
+	/** Number of columns */
+	private int nCols;
+	/** Start of each variable's terms in rowIdx and colVals (compressed column storage) */
+	private int[] colStart;
+	/** Constraint indices of the terms of the variables */
+	private int[] rowIdx;
+	/** Coefficients of the terms of the variables */
+	private double[] colVals;
+	/** Basic column of each row */
+	private int[] basis;
+	/** Row of each basic column, or -1 for nonbasic columns */
+	private int[] rowOfBasic;
+	/** Whether a nonbasic variable is at its upper bound (otherwise at its lower bound) */
+	private boolean[] atUpper;
+	/** Current values of all columns */
+	private double[] x;
+	/** Whether nonbasic columns have been moved since the values of the basic columns were computed */
+	private boolean basicValuesStale;
+	/** Current reduced costs of all columns */
+	private double[] d;
+	/** Objective coefficients of all columns */
+	private double[] cost;
+	/** Current lower bounds of all columns */
+	private double[] lo;
+	/** Current upper bounds of all columns */
+	private double[] up;
+	/** L factor of the basis matrix: the elimination steps of the factorization */
+	private EtaFile lFactor;
+	/** U factor of the basis matrix: the basic structural columns after elimination, in pivot order */
+	private EtaFile uFactor;
+	/** The pivots since the last factorization, in product form */
+	private EtaFile updates;
+	/** Workspace over the rows, e.g., for the entering column */
+	private double[] column;
+	/** Workspace over the rows for the row of the basis inverse */
+	private double[] rho;
+	/** Workspace over the rows for the factorization */
+	private double[] work;
+	/** Rows with a non-zero entry in work */
+	private int[] workNz;
+	/** Whether a row is in workNz */
+	private boolean[] workMark;
+	/** Workspace over the columns for the pivot row */
+	private double[] alphaRow;
+	/** Columns with a non-zero entry in alphaRow */
+	private int[] alphaNz;
+	/** Number of entries of alphaNz */
+	private int nAlphaNz;
+	/** Whether a column is in alphaNz */
+	private boolean[] alphaMark;
+	/** Workspace for the candidates of the ratio test */
+	private int[] candidates;
+	/** Point in time (System.nanoTime()) when the time limit is reached */
+	private long stopAtNs;
+	/** Whether the optimization has been stopped because of the time limit or the deadline */
+	private boolean stopped;
+	/** Whether the objective value of every solution is integral */
+	private boolean integralObjective;
+	/** Number of nodes explored so far */
+	private long nodes;
+	/** Node count at which the current search is stopped */
+	private long nodeLimit;
+	/** Columns whose bounds have been tightened by the bound propagation, in chronological order */
+	private int[] trailVar;
+	/** Lower bounds of the columns in trailVar before the tightening */
+	private double[] trailLo;
+	/** Upper bounds of the columns in trailVar before the tightening */
+	private double[] trailUp;
+	/** Number of entries of the trail */
+	private int trailSize;
+
+	/**
+	 * Construct empty model.
+	 */
+	public EmbeddedMilpModel() {
+		varLb=new double[16];
+		varUb=new double[16];
+		varObj=new double[16];
+		varInteger=new boolean[16];
+		varStart=new double[16];
+		varRemoved=new boolean[16];
+		rowVars=new int[16][];
+		rowCoefs=new double[16][];
+		rowLength=new int[16];
+		rowSense=new Sense[16];
+		rowRhs=new double[16];
+		rowRemoved=new boolean[16];
+		cutoff=Double.POSITIVE_INFINITY;
+		timeLimitSec=Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public int addVar(double lb,double ub,double obj,boolean integer,String name) {
+		if(nModelVars==varLb.length) {
+			int cap=2*nModelVars;
+			varLb=Arrays.copyOf(varLb,cap);
+			varUb=Arrays.copyOf(varUb,cap);
+			varObj=Arrays.copyOf(varObj,cap);
+			varInteger=Arrays.copyOf(varInteger,cap);
+			varStart=Arrays.copyOf(varStart,cap);
+			varRemoved=Arrays.copyOf(varRemoved,cap);
+		}
+		varLb[nModelVars]=lb;
+		varUb[nModelVars]=ub;
+		varObj[nModelVars]=obj;
+		varInteger[nModelVars]=integer;
+		varStart[nModelVars]=Double.NaN;
+		return nModelVars++;
+	}
+
+	@Override
+	public int addConstr(LinExpr expr,Sense sense,double rhs,String name) {
+		if(nModelRows==rowSense.length) {
+			int cap=2*nModelRows;
+			rowVars=Arrays.copyOf(rowVars,cap);
+			rowCoefs=Arrays.copyOf(rowCoefs,cap);
+			rowLength=Arrays.copyOf(rowLength,cap);
+			rowSense=Arrays.copyOf(rowSense,cap);
+			rowRhs=Arrays.copyOf(rowRhs,cap);
+			rowRemoved=Arrays.copyOf(rowRemoved,cap);
+		}
+		int n=expr.size();
+		rowVars[nModelRows]=new int[Math.max(n,4)];
+		rowCoefs[nModelRows]=new double[Math.max(n,4)];
+		for(int i=0;i<n;i++) {
+			rowVars[nModelRows][i]=expr.getVar(i);
+			rowCoefs[nModelRows][i]=expr.getCoef(i);
+		}
+		rowLength[nModelRows]=n;
+		rowSense[nModelRows]=sense;
+		rowRhs[nModelRows]=rhs-expr.getConstant();
+		return nModelRows++;
+	}
+
+	@Override
+	public void removeVar(int var) {
+		varRemoved[var]=true; //its terms are dropped from the constraints by compile()
+	}
+
+	@Override
+	public void removeConstr(int constr) {
+		rowRemoved[constr]=true;
+		rowVars[constr]=null;
+		rowCoefs[constr]=null;
+		rowLength[constr]=0;
+	}
+
+	@Override
+	public void setRhs(int constr,double rhs) {
+		rowRhs[constr]=rhs;
+	}
+
+	@Override
+	public void changeCoeff(int constr,int var,double coef) {
+		int[] vars=rowVars[constr];
+		double[] coefs=rowCoefs[constr];
+		int n=rowLength[constr];
+		for(int k=0;k<n;k++) {
+			if(vars[k]==var) {
+				if(coef!=0) {
+					coefs[k]=coef;
+				} else { //move the last term to the place of the removed one
+					vars[k]=vars[n-1];
+					coefs[k]=coefs[n-1];
+					rowLength[constr]--;
+				}
+				return;
+			}
+		}
+		if(coef==0)
+			return;
+		if(n==vars.length) {
+			rowVars[constr]=vars=Arrays.copyOf(vars,2*n);
+			rowCoefs[constr]=coefs=Arrays.copyOf(coefs,2*n);
+		}
+		vars[n]=var;
+		coefs[n]=coef;
+		rowLength[constr]++;
+	}
+
+	@Override
+	public void setBounds(int var,double lb,double ub) {
+		varLb[var]=lb;
+		varUb[var]=ub;
+	}
+
+	@Override
+	public void setStart(int var,double value) {
+		varStart[var]=value;
+	}
+
+	@Override
+	public void clearStart() {
+		Arrays.fill(varStart,0,nModelVars,Double.NaN);
+	}
+
+	@Override
+	public void setCutoff(double cutoff) {
+		this.cutoff=cutoff;
+	}
+
+	@Override
+	public void setTimeLimit(double seconds) {
+		timeLimitSec=seconds;
+	}
+
+	@Override
+	public void setDeadline(Deadline deadline) {
+		this.deadline=deadline;
+	}
+
+	/**
+	 * Build the arrays used by the solver from the current model. Removed variables and
+	 * constraints are left out, and the terms of removed variables are also dropped from
+	 * the stored constraints. Variables whose lower and upper bounds coincide are replaced
+	 * by their value. The remaining variables are numbered consecutively.
+	 */
+	private void compile() {
+		colOfVar=new int[nModelVars];
+		nVars=0;
+		objOffset=0;
+		for(int v=0;v<nModelVars;v++) {
+			if(varRemoved[v] || varLb[v]==varUb[v]) {
+				colOfVar[v]=-1;
+				if(!varRemoved[v])
+					objOffset+=varObj[v]*varLb[v];
+			} else {
+				colOfVar[v]=nVars++;
+			}
+		}
+		lb=new double[nVars];
+		ub=new double[nVars];
+		obj=new double[nVars];
+		integer=new boolean[nVars];
+		start=new double[nVars];
+		for(int v=0;v<nModelVars;v++) {
+			int j=colOfVar[v];
+			if(j<0)
+				continue;
+			lb[j]=varLb[v];
+			ub[j]=varUb[v];
+			obj[j]=varObj[v];
+			integer[j]=varInteger[v];
+			start[j]=varStart[v];
+		}
+		nRows=0;
+		nnz=0;
+		for(int i=0;i<nModelRows;i++) {
+			if(rowRemoved[i])
+				continue;
+			int n=0;
+			for(int k=0;k<rowLength[i];k++) {
+				int v=rowVars[i][k];
+				if(!varRemoved[v]) {
+					rowVars[i][n]=v;
+					rowCoefs[i][n]=rowCoefs[i][k];
+					n++;
+					if(colOfVar[v]>=0)
+						nnz++;
+				}
+			}
+			rowLength[i]=n;
+			nRows++;
+		}
+		rowStart=new int[nRows+1];
+		colIdx=new int[nnz];
+		vals=new double[nnz];
+		senses=new Sense[nRows];
+		rhs=new double[nRows];
+		int r=0;
+		int k=0;
+		for(int i=0;i<nModelRows;i++) {
+			if(rowRemoved[i])
+				continue;
+			double b=rowRhs[i];
+			for(int t=0;t<rowLength[i];t++) {
+				int v=rowVars[i][t];
+				if(colOfVar[v]<0) { //fixed variable
+					b-=rowCoefs[i][t]*varLb[v];
+					continue;
+				}
+				colIdx[k]=colOfVar[v];
+				vals[k]=rowCoefs[i][t];
+				k++;
+			}
+			senses[r]=rowSense[i];
+			rhs[r]=b;
+			r++;
+			rowStart[r]=k;
+		}
+	}
+
+	/**
+	 * Returns true iff the optimization must stop because of the time limit or the deadline.
+	 */
+	private boolean mustStop() {
+		if(!stopped && (System.nanoTime()-stopAtNs>=0 || (deadline!=null && deadline.isExpired())))
+			stopped=true;
+		return stopped;
+	}
+
+	/**
+	 * Set up the column-wise copy of the constraint matrix and the slack basis.
+	 */
+	private void initBasis() throws MilpException {
+		nCols=nVars+nRows;
+		colStart=new int[nVars+1];
+		rowIdx=new int[nnz];
+		colVals=new double[nnz];
+		for(int k=0;k<nnz;k++)
+			colStart[colIdx[k]+1]++;
+		for(int j=0;j<nVars;j++)
+			colStart[j+1]+=colStart[j];
+		int[] next=Arrays.copyOf(colStart,nVars);
+		for(int i=0;i<nRows;i++) {
+			for(int k=rowStart[i];k<rowStart[i+1];k++) {
+				int t=next[colIdx[k]]++;
+				rowIdx[t]=i;
+				colVals[t]=vals[k];
+			}
+		}
+		basis=new int[nRows];
+		rowOfBasic=new int[nCols];
+		atUpper=new boolean[nCols];
+		x=new double[nCols];
+		d=new double[nCols];
+		cost=new double[nCols];
+		lo=new double[nCols];
+		up=new double[nCols];
+		lFactor=new EtaFile();
+		uFactor=new EtaFile();
+		updates=new EtaFile();
+		column=new double[nRows];
+		rho=new double[nRows];
+		work=new double[nRows];
+		workNz=new int[nRows];
+		workMark=new boolean[nRows];
+		alphaRow=new double[nCols];
+		alphaNz=new int[nCols];
+		alphaMark=new boolean[nCols];
+		nAlphaNz=0;
+		candidates=new int[nCols];
+		trailVar=new int[16];
+		trailLo=new double[16];
+		trailUp=new double[16];
+		trailSize=0;
+		for(int j=0;j<nVars;j++) {
+			lo[j]=lb[j];
+			up[j]=ub[j];
+			cost[j]=obj[j];
+			d[j]=obj[j];
+			rowOfBasic[j]=-1;
+			if(lo[j]==Double.NEGATIVE_INFINITY && up[j]==Double.POSITIVE_INFINITY)
+				throw new MilpException("Free variables are not supported by the embedded backend");
+			if((obj[j]>0 && lo[j]==Double.NEGATIVE_INFINITY) || (obj[j]<0 && up[j]==Double.POSITIVE_INFINITY))
+				throw new MilpException("Unbounded objective direction of a variable is not supported by the embedded backend");
+			//start at the bound that makes the slack basis dual feasible
+			atUpper[j]=(obj[j]<0 || lo[j]==Double.NEGATIVE_INFINITY);
+			x[j]=atUpper[j]?up[j]:lo[j];
+		}
+		for(int i=0;i<nRows;i++) {
+			int s=nVars+i;
+			basis[i]=s;
+			rowOfBasic[s]=i;
+			lo[s]=(senses[i]==Sense.greaterEqual)?Double.NEGATIVE_INFINITY:0;
+			up[s]=(senses[i]==Sense.lessEqual)?Double.POSITIVE_INFINITY:0;
+		}
+		refreshBasicValues();
+	}
+
+	/**
+	 * Multiply the given vector (indexed by the rows) by the inverse of the basis matrix,
+	 * in place: the result is indexed by the rows of the basic columns.
+	 */
+	private void ftran(double[] v) {
+		for(int e=0;e<lFactor.size;e++) {
+			double t=v[lFactor.row[e]];
+			if(t==0)
+				continue;
+			for(int k=lFactor.start[e];k<lFactor.start[e+1];k++)
+				v[lFactor.idx[k]]-=lFactor.val[k]*t;
+		}
+		for(int e=uFactor.size-1;e>=0;e--) {
+			int r=uFactor.row[e];
+			double t=v[r];
+			if(t==0)
+				continue;
+			t/=uFactor.pivot[e];
+			v[r]=t;
+			for(int k=uFactor.start[e];k<uFactor.start[e+1];k++)
+				v[uFactor.idx[k]]-=uFactor.val[k]*t;
+		}
+		for(int e=0;e<updates.size;e++) {
+			int r=updates.row[e];
+			double t=v[r];
+			if(t==0)
+				continue;
+			t/=updates.pivot[e];
+			v[r]=t;
+			for(int k=updates.start[e];k<updates.start[e+1];k++)
+				v[updates.idx[k]]-=updates.val[k]*t;
+		}
+	}
+
+	/**
+	 * Multiply the given row vector (indexed by the rows of the basic columns) by the
+	 * inverse of the basis matrix, in place: the result is indexed by the rows.
+	 */
+	private void btran(double[] v) {
+		for(int e=updates.size-1;e>=0;e--) {
+			int r=updates.row[e];
+			double t=v[r];
+			for(int k=updates.start[e];k<updates.start[e+1];k++)
+				t-=updates.val[k]*v[updates.idx[k]];
+			v[r]=t/updates.pivot[e];
+		}
+		for(int e=0;e<uFactor.size;e++) {
+			int r=uFactor.row[e];
+			double t=v[r];
+			for(int k=uFactor.start[e];k<uFactor.start[e+1];k++)
+				t-=uFactor.val[k]*v[uFactor.idx[k]];
+			v[r]=t/uFactor.pivot[e];
+		}
+		for(int e=lFactor.size-1;e>=0;e--) {
+			int r=lFactor.row[e];
+			double t=v[r];
+			for(int k=lFactor.start[e];k<lFactor.start[e+1];k++)
+				t-=lFactor.val[k]*v[lFactor.idx[k]];
+			v[r]=t;
+		}
+	}
+
+	/**
+	 * Add the given column to the given vector, which is indexed by the rows.
+	 */
+	private void loadColumn(int j,double[] v) {
+		if(j>=nVars) {
+			v[j-nVars]+=1;
+			return;
+		}
+		for(int k=colStart[j];k<colStart[j+1];k++)
+			v[rowIdx[k]]+=colVals[k];
+	}
+
+	/**
+	 * Compute row r of the inverse of the basis matrix times the nonbasic columns into
+	 * alphaRow, with the indices of its non-zeros in alphaNz.
+	 */
+	private void computePivotRow(int r) {
+		for(int k=0;k<nAlphaNz;k++) {
+			int j=alphaNz[k];
+			alphaRow[j]=0;
+			alphaMark[j]=false;
+		}
+		nAlphaNz=0;
+		Arrays.fill(rho,0);
+		rho[r]=1;
+		btran(rho);
+		for(int i=0;i<nRows;i++) {
+			double t=rho[i];
+			if(Math.abs(t)<dropTol)
+				continue;
+			for(int k=rowStart[i];k<rowStart[i+1];k++) {
+				int j=colIdx[k];
+				if(rowOfBasic[j]>=0)
+					continue;
+				if(!alphaMark[j]) {
+					alphaMark[j]=true;
+					alphaNz[nAlphaNz++]=j;
+				}
+				alphaRow[j]+=t*vals[k];
+			}
+			int s=nVars+i;
+			if(rowOfBasic[s]<0) {
+				alphaMark[s]=true;
+				alphaNz[nAlphaNz++]=s;
+				alphaRow[s]=t;
+			}
+		}
+	}
+
+	/**
+	 * Recompute the values of the basic variables from the values of the nonbasic ones.
+	 */
+	private void refreshBasicValues() {
+		double[] w=rho; //right-hand side minus the contribution of the nonbasic columns
+		for(int i=0;i<nRows;i++) {
+			double v=rhs[i];
+			for(int k=rowStart[i];k<rowStart[i+1];k++) {
+				int j=colIdx[k];
+				if(rowOfBasic[j]<0)
+					v-=vals[k]*x[j];
+			}
+			int s=nVars+i;
+			if(rowOfBasic[s]<0)
+				v-=x[s];
+			w[i]=v;
+		}
+		ftran(w);
+		for(int r=0;r<nRows;r++)
+			x[basis[r]]=w[r];
+		basicValuesStale=false;
+	}
+
+	/**
+	 * Largest violation of the constraints by the current values of the columns.
+	 */
+	private double maxResidual() {
+		double max=0;
+		for(int i=0;i<nRows;i++) {
+			double v=x[nVars+i]-rhs[i];
+			for(int k=rowStart[i];k<rowStart[i+1];k++)
+				v+=vals[k]*x[colIdx[k]];
+			max=Math.max(max,Math.abs(v));
+		}
+		return max;
+	}
+
+	/**
+	 * Factorize the basis matrix from the original constraint matrix, dropping the
+	 * updates of the previous pivots and the numerical errors they have accumulated. The
+	 * basic slacks keep their rows; the basic variables are eliminated one by one, the
+	 * sparsest one first, each pivoting on its largest entry in a row that has not been
+	 * pivoted yet (left-looking LU factorization with partial pivoting). A variable that
+	 * is linearly dependent on the previous ones becomes nonbasic, and the slacks of the
+	 * rows without pivot become basic instead. Nonbasic columns are put to the bound that
+	 * matches the sign of their recomputed reduced cost, so that the basis remains dual
+	 * feasible.
+	 */
+	private void reinvert() {
+		lFactor.clear();
+		uFactor.clear();
+		updates.clear();
+		int[] newBasis=new int[nRows];
+		Arrays.fill(newBasis,-1);
+		long[] order=new long[nRows]; //basic variables, by number of non-zeros
+		int nStructural=0;
+		for(int r=0;r<nRows;r++) {
+			int j=basis[r];
+			if(j>=nVars)
+				newBasis[j-nVars]=j;
+			else
+				order[nStructural++]=((long)(colStart[j+1]-colStart[j])<<32)|j;
+		}
+		Arrays.sort(order,0,nStructural);
+		for(int t=0;t<nStructural;t++) {
+			int j=(int)order[t];
+			//the column, after the elimination steps so far
+			int nz=0;
+			for(int k=colStart[j];k<colStart[j+1];k++) {
+				int i=rowIdx[k];
+				if(!workMark[i]) {
+					workMark[i]=true;
+					workNz[nz++]=i;
+				}
+				work[i]+=colVals[k];
+			}
+			for(int e=0;e<lFactor.size;e++) {
+				double v=work[lFactor.row[e]];
+				if(v==0)
+					continue;
+				for(int k=lFactor.start[e];k<lFactor.start[e+1];k++) {
+					int i=lFactor.idx[k];
+					if(!workMark[i]) {
+						workMark[i]=true;
+						workNz[nz++]=i;
+					}
+					work[i]-=lFactor.val[k]*v;
+				}
+			}
+			int pr=-1;
+			double max=pivotTol;
+			for(int k=0;k<nz;k++) {
+				int i=workNz[k];
+				if(newBasis[i]<0 && Math.abs(work[i])>max) {
+					max=Math.abs(work[i]);
+					pr=i;
+				}
+			}
+			if(pr>=0) {
+				double p=work[pr];
+				uFactor.begin(pr,p);
+				for(int k=0;k<nz;k++) {
+					int i=workNz[k];
+					if(newBasis[i]>=0 && Math.abs(work[i])>dropTol)
+						uFactor.add(i,work[i]);
+				}
+				lFactor.begin(pr,p);
+				for(int k=0;k<nz;k++) {
+					int i=workNz[k];
+					if(newBasis[i]<0 && i!=pr && Math.abs(work[i])>dropTol)
+						lFactor.add(i,work[i]/p);
+				}
+				if(lFactor.start[lFactor.size]==lFactor.start[lFactor.size-1]) //nothing to eliminate
+					lFactor.size--;
+				newBasis[pr]=j;
+			}
+			for(int k=0;k<nz;k++) {
+				int i=workNz[k];
+				work[i]=0;
+				workMark[i]=false;
+			}
+		}
+		for(int j=0;j<nCols;j++)
+			rowOfBasic[j]=-1;
+		for(int r=0;r<nRows;r++) {
+			basis[r]=(newBasis[r]>=0)?newBasis[r]:nVars+r;
+			rowOfBasic[basis[r]]=r;
+		}
+		//reduced costs from the simplex multipliers
+		for(int r=0;r<nRows;r++)
+			rho[r]=cost[basis[r]];
+		btran(rho);
+		for(int j=0;j<nCols;j++) {
+			if(rowOfBasic[j]>=0) {
+				d[j]=0;
+				continue;
+			}
+			double v;
+			if(j<nVars) {
+				v=cost[j];
+				for(int k=colStart[j];k<colStart[j+1];k++)
+					v-=rho[rowIdx[k]]*colVals[k];
+			} else
+				v=-rho[j-nVars];
+			d[j]=v;
+			if(lo[j]==up[j] || lo[j]==Double.NEGATIVE_INFINITY)
+				atUpper[j]=(lo[j]==Double.NEGATIVE_INFINITY);
+			else if(up[j]==Double.POSITIVE_INFINITY)
+				atUpper[j]=false;
+			else if(d[j]>dualTol)
+				atUpper[j]=false;
+			else if(d[j]<-dualTol)
+				atUpper[j]=true;
+			x[j]=atUpper[j]?up[j]:lo[j];
+		}
+		refreshBasicValues();
+	}
+
+	/**
+	 * Recompute the basic variables, and factorize the basis matrix again if it has become
+	 * inaccurate, i.e., if the values of the columns violate the constraints either before
+	 * or after the recomputation. Returns true iff the basis matrix has been factorized.
+	 */
+	private boolean checkAccuracy() {
+		double residual=basicValuesStale?0:maxResidual();
+		refreshBasicValues();
+		if(residual<=residualTol && maxResidual()<=residualTol)
+			return false;
+		reinvert();
+		return true;
+	}
+
+	/**
+	 * Change the bounds of the given column. A nonbasic column is moved to the bound that
+	 * keeps the basis dual feasible; the basic variables are recomputed before they are
+	 * used the next time.
+	 */
+	private void setColumnBounds(int j,double l,double u) {
+		lo[j]=l;
+		up[j]=u;
+		if(rowOfBasic[j]>=0)
+			return;
+		boolean upper=(l==u)?false:(d[j]<0 && u!=Double.POSITIVE_INFINITY) || l==Double.NEGATIVE_INFINITY;
+		atUpper[j]=upper;
+		double value=upper?u:l;
+		if(x[j]!=value) {
+			x[j]=value;
+			basicValuesStale=true;
+		}
+	}
+
+	/**
+	 * Pivot: column q, whose representation in terms of the basis is in column, enters
+	 * the basis in row r, changing its value by delta; the leaving variable becomes
+	 * nonbasic at the given bound. The pivot row must be in alphaRow.
+	 */
+	private void pivot(int r,int q,double delta,boolean leavingAtUpper,double leavingValue) {
+		int p=basis[r];
+		x[q]+=delta;
+		for(int i=0;i<nRows;i++) {
+			double t=column[i];
+			if(t!=0 && i!=r)
+				x[basis[i]]-=t*delta;
+		}
+		double f=d[q]/alphaRow[q];
+		if(f!=0) {
+			for(int k=0;k<nAlphaNz;k++) {
+				int j=alphaNz[k];
+				d[j]-=f*alphaRow[j];
+			}
+		}
+		d[q]=0;
+		d[p]=-f;
+		updates.begin(r,column[r]);
+		for(int i=0;i<nRows;i++) {
+			if(i!=r && Math.abs(column[i])>dropTol)
+				updates.add(i,column[i]);
+		}
+		basis[r]=q;
+		rowOfBasic[q]=r;
+		rowOfBasic[p]=-1;
+		atUpper[p]=leavingAtUpper;
+		x[p]=leavingValue;
+	}
+
+	/**
+	 * Re-optimize the LP relaxation with the current bounds by the dual simplex method,
+	 * starting from the current (dual feasible) basis. Infeasibility is only reported after
+	 * the accuracy of the factorization has been checked. If the iteration limit is reached
+	 * even after factorizing again, the whole optimization is stopped, since the subtree of
+	 * the current node could not be explored.
+	 */
+	private LpStatus dualSimplex() {
+		if(basicValuesStale)
+			refreshBasicValues();
+		long maxIterations=20L*(nRows+nCols)+1000;
+		boolean rebuilt=false;
+		boolean fresh=false; //whether the basis matrix has been factorized since the last pivot
+		for(long iter=0;;iter++) {
+			if(iter%64==0 && mustStop())
+				return LpStatus.stopped;
+			if(iter>maxIterations) { //presumably cycling or numerical trouble
+				if(rebuilt) {
+					stopped=true;
+					return LpStatus.stopped;
+				}
+				reinvert();
+				rebuilt=true;
+				fresh=true;
+				iter=0;
+			}
+			//leaving variable: the basic variable with the largest bound violation
+			int r=-1;
+			double maxViolation=feasTol;
+			for(int i=0;i<nRows;i++) {
+				int b=basis[i];
+				double v=x[b];
+				double violation=Math.max(lo[b]-v,v-up[b]);
+				if(violation>maxViolation) {
+					maxViolation=violation;
+					r=i;
+				}
+			}
+			if(r==-1)
+				return LpStatus.optimal;
+			int p=basis[r];
+			boolean increase=x[p]<lo[p];
+			double target=increase?lo[p]:up[p];
+			//entering variable: Harris' two-pass ratio test; the first pass determines the largest
+			//step that keeps the reduced costs within the tolerance, the second pass chooses the
+			//largest pivot element among the candidates that this step allows
+			computePivotRow(r);
+			int nCandidates=0;
+			double maxStep=Double.POSITIVE_INFINITY;
+			for(int k=0;k<nAlphaNz;k++) {
+				int j=alphaNz[k];
+				double a=alphaRow[j];
+				if(lo[j]==up[j] || Math.abs(a)<pivotTol)
+					continue;
+				boolean eligible=increase?(atUpper[j]?a>0:a<0):(atUpper[j]?a<0:a>0);
+				if(!eligible)
+					continue;
+				double reducedCost=atUpper[j]?Math.max(-d[j],0):Math.max(d[j],0);
+				maxStep=Math.min(maxStep,(reducedCost+dualTol)/Math.abs(a));
+				candidates[nCandidates++]=j;
+			}
+			if(nCandidates==0) {
+				if(!rebuilt) {
+					rebuilt=true;
+					if(checkAccuracy()) {
+						fresh=true;
+						continue;
+					}
+				}
+				return LpStatus.infeasible;
+			}
+			int q=-1;
+			double bestPivot=0;
+			for(int k=0;k<nCandidates;k++) {
+				int j=candidates[k];
+				double a=Math.abs(alphaRow[j]);
+				double reducedCost=atUpper[j]?Math.max(-d[j],0):Math.max(d[j],0);
+				if(reducedCost/a<=maxStep && a>bestPivot) {
+					bestPivot=a;
+					q=j;
+				}
+			}
+			if(bestPivot<stablePivotTol && !fresh) { //small pivots are often just accumulated numerical errors
+				reinvert();
+				fresh=true;
+				continue;
+			}
+			//the entering column in terms of the basis; its entry in row r must match the pivot row
+			Arrays.fill(column,0);
+			loadColumn(q,column);
+			ftran(column);
+			if(!fresh && Math.abs(column[r]-alphaRow[q])>1e-6*(1+Math.abs(alphaRow[q]))) {
+				reinvert();
+				fresh=true;
+				continue;
+			}
+			double delta=(x[p]-target)/column[r];
+			pivot(r,q,delta,!increase,target);
+			fresh=false;
+			if(updates.size>=refactorInterval) {
+				reinvert();
+				fresh=true;
+			}
+		}
+	}
+	/**
+	 * Objective value of the current LP solution.
+	 */
+	private double currentObjective() {
+		double value=0;
+		for(int j=0;j<nVars;j++) {
+			if(cost[j]!=0)
+				value+=cost[j]*x[j];
+		}
+		return value;
+	}
+
+	/**
+	 * Returns true iff a node with the given LP bound cannot lead to a better solution
+	 * than the incumbent, or to a solution within the cutoff.
+	 */
+	private boolean canPrune(double bound) {
+		if(integralObjective)
+			bound=Math.ceil(bound-1e-6);
+		if(bound+objOffset>cutoff+1e-9)
+			return true;
+		return solution!=null && bound>=solutionObj-1e-9;
+	}
+
+	/**
+	 * Tighten the bounds of an integer variable during the bound propagation, recording
+	 * the old bounds on the trail. Returns false iff the new bounds are contradictory.
+	 */
+	private boolean tighten(int j,double l,double u) {
+		l=Math.max(l,lo[j]);
+		u=Math.min(u,up[j]);
+		if(l>u)
+			return false;
+		if(trailSize==trailVar.length) {
+			trailVar=Arrays.copyOf(trailVar,2*trailSize);
+			trailLo=Arrays.copyOf(trailLo,2*trailSize);
+			trailUp=Arrays.copyOf(trailUp,2*trailSize);
+		}
+		trailVar[trailSize]=j;
+		trailLo[trailSize]=lo[j];
+		trailUp[trailSize]=up[j];
+		trailSize++;
+		setColumnBounds(j,l,u);
+		return true;
+	}
+
+	/**
+	 * Undo the tightenings of the bound propagation back to the given size of the trail.
+	 */
+	private void undoTrail(int size) {
+		while(trailSize>size) {
+			trailSize--;
+			setColumnBounds(trailVar[trailSize],trailLo[trailSize],trailUp[trailSize]);
+		}
+	}
+
+	/**
+	 * Bound propagation: the bounds of the integer variables are tightened based on the
+	 * minimum and maximum activity of the constraints, until nothing changes anymore (or
+	 * for a limited number of passes). Returns false iff some constraint cannot be
+	 * satisfied with the current bounds.
+	 */
+	private boolean propagate() {
+		for(int pass=0;pass<maxPropagationPasses;pass++) {
+			boolean changed=false;
+			for(int i=0;i<nRows;i++) {
+				double minAct=0;
+				double maxAct=0;
+				int minInf=0; //number of terms with infinite contribution to the minimum activity
+				int maxInf=0;
+				for(int k=rowStart[i];k<rowStart[i+1];k++) {
+					double a=vals[k];
+					double l=lo[colIdx[k]];
+					double u=up[colIdx[k]];
+					double low=(a>0)?l:u;
+					double high=(a>0)?u:l;
+					if(Double.isInfinite(low))
+						minInf++;
+					else
+						minAct+=a*low;
+					if(Double.isInfinite(high))
+						maxInf++;
+					else
+						maxAct+=a*high;
+				}
+				boolean le=senses[i]!=Sense.greaterEqual;
+				boolean ge=senses[i]!=Sense.lessEqual;
+				double b=rhs[i];
+				if((le && minInf==0 && minAct>b+feasTol) || (ge && maxInf==0 && maxAct<b-feasTol))
+					return false;
+				for(int k=rowStart[i];k<rowStart[i+1];k++) {
+					int j=colIdx[k];
+					if(!integer[j] || lo[j]==up[j])
+						continue;
+					double a=vals[k];
+					if(le && minInf==0) { //a*x_j <= b - (minimum activity of the other terms)
+						double slack=(b-minAct)/a;
+						if(a>0 && Math.floor(lo[j]+slack+intTol)<up[j]) {
+							if(!tighten(j,lo[j],Math.floor(lo[j]+slack+intTol)))
+								return false;
+							changed=true;
+						} else if(a<0 && Math.ceil(up[j]+slack-intTol)>lo[j]) {
+							if(!tighten(j,Math.ceil(up[j]+slack-intTol),up[j]))
+								return false;
+							changed=true;
+						}
+					}
+					if(lo[j]==up[j])
+						continue;
+					if(ge && maxInf==0) { //a*x_j >= b - (maximum activity of the other terms)
+						double slack=(b-maxAct)/a;
+						if(a>0 && Math.ceil(up[j]+slack-intTol)>lo[j]) {
+							if(!tighten(j,Math.ceil(up[j]+slack-intTol),up[j]))
+								return false;
+							changed=true;
+						} else if(a<0 && Math.floor(lo[j]+slack+intTol)<up[j]) {
+							if(!tighten(j,lo[j],Math.floor(lo[j]+slack+intTol)))
+								return false;
+							changed=true;
+						}
+					}
+				}
+			}
+			if(!changed)
+				break;
+		}
+		return true;
+	}
+
+	/**
+	 * Depth-first branch and bound from the current bounds.
+	 */
+	private void branch() {
+		if(mustStop() || nodes>=nodeLimit)
+			return;
+		nodes++;
+		if(nodes%refreshInterval==0)
+			checkAccuracy();
+		int trailMark=trailSize;
+		if(propagate())
+			solveNode();
+		undoTrail(trailMark);
+	}
+
+	/**
+	 * Solve the LP relaxation of the current node, and branch if its solution is fractional.
+	 */
+	private void solveNode() {
+		if(dualSimplex()!=LpStatus.optimal)
+			return;
+		double bound=currentObjective();
+		if(canPrune(bound))
+			return;
+		//branching variable: the most fractional integer variable
+		int j=-1;
+		double maxFractionality=intTol;
+		for(int k=0;k<nVars;k++) {
+			if(!integer[k])
+				continue;
+			double fractionality=Math.abs(x[k]-Math.rint(x[k]));
+			if(fractionality>maxFractionality) {
+				maxFractionality=fractionality;
+				j=k;
+			}
+		}
+		if(j==-1) { //new incumbent
+			solution=Arrays.copyOf(x,nVars);
+			solutionObj=0;
+			for(int k=0;k<nVars;k++) {
+				if(integer[k])
+					solution[k]=Math.rint(solution[k]);
+				solutionObj+=obj[k]*solution[k];
+			}
+			return;
+		}
+		double v=x[j];
+		double oldLo=lo[j];
+		double oldUp=up[j];
+		boolean upFirst=(v-Math.floor(v))>=0.5;
+		for(int child=0;child<2;child++) {
+			if(upFirst==(child==0))
+				setColumnBounds(j,Math.ceil(v),oldUp);
+			else
+				setColumnBounds(j,oldLo,Math.floor(v));
+			branch();
+			setColumnBounds(j,oldLo,oldUp);
+			if(stopped)
+				return;
+		}
+	}
+
+	/**
+	 * Try to turn the MIP start into an incumbent: the integer variables with a start
+	 * value are fixed, and the remaining ones are determined by a limited search.
+	 */
+	private void tryStart() {
+		boolean hasStart=false;
+		for(int j=0;j<nVars;j++) {
+			if(integer[j] && !Double.isNaN(start[j]))
+				hasStart=true;
+		}
+		if(!hasStart)
+			return;
+		for(int j=0;j<nVars;j++) {
+			if(integer[j] && !Double.isNaN(start[j])) {
+				double v=Math.min(Math.max(Math.rint(start[j]),lb[j]),ub[j]);
+				setColumnBounds(j,v,v);
+			}
+		}
+		nodeLimit=nodes+startNodeLimit;
+		branch();
+		for(int j=0;j<nVars;j++) {
+			if(integer[j] && !Double.isNaN(start[j]))
+				setColumnBounds(j,lb[j],ub[j]);
+		}
+		refreshBasicValues();
+	}
+
+	@Override
+	public boolean optimize() throws MilpException {
+		double limit=timeLimitSec;
+		if(deadline!=null)
+			limit=Math.min(limit,deadline.getRemainingMs()/1000.0);
+		stopped=false;
+		stopAtNs=System.nanoTime()+(long)(Math.min(limit,1e6)*1e9);
+		solution=null;
+		nodes=0;
+		compile();
+		integralObjective=(objOffset==Math.rint(objOffset));
+		for(int j=0;j<nVars;j++) {
+			if(obj[j]!=0 && (!integer[j] || obj[j]!=Math.rint(obj[j])))
+				integralObjective=false;
+		}
+		if(limit<=0) {
+			stopped=true;
+			return false;
+		}
+		initBasis();
+		if(dualSimplex()!=LpStatus.optimal) //infeasible root relaxation, or stopped
+			return false;
+		tryStart();
+		nodeLimit=Long.MAX_VALUE;
+		branch();
+		releaseFactors();
+		return solution!=null;
+	}
+
+	/**
+	 * Release the factors and workspaces of the solver, which are not needed anymore.
+	 */
+	private void releaseFactors() {
+		lFactor=null;
+		uFactor=null;
+		updates=null;
+		alphaRow=null;
+		candidates=null;
+	}
+
+	@Override
+	public boolean wasStopped() {
+		return stopped;
+	}
+
+	@Override
+	public double getValue(int var) throws MilpException {
+		if(solution==null)
+			throw new MilpException("No solution available");
+		if(var>=colOfVar.length || varRemoved[var])
+			throw new MilpException("Variable "+var+" was not part of the solved model");
+		if(colOfVar[var]<0)
+			return varLb[var];
+		return solution[colOfVar[var]];
+	}
+
+	@Override
+	public double getObjValue() throws MilpException {
+		if(solution==null)
+			throw new MilpException("No solution available");
+		return solutionObj+objOffset;
+	}
+
+	@Override
+	public void dispose() {
+		releaseFactors();
+		solution=null;
+	}
+}
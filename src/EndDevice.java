@@ -1,3 +1,4 @@
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -6,9 +7,14 @@ import java.util.Set;
  * also a vertex in the application graph, since a connector may connect a component
  * with an end device.
  */
-public class EndDevice implements ISwNode, IHwNode {
+@SuppressWarnings("serial")
+public class EndDevice implements ISwNode, IHwNode, Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** ID of the end device */
 	private String id;
+	/** Hash code of the end device, derived from its ID */
+	private int hash;
 	/** Set of links incident to the end device (in the infrastructure graph) */
 	private Set<Link> links;
 	/** Set of connectors incident to the end device (in the application graph) */
@@ -20,6 +26,7 @@ public class EndDevice implements ISwNode, IHwNode {
 	 */
 	public EndDevice(String id) {
 		this.id=id;
+		hash=id.hashCode();
 		links=new HashSet<>();
 		connectors=new HashSet<>();
 	}
@@ -66,6 +73,15 @@ public class EndDevice implements ISwNode, IHwNode {
 		return id;
 	}
 
+	/**
+	 * Returns the hash code of the end device. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/**
 	 * From ISwNode interface.
 	 */
@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Runs experiments (see TestDriver.doTest) at the same time on a work-stealing pool. An
+ * experiment is a parameter point, given by a name and a factory creating a TestDriver
+ * with the parameters of the point, and is repeated a given number of times. Each
+ * repetition gets its own TestDriver, whose random generator is seeded with a seed
+ * derived from the seed of the runner, the name of the parameter point and the number of
+ * the repetition. Since the runs share no state, the results of a run (apart from the
+ * measured times) are the same for the same seed, independently of which runs are
+ * executed at the same time and in which order. Each run writes its own result files,
+ * with the name of the parameter point and the number of the repetition as file name
+ * suffix. The measured times are wall-clock times, so they are only undisturbed with a
+ * single worker thread; with more workers, the runs compete for the processors.
+ */
+public class ExperimentRunner {
+	/** The seed from which the seeds of the runs are derived */
+	private long seed;
+	/** The worker threads */
+	private ForkJoinPool pool;
+	/** The submitted runs */
+	private List<Future<Void>> runs;
+
+	/**
+	 * Construct the ExperimentRunner with the given number of worker threads.
+	 */
+	public ExperimentRunner(long seed,int parallelism) {
+		this.seed=seed;
+		pool=new ForkJoinPool(parallelism);
+		runs=new ArrayList<>();
+	}
+
+	/**
+	 * Construct the ExperimentRunner with a single worker thread, so that the runs are
+	 * executed one after the other and their measured times are not disturbed.
+	 */
+	public ExperimentRunner(long seed) {
+		this(seed,1);
+	}
+
+	/**
+	 * Returns the seed of the given repetition of the given parameter point.
+	 */
+	public long getSeed(String name,int repetition) {
+		long key=seed;
+		for(char ch : name.toCharArray())
+			key=new SplittableRandom(key+ch).nextLong();
+		return new SplittableRandom(key+repetition).nextLong();
+	}
+
+	/**
+	 * Submit the given number of repetitions of the parameter point with the given name.
+	 * The factory is called with the seed of each repetition, and must return a new
+	 * TestDriver.
+	 */
+	public void submit(String name,LongFunction<TestDriver> driverFactory,int nrRepetitions) {
+		for(int i=0;i<nrRepetitions;i++) {
+			long runSeed=getSeed(name,i);
+			String fileNameSuffix=name+"_"+i;
+			runs.add(pool.submit(() -> {
+				driverFactory.apply(runSeed).doTest(fileNameSuffix);
+				return null;
+			}));
+		}
+	}
+
+	/**
+	 * Wait until all submitted runs have finished. If a run failed, the exception of the
+	 * first failed run is thrown, after all runs have finished.
+	 */
+	public void awaitAll() throws IOException, InterruptedException {
+		Throwable failure=null;
+		for(Future<Void> run : runs) {
+			try {
+				run.get();
+			} catch(ExecutionException e) {
+				if(failure==null)
+					failure=e.getCause();
+			}
+		}
+		runs.clear();
+		if(failure instanceof IOException)
+			throw (IOException)failure;
+		if(failure instanceof RuntimeException)
+			throw (RuntimeException)failure;
+		if(failure instanceof Error)
+			throw (Error)failure;
+	}
+
+	/**
+	 * Stop the worker threads after the submitted runs have finished.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admission control: cheap necessary conditions for the placement of new components,
+ * checked before the solver is invoked, so that clearly infeasible requests are rejected
+ * without a search. The conditions take into account that the movable components may be
+ * migrated (and their connectors re-routed) within the servers in scope, so a request is
+ * never rejected if a solver could place it. The conditions are:
+ * <ul>
+ * <li>the total CPU and RAM requirement of the new components fits into the total free
+ * capacity of the servers;</li>
+ * <li>bin-packing bound: the new components that are larger than half of the largest
+ * available capacity need pairwise different servers;</li>
+ * <li>each new component has a candidate server: a server with enough available
+ * capacity, from which the end devices and the fixed components connected to the
+ * component can be reached via a path meeting the latency requirement of the connector
+ * and having enough available bandwidth on its bottleneck link.</li>
+ * </ul>
+ */
+public class FeasibilityOracle {
+	/** Tolerance of the capacity comparisons, so that rounding errors never lead to a rejection */
+	private static final double capTol=1e-6;
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** The movable components of the current check */
+	private Set<Component> movableComponents;
+	/** The bandwidth that becomes free on each link if the connectors of the movable components are re-routed; computed only when a path needs it, null before */
+	private Map<Link,Double> reclaimableBandwidth;
+
+	/**
+	 * Constructor.
+	 */
+	public FeasibilityOracle(BookKeeper bookKeeper) {
+		this.bookKeeper=bookKeeper;
+	}
+
+	/**
+	 * Returns false if the new components can certainly not be placed on the given
+	 * servers, with the given components being movable; returns true otherwise.
+	 */
+	public boolean isFeasible(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents) {
+		Set<Server> servers=new HashSet<>(freelyUsableServers);
+		servers.addAll(unpreferredServers);
+		//aggregate capacity
+		double newCpu=0, newRam=0;
+		for(Component c : newComponents) {
+			newCpu+=c.getCpuReq();
+			newRam+=c.getRamReq();
+		}
+		double freeCpu=0, freeRam=0;
+		Map<Server,Double> availableCpu=new HashMap<>(); //capacity that the new components can get if the movable components are migrated
+		Map<Server,Double> availableRam=new HashMap<>();
+		for(Server s : servers) {
+			freeCpu+=bookKeeper.getFreeCpuCap(s);
+			freeRam+=bookKeeper.getFreeRamCap(s);
+			availableCpu.put(s,bookKeeper.getFreeCpuCap(s));
+			availableRam.put(s,bookKeeper.getFreeRamCap(s));
+		}
+		if(newCpu>freeCpu+capTol || newRam>freeRam+capTol)
+			return false;
+		movableComponents=new HashSet<>(fullyControlledComponents);
+		movableComponents.addAll(obtainedComponents);
+		reclaimableBandwidth=null;
+		for(Component c : movableComponents) {
+			Server s=bookKeeper.getHost(c);
+			if(availableCpu.containsKey(s)) {
+				availableCpu.merge(s,c.getCpuReq(),Double::sum);
+				availableRam.merge(s,c.getRamReq(),Double::sum);
+			}
+		}
+		//bin-packing bound, separately for CPU and RAM
+		double[] cpuReqs=new double[newComponents.size()];
+		double[] ramReqs=new double[newComponents.size()];
+		int i=0;
+		for(Component c : newComponents) {
+			cpuReqs[i]=c.getCpuReq();
+			ramReqs[i]=c.getRamReq();
+			i++;
+		}
+		if(!packLargeItems(cpuReqs,availableCpu.values()) || !packLargeItems(ramReqs,availableRam.values()))
+			return false;
+		//candidate server of each new component
+		for(Component c : newComponents) {
+			boolean hasCandidate=false;
+			for(Server s : servers) {
+				if(c.getCpuReq()>availableCpu.get(s)+capTol || c.getRamReq()>availableRam.get(s)+capTol)
+					continue;
+				if(reachesFixedPartners(c,s,newComponents)) {
+					hasCandidate=true;
+					break;
+				}
+			}
+			if(!hasCandidate)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Bin-packing bound: the items larger than half of the largest bin cannot share a bin,
+	 * so the k-th largest of them needs a k-th bin that is at least as large. Returns false
+	 * if this is not possible.
+	 */
+	private static boolean packLargeItems(double[] items,Iterable<Double> bins) {
+		List<Double> sortedBins=new ArrayList<>();
+		for(double bin : bins)
+			sortedBins.add(bin);
+		sortedBins.sort((a,b) -> Double.compare(b,a));
+		double largestBin=sortedBins.isEmpty()?0:sortedBins.get(0);
+		Arrays.sort(items);
+		int k=0; //number of large items processed so far, from the largest one
+		for(int i=items.length-1;i>=0 && (items[i]>largestBin/2 || k==0);i--) {
+			if(items[i]==0)
+				break;
+			if(k>=sortedBins.size() || sortedBins.get(k)+capTol<items[i])
+				return false;
+			k++;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the bandwidth that becomes free on the given link if the connectors of the
+	 * movable components are re-routed. The bandwidth of all links is computed on the
+	 * first call of a check, i.e., only if the free bandwidth of a tested path is not
+	 * enough in itself.
+	 */
+	private double getReclaimableBandwidth(Link link) {
+		if(reclaimableBandwidth==null)
+			reclaimableBandwidth=computeReclaimableBandwidth();
+		return reclaimableBandwidth.getOrDefault(link,0.0);
+	}
+
+	/**
+	 * Returns the bandwidth that becomes free on each link if the connectors of the movable
+	 * components are re-routed.
+	 */
+	private Map<Link,Double> computeReclaimableBandwidth() {
+		Map<Link,Double> reclaimable=new HashMap<>();
+		Set<Connector> connectors=new HashSet<>();
+		for(Component c : movableComponents) {
+			for(Connector conn : c.getConnectors()) {
+				Path p=bookKeeper.getPath(conn);
+				if(p!=null && connectors.add(conn)) {
+					for(Link l : p.getLinks())
+						reclaimable.merge(l,conn.getBwReq(),Double::sum);
+				}
+			}
+		}
+		return reclaimable;
+	}
+
+	/**
+	 * Returns true iff from the given server, each end device and fixed component connected
+	 * to the given new component can be reached via a path that meets the latency
+	 * requirement of the connector and has enough available bandwidth.
+	 */
+	private boolean reachesFixedPartners(Component c,Server s,Set<Component> newComponents) {
+		for(Connector conn : c.getConnectors()) {
+			ISwNode other=conn.getOtherVertex(c);
+			IHwNode otherHost=null;
+			if(other.isEndDevice())
+				otherHost=(EndDevice)other;
+			else if(!newComponents.contains(other) && !movableComponents.contains(other))
+				otherHost=bookKeeper.getHost((Component)other);
+			if(otherHost==null || otherHost==s) //the other end can move too, or no path is needed
+				continue;
+			if(!hasPath(conn,s,otherHost) && !hasPath(conn,otherHost,s))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true iff one of the paths from n1 to n2 meets the latency requirement of the
+	 * given connector, and has enough available bandwidth on its bottleneck link. The
+	 * reclaimable bandwidth of a link is only added if its free bandwidth is not enough.
+	 */
+	private boolean hasPath(Connector conn,IHwNode n1,IHwNode n2) {
+		Set<Path> paths=bookKeeper.getInfra().getPaths(n1,n2);
+		if(paths==null)
+			return false;
+		for(Path p : paths) {
+			if(p.getLatency()>conn.getMaxLatency())
+				continue;
+			boolean enough=true;
+			for(Link l : p.getLinks()) {
+				double available=bookKeeper.getFreeBandwidth(l);
+				if(available+capTol<conn.getBwReq())
+					available+=getReclaimableBandwidth(l);
+				if(available+capTol<conn.getBwReq()) {
+					enough=false;
+					break;
+				}
+			}
+			if(enough)
+				return true;
+		}
+		return false;
+	}
+}
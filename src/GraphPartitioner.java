@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multilevel partitioner for the component graph of an application. Splits a set of
+ * components into k parts of roughly equal resource demand, such that the total
+ * bandwidth requirement of the connectors between different parts (the cut) is small.
+ * The k parts are created by recursive bisection; each bisection coarsens the graph by
+ * heavy-edge matching, bisects the coarsest graph by greedy graph growing, and refines
+ * the bisection on each level while projecting it back to the original graph.
+ */
+public class GraphPartitioner {
+	/** Graphs with at most this many vertices are not coarsened further */
+	private static final int coarsestSize=16;
+	/** Allowed deviation of a part's weight from its target, relative to the total weight */
+	private static final double imbalance=0.1;
+	/** Maximum number of refinement passes on each level */
+	private static final int maxRefinementPasses=4;
+
+	/** Weighted undirected graph used internally. Vertices are numbered 0..n-1 */
+	static class Graph {
+		/** Number of vertices */
+		private int n;
+		/** Weight of each vertex */
+		private double[] weight;
+		/** For each vertex, the adjacent vertices and the weights of the corresponding edges */
+		private List<Map<Integer,Double>> adj;
+
+		/** Construct graph with n vertices of weight 0 and no edges */
+		public Graph(int n) {
+			this.n=n;
+			weight=new double[n];
+			adj=new ArrayList<>();
+			for(int i=0;i<n;i++)
+				adj.add(new HashMap<>());
+		}
+
+		/** Add the given weight to the edge between u and v (creating the edge if needed) */
+		public void addEdge(int u,int v,double w) {
+			if(u==v)
+				return;
+			adj.get(u).merge(v,w,Double::sum);
+			adj.get(v).merge(u,w,Double::sum);
+		}
+
+		/** Total weight of the vertices */
+		public double getTotalWeight() {
+			double total=0;
+			for(double w : weight)
+				total+=w;
+			return total;
+		}
+	}
+
+	/**
+	 * Partition the given components into k parts. The weight of a component is its CPU
+	 * requirement relative to the total CPU requirement plus its RAM requirement relative
+	 * to the total RAM requirement; the weight of a connector between two of the given
+	 * components is its bandwidth requirement. Empty parts are not returned.
+	 */
+	public List<List<Component>> partition(List<Component> components,int k) {
+		int n=components.size();
+		Map<Component,Integer> index=new HashMap<>();
+		double totalCpu=0;
+		double totalRam=0;
+		for(int i=0;i<n;i++) {
+			Component c=components.get(i);
+			index.put(c,i);
+			totalCpu+=c.getCpuReq();
+			totalRam+=c.getRamReq();
+		}
+		Graph g=new Graph(n);
+		for(int i=0;i<n;i++) {
+			Component c=components.get(i);
+			g.weight[i]=(totalCpu>0?c.getCpuReq()/totalCpu:0)+(totalRam>0?c.getRamReq()/totalRam:0)+1e-9; //ensure positive weights
+			for(Connector conn : c.getConnectors()) {
+				Integer j=index.get(conn.getOtherVertex(c));
+				if(j!=null && i<j) //each connector is added once
+					g.addEdge(i,j,conn.getBwReq());
+			}
+		}
+		int[] part=new int[n];
+		int[] vertices=new int[n];
+		for(int i=0;i<n;i++)
+			vertices[i]=i;
+		recursiveBisection(g,vertices,k,0,part);
+		List<List<Component>> result=new ArrayList<>();
+		for(int p=0;p<k;p++)
+			result.add(new ArrayList<>());
+		for(int i=0;i<n;i++)
+			result.get(part[i]).add(components.get(i));
+		result.removeIf(List::isEmpty);
+		return result;
+	}
+
+	/**
+	 * Split the given vertices of g into k parts, numbered from firstPart, and store the
+	 * part numbers in the part array.
+	 */
+	private void recursiveBisection(Graph g,int[] vertices,int k,int firstPart,int[] part) {
+		if(k<=1 || vertices.length<=1) {
+			for(int v : vertices)
+				part[v]=firstPart;
+			return;
+		}
+		int k0=k/2;
+		Graph sub=induce(g,vertices);
+		int[] side=bisect(sub,(double)k0/k);
+		int n0=0;
+		for(int s : side) {
+			if(s==0)
+				n0++;
+		}
+		int[] vertices0=new int[n0];
+		int[] vertices1=new int[vertices.length-n0];
+		int i0=0;
+		int i1=0;
+		for(int i=0;i<vertices.length;i++) {
+			if(side[i]==0)
+				vertices0[i0++]=vertices[i];
+			else
+				vertices1[i1++]=vertices[i];
+		}
+		recursiveBisection(g,vertices0,k0,firstPart,part);
+		recursiveBisection(g,vertices1,k-k0,firstPart+k0,part);
+	}
+
+	/**
+	 * Return the subgraph of g induced by the given vertices; vertex i of the subgraph
+	 * corresponds to vertices[i].
+	 */
+	private static Graph induce(Graph g,int[] vertices) {
+		Map<Integer,Integer> local=new HashMap<>();
+		for(int i=0;i<vertices.length;i++)
+			local.put(vertices[i],i);
+		Graph sub=new Graph(vertices.length);
+		for(int i=0;i<vertices.length;i++) {
+			sub.weight[i]=g.weight[vertices[i]];
+			for(Map.Entry<Integer,Double> e : g.adj.get(vertices[i]).entrySet()) {
+				Integer j=local.get(e.getKey());
+				if(j!=null && i<j)
+					sub.addEdge(i,j,e.getValue());
+			}
+		}
+		return sub;
+	}
+
+	/**
+	 * Bisect g such that side 0 gets approximately the given fraction of the total weight.
+	 * Multilevel scheme: coarsen, bisect the coarse graph recursively, project back and
+	 * refine.
+	 */
+	private int[] bisect(Graph g,double ratio) {
+		if(g.n>coarsestSize) {
+			int[] coarseOf=new int[g.n];
+			Graph coarse=coarsen(g,coarseOf);
+			if(coarse.n<g.n*0.95) { //only continue with the multilevel scheme if coarsening made progress
+				int[] coarseSide=bisect(coarse,ratio);
+				int[] side=new int[g.n];
+				for(int v=0;v<g.n;v++)
+					side[v]=coarseSide[coarseOf[v]];
+				refine(g,side,ratio);
+				return side;
+			}
+		}
+		int[] side=growBisection(g,ratio);
+		refine(g,side,ratio);
+		return side;
+	}
+
+	/**
+	 * Coarsen g by heavy-edge matching: each unmatched vertex is matched with the unmatched
+	 * neighbor connected by the heaviest edge, and matched pairs are merged. If this makes
+	 * too little progress (e.g. in a star, where the leaves have no unmatched neighbor),
+	 * the remaining vertices are additionally matched by two-hop matching. The coarse
+	 * vertex of each vertex of g is stored in coarseOf.
+	 */
+	private static Graph coarsen(Graph g,int[] coarseOf) {
+		int[] match=new int[g.n];
+		for(int v=0;v<g.n;v++)
+			match[v]=-1;
+		int nrPairs=0;
+		for(int v=0;v<g.n;v++) {
+			if(match[v]!=-1)
+				continue;
+			int best=v;
+			double bestWeight=-1;
+			for(Map.Entry<Integer,Double> e : g.adj.get(v).entrySet()) {
+				int u=e.getKey();
+				if(match[u]==-1 && u!=v && e.getValue()>bestWeight) {
+					best=u;
+					bestWeight=e.getValue();
+				}
+			}
+			match[v]=best;
+			match[best]=v;
+			if(best!=v)
+				nrPairs++;
+		}
+		if(nrPairs<g.n*0.05)
+			matchTwoHop(g,match);
+		int nc=0;
+		for(int v=0;v<g.n;v++) {
+			if(match[v]<v)
+				continue; //already merged with its partner
+			coarseOf[v]=nc;
+			coarseOf[match[v]]=nc;
+			nc++;
+		}
+		Graph coarse=new Graph(nc);
+		for(int v=0;v<g.n;v++) {
+			coarse.weight[coarseOf[v]]+=g.weight[v];
+			for(Map.Entry<Integer,Double> e : g.adj.get(v).entrySet()) {
+				if(v<e.getKey())
+					coarse.addEdge(coarseOf[v],coarseOf[e.getKey()],e.getValue());
+			}
+		}
+		return coarse;
+	}
+
+	/**
+	 * Two-hop matching: vertices left unmatched are matched pairwise if their heaviest
+	 * edges lead to the same vertex. Unmatched vertices without edges are matched with
+	 * each other, since merging them does not hide any edge.
+	 */
+	private static void matchTwoHop(Graph g,int[] match) {
+		Map<Integer,Integer> waiting=new HashMap<>(); //common neighbor (-1: none) -> unmatched vertex waiting for a partner
+		for(int v=0;v<g.n;v++) {
+			if(match[v]!=v)
+				continue;
+			int hub=-1;
+			double hubWeight=-1;
+			for(Map.Entry<Integer,Double> e : g.adj.get(v).entrySet()) {
+				if(e.getValue()>hubWeight) {
+					hub=e.getKey();
+					hubWeight=e.getValue();
+				}
+			}
+			Integer partner=waiting.remove(hub);
+			if(partner!=null) {
+				match[v]=partner;
+				match[partner]=v;
+			}
+			else
+				waiting.put(hub,v);
+		}
+	}
+
+	/**
+	 * Compute the weight of the edges of g between different sides.
+	 */
+	private static double getCut(Graph g,int[] side) {
+		double cut=0;
+		for(int v=0;v<g.n;v++) {
+			for(Map.Entry<Integer,Double> e : g.adj.get(v).entrySet()) {
+				if(v<e.getKey() && side[v]!=side[e.getKey()])
+					cut+=e.getValue();
+			}
+		}
+		return cut;
+	}
+
+	/**
+	 * Initial bisection by greedy graph growing: side 0 is grown from a seed vertex by
+	 * repeatedly adding the vertex whose move decreases the cut most, until side 0 has
+	 * the desired weight. Several seed vertices are tried, and the best result is kept.
+	 */
+	private static int[] growBisection(Graph g,double ratio) {
+		double target=ratio*g.getTotalWeight();
+		int[] best=null;
+		double bestCut=Double.POSITIVE_INFINITY;
+		int nrSeeds=Math.min(4,g.n);
+		for(int s=0;s<nrSeeds;s++) {
+			int seed=s*g.n/nrSeeds;
+			int[] side=new int[g.n];
+			for(int v=0;v<g.n;v++)
+				side[v]=1;
+			double[] gain=new double[g.n]; //weight of edges to side 0 minus weight of edges to side 1
+			for(int v=0;v<g.n;v++) {
+				for(double w : g.adj.get(v).values())
+					gain[v]-=w;
+			}
+			double weight0=0;
+			int next=seed;
+			while(next!=-1 && weight0+g.weight[next]/2<=target) {
+				side[next]=0;
+				weight0+=g.weight[next];
+				for(Map.Entry<Integer,Double> e : g.adj.get(next).entrySet())
+					gain[e.getKey()]+=2*e.getValue();
+				//choose the next vertex: the one on side 1 with the highest gain
+				next=-1;
+				for(int v=0;v<g.n;v++) {
+					if(side[v]==1 && (next==-1 || gain[v]>gain[next]))
+						next=v;
+				}
+			}
+			double cut=getCut(g,side);
+			if(cut<bestCut) {
+				bestCut=cut;
+				best=side;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Improve the bisection by moving single boundary vertices to the other side as long
+	 * as this decreases the cut and keeps the weights of the sides within the allowed
+	 * imbalance (Fiduccia-Mattheyses style, without tentative moves).
+	 */
+	private static void refine(Graph g,int[] side,double ratio) {
+		double total=g.getTotalWeight();
+		double target0=ratio*total;
+		double slack=imbalance*total;
+		double weight0=0;
+		for(int v=0;v<g.n;v++) {
+			if(side[v]==0)
+				weight0+=g.weight[v];
+		}
+		for(int pass=0;pass<maxRefinementPasses;pass++) {
+			boolean improved=false;
+			for(int v=0;v<g.n;v++) {
+				double internal=0;
+				double external=0;
+				for(Map.Entry<Integer,Double> e : g.adj.get(v).entrySet()) {
+					if(side[e.getKey()]==side[v])
+						internal+=e.getValue();
+					else
+						external+=e.getValue();
+				}
+				if(external<=internal)
+					continue;
+				double newWeight0=(side[v]==0)?weight0-g.weight[v]:weight0+g.weight[v];
+				if(Math.abs(newWeight0-target0)>slack && Math.abs(newWeight0-target0)>=Math.abs(weight0-target0))
+					continue; //the move would violate the balance
+				side[v]=1-side[v];
+				weight0=newWeight0;
+				improved=true;
+			}
+			if(!improved)
+				break;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import gurobi.GRB;
+import gurobi.GRBCallback;
+import gurobi.GRBConstr;
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import gurobi.GRBLinExpr;
+import gurobi.GRBModel;
+import gurobi.GRBVar;
+
+/**
+ * IMilpModel backed by Gurobi. Only referenced by reflection (see MilpBackend), so that
+ * this is the only class that needs the Gurobi library at compile time.
+ */
+public class GurobiMilpModel implements IMilpModel {
+	/** Gurobi environment */
+	private GRBEnv env;
+	/** Gurobi model */
+	private GRBModel model;
+	/** The variables, in the order of their indices; null for removed ones */
+	private List<GRBVar> vars;
+	/** The constraints, in the order of their indices; null for removed ones */
+	private List<GRBConstr> constrs;
+	/** Indices of the variables that have a value in the MIP start */
+	private List<Integer> startVars;
+	/** Time limit in seconds */
+	private double timeLimitSec;
+	/** Deadline of the optimization, or null */
+	private Deadline deadline;
+	/** Whether the last optimization has been stopped because of the time limit or the deadline */
+	private boolean stopped;
+
+	/**
+	 * Construct empty model.
+	 */
+	public GurobiMilpModel() throws MilpException {
+		try {
+			env=new GRBEnv("milp.log");
+			env.set(GRB.IntParam.LogToConsole,0);
+			model=new GRBModel(env);
+		} catch(GRBException e) {
+			throw new MilpException("Could not create Gurobi model",e);
+		}
+		vars=new ArrayList<>();
+		constrs=new ArrayList<>();
+		startVars=new ArrayList<>();
+		timeLimitSec=GRB.INFINITY;
+		deadline=null;
+	}
+
+	@Override
+	public int addVar(double lb,double ub,double obj,boolean integer,String name) throws MilpException {
+		char type=GRB.CONTINUOUS;
+		if(integer)
+			type=(lb>=0 && ub<=1)?GRB.BINARY:GRB.INTEGER;
+		try {
+			vars.add(model.addVar(Math.max(lb,-GRB.INFINITY),Math.min(ub,GRB.INFINITY),obj,type,name));
+		} catch(GRBException e) {
+			throw new MilpException("Could not add variable "+name,e);
+		}
+		return vars.size()-1;
+	}
+
+	@Override
+	public int addConstr(LinExpr expr,Sense sense,double rhs,String name) throws MilpException {
+		GRBLinExpr grbExpr=new GRBLinExpr();
+		for(int i=0;i<expr.size();i++)
+			grbExpr.addTerm(expr.getCoef(i),vars.get(expr.getVar(i)));
+		char grbSense=GRB.EQUAL;
+		if(sense==Sense.lessEqual)
+			grbSense=GRB.LESS_EQUAL;
+		if(sense==Sense.greaterEqual)
+			grbSense=GRB.GREATER_EQUAL;
+		try {
+			constrs.add(model.addConstr(grbExpr,grbSense,rhs-expr.getConstant(),name));
+		} catch(GRBException e) {
+			throw new MilpException("Could not add constraint "+name,e);
+		}
+		return constrs.size()-1;
+	}
+
+	@Override
+	public void removeVar(int var) throws MilpException {
+		try {
+			model.remove(vars.get(var));
+		} catch(GRBException e) {
+			throw new MilpException("Could not remove variable",e);
+		}
+		vars.set(var,null);
+	}
+
+	@Override
+	public void removeConstr(int constr) throws MilpException {
+		try {
+			model.remove(constrs.get(constr));
+		} catch(GRBException e) {
+			throw new MilpException("Could not remove constraint",e);
+		}
+		constrs.set(constr,null);
+	}
+
+	@Override
+	public void setRhs(int constr,double rhs) throws MilpException {
+		try {
+			constrs.get(constr).set(GRB.DoubleAttr.RHS,rhs);
+		} catch(GRBException e) {
+			throw new MilpException("Could not set right-hand side",e);
+		}
+	}
+
+	@Override
+	public void changeCoeff(int constr,int var,double coef) throws MilpException {
+		try {
+			model.chgCoeff(constrs.get(constr),vars.get(var),coef);
+		} catch(GRBException e) {
+			throw new MilpException("Could not change coefficient",e);
+		}
+	}
+
+	@Override
+	public void setBounds(int var,double lb,double ub) throws MilpException {
+		try {
+			vars.get(var).set(GRB.DoubleAttr.LB,Math.max(lb,-GRB.INFINITY));
+			vars.get(var).set(GRB.DoubleAttr.UB,Math.min(ub,GRB.INFINITY));
+		} catch(GRBException e) {
+			throw new MilpException("Could not set bounds",e);
+		}
+	}
+
+	@Override
+	public void setStart(int var,double value) throws MilpException {
+		try {
+			vars.get(var).set(GRB.DoubleAttr.Start,value);
+		} catch(GRBException e) {
+			throw new MilpException("Could not set start value",e);
+		}
+		startVars.add(var);
+	}
+
+	@Override
+	public void clearStart() throws MilpException {
+		try {
+			for(int var : startVars) {
+				if(vars.get(var)!=null)
+					vars.get(var).set(GRB.DoubleAttr.Start,GRB.UNDEFINED);
+			}
+		} catch(GRBException e) {
+			throw new MilpException("Could not clear start values",e);
+		}
+		startVars.clear();
+	}
+
+	@Override
+	public void setCutoff(double cutoff) throws MilpException {
+		try {
+			model.getEnv().set(GRB.DoubleParam.Cutoff,Math.min(cutoff,GRB.INFINITY));
+		} catch(GRBException e) {
+			throw new MilpException("Could not set cutoff",e);
+		}
+	}
+
+	@Override
+	public void setTimeLimit(double seconds) {
+		timeLimitSec=seconds;
+	}
+
+	@Override
+	public void setDeadline(Deadline deadline) {
+		this.deadline=deadline;
+	}
+
+	@Override
+	public boolean optimize() throws MilpException {
+		double limit=timeLimitSec;
+		if(deadline!=null)
+			limit=Math.min(limit,deadline.getRemainingMs()/1000.0);
+		stopped=false;
+		if(limit<=0) {
+			stopped=true;
+			return false;
+		}
+		try {
+			model.getEnv().set(GRB.DoubleParam.TimeLimit,limit);
+			if(deadline!=null) {
+				model.setCallback(new GRBCallback() { //cooperative cancellation
+					@Override
+					protected void callback() {
+						if(deadline.isCancelled())
+							abort();
+					}
+				});
+			}
+			model.optimize();
+			int status=model.get(GRB.IntAttr.Status);
+			stopped=(status==GRB.Status.TIME_LIMIT || status==GRB.Status.INTERRUPTED);
+			return model.get(GRB.IntAttr.SolCount)>0;
+		} catch(GRBException e) {
+			throw new MilpException("Gurobi optimization failed",e);
+		}
+	}
+
+	@Override
+	public boolean wasStopped() {
+		return stopped;
+	}
+
+	@Override
+	public double getValue(int var) throws MilpException {
+		try {
+			return vars.get(var).get(GRB.DoubleAttr.X);
+		} catch(GRBException e) {
+			throw new MilpException("Could not retrieve value",e);
+		}
+	}
+
+	@Override
+	public double getObjValue() throws MilpException {
+		try {
+			return model.get(GRB.DoubleAttr.ObjVal);
+		} catch(GRBException e) {
+			throw new MilpException("Could not retrieve objective value",e);
+		}
+	}
+
+	@Override
+	public void dispose() throws MilpException {
+		try {
+			model.dispose();
+			env.dispose();
+		} catch(GRBException e) {
+			throw new MilpException("Could not dispose Gurobi model",e);
+		}
+	}
+}
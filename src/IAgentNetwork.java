@@ -0,0 +1,23 @@
+/**
+ * The environment of a colony agent: the information shared by all agents, and the
+ * transport of the messages between them. Implemented by AgentSystem for agents in
+ * the same JVM, and by ColonyProcess for agents in separate processes.
+ */
+public interface IAgentNetwork {
+	/**
+	 * Return the common numbering of infrastructure and application elements.
+	 */
+	public AgentCatalog getCatalog();
+	/**
+	 * Return the statistics of the messages sent by the agents.
+	 */
+	public MessageStats getStats();
+	/**
+	 * Return the number of the colony owning the given server.
+	 */
+	public int getOwner(Server s);
+	/**
+	 * Deliver a message, in binary form, to the agent of the given colony.
+	 */
+	public void deliver(int receiver,byte[] message);
+}
@@ -1,10 +1,11 @@
+import java.io.Serializable;
 import java.util.Set;
 
 /**
  * Represents a node in the infrastructure graph.
  * Common abstraction for servers (i.e., fog nodes and the cloud) and end devices.
  */
-public interface IHwNode {
+public interface IHwNode extends Serializable {
 	/**
 	 * Return the ID of the node.
 	 */
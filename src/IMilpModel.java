@@ -0,0 +1,107 @@
+/**
+ * Interface of mixed-integer linear programs, independent of the solver that is used
+ * to solve them. The objective is always minimized. Variables and constraints are
+ * identified by consecutive indices starting from 0, in the order of their creation.
+ * The model may be modified between calls to optimize(), so that a long-lived model
+ * can be kept up to date incrementally; indices of removed variables and constraints
+ * are not reused.
+ */
+public interface IMilpModel {
+	/** Possible senses of a constraint */
+	enum Sense {lessEqual, equal, greaterEqual}
+
+	/**
+	 * Add a variable with the given bounds and objective coefficient, and return its
+	 * index. Use Double.POSITIVE_INFINITY / Double.NEGATIVE_INFINITY for missing bounds.
+	 */
+	int addVar(double lb,double ub,double obj,boolean integer,String name) throws MilpException;
+
+	/**
+	 * Add the constraint expr (sense) rhs, and return its index. The constant of the
+	 * expression is moved to the right-hand side. The terms are copied, so the expression
+	 * may be reused afterwards.
+	 */
+	int addConstr(LinExpr expr,Sense sense,double rhs,String name) throws MilpException;
+
+	/**
+	 * Remove the given variable, together with its coefficients in all constraints.
+	 */
+	void removeVar(int var) throws MilpException;
+
+	/**
+	 * Remove the given constraint.
+	 */
+	void removeConstr(int constr) throws MilpException;
+
+	/**
+	 * Set the right-hand side of the given constraint.
+	 */
+	void setRhs(int constr,double rhs) throws MilpException;
+
+	/**
+	 * Set the coefficient of the given variable in the given constraint; a coefficient
+	 * of 0 removes the variable from the constraint.
+	 */
+	void changeCoeff(int constr,int var,double coef) throws MilpException;
+
+	/**
+	 * Set the bounds of the given variable.
+	 */
+	void setBounds(int var,double lb,double ub) throws MilpException;
+
+	/**
+	 * Set the value of the given variable in the MIP start, i.e., in the (possibly partial)
+	 * solution the solver should try first.
+	 */
+	void setStart(int var,double value) throws MilpException;
+
+	/**
+	 * Discard all values of the MIP start.
+	 */
+	void clearStart() throws MilpException;
+
+	/**
+	 * Set a cutoff: only solutions with objective value at most the given value are of
+	 * interest, so the solver may discard the parts of the search space that cannot
+	 * contain such a solution. If there is no such solution, optimize() returns false.
+	 * Double.POSITIVE_INFINITY removes the cutoff.
+	 */
+	void setCutoff(double cutoff) throws MilpException;
+
+	/**
+	 * Set the time limit of the optimization in seconds.
+	 */
+	void setTimeLimit(double seconds) throws MilpException;
+
+	/**
+	 * Set a deadline; the optimization stops as soon as possible after it has expired.
+	 */
+	void setDeadline(Deadline deadline) throws MilpException;
+
+	/**
+	 * Solve the model. Returns true iff a feasible solution has been found (not
+	 * necessarily an optimal one if the optimization was stopped early).
+	 */
+	boolean optimize() throws MilpException;
+
+	/**
+	 * Returns true iff the last call to optimize() was stopped by the time limit or
+	 * the deadline before the search was complete.
+	 */
+	boolean wasStopped();
+
+	/**
+	 * Value of the given variable in the best solution found by the last call to optimize().
+	 */
+	double getValue(int var) throws MilpException;
+
+	/**
+	 * Objective value of the best solution found.
+	 */
+	double getObjValue() throws MilpException;
+
+	/**
+	 * Release the resources of the model.
+	 */
+	void dispose() throws MilpException;
+}
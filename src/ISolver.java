@@ -3,7 +3,9 @@ import java.util.Set;
 public interface ISolver {
 
 	/**
-	 * Perform an optimization run, trying to place the new components.
+	 * Perform an optimization run, trying to place the new components. The run stops
+	 * as soon as the given deadline expires; in that case, the changes made by the run
+	 * are undone and the returned Result reports the timeout.
 	 */
 	public Result optimize(
 			Set<Server> freelyUsableServers, //servers that should be preferred for placement
@@ -13,6 +15,7 @@ public interface ISolver {
 			Set<Component> obtainedComponents, //already placed components that we got from another colony and hence must not forward it to a third colony
 			Set<Component> readOnlyComponents, //already placed components in a neighboring colony that have a connector to a component in our colony
 			Colony ourColony,
-			Conductor.ModeType mode);
+			Conductor.ModeType mode,
+			Deadline deadline);
 
 }
@@ -1,10 +1,11 @@
+import java.io.Serializable;
 import java.util.Set;
 
 /**
  * Represents a vertex in the application graph.
  * Common abstraction for components and end devices.
  */
-public interface ISwNode {
+public interface ISwNode extends Serializable {
 	/**
 	 * Return the ID of the node.
 	 */
@@ -1,3 +1,4 @@
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -6,12 +7,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
 
 /**
  * Represents the hardware infrastructure, from cloud through fog nodes to end devices.
  */
-public class Infrastructure {
+@SuppressWarnings("serial")
+public class Infrastructure implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** Set of all infrastructure nodes */
 	private Set<IHwNode> nodes;
 	/** Set of all servers, i.e., fog nodes and cloud */
@@ -78,12 +83,12 @@ public class Infrastructure {
 	 * Determine some paths for each pair of infrastructure nodes. The method aims
 	 * at finding k different paths for each (directed) pair of nodes, but some of 
 	 * those paths may be the same, so the result is at most k paths for each pair 
-	 * of nodes.
+	 * of nodes. The paths are randomized with the given random generator.
 	 */
-	public void determinePaths(int k) {
+	public void determinePaths(int k,Random random) {
 		for(IHwNode node : nodes) {
 			for(int i=0;i<k;i++) {
-				determinePathsFromNode(node);
+				determinePathsFromNode(node,random);
 			}
 		}
 		prunePaths();
@@ -108,7 +113,7 @@ public class Infrastructure {
 	 * Determine a short path from the start node to all other infrastructure nodes
 	 * using a randomized BFS. The results are stored in the {@link #paths} field.
 	 */
-	private void determinePathsFromNode(IHwNode start) {
+	private void determinePathsFromNode(IHwNode start,Random random) {
 		//perform BFS
 		Map<IHwNode,Link> visitedThrough=new HashMap<>(); //need this for being able to retrieve the paths
 		visitedThrough.put(start, null);
@@ -117,7 +122,7 @@ public class Infrastructure {
 		while(!toVisit.isEmpty()) {
 			IHwNode node=toVisit.poll();
 			List<Link> links=new ArrayList<Link>(node.getLinks());
-			Collections.shuffle(links); //randomize so that different runs may lead to different paths
+			Collections.shuffle(links,random); //randomize so that different seeds may lead to different paths
 			for(Link link : links) {
 				IHwNode node2=link.getOtherNode(node);
 				if(!nodes.contains(node2))
@@ -148,6 +153,35 @@ public class Infrastructure {
 		}
 	}
 
+	/**
+	 * Determine the distance (number of links) of each node from the nearest one of
+	 * the given source nodes, using a BFS started from all sources at once. The BFS only
+	 * traverses the allowed nodes. Nodes that cannot be reached from any source are not
+	 * contained in the returned map.
+	 */
+	public Map<IHwNode,Integer> getHopDistances(Set<? extends IHwNode> sources,Set<IHwNode> allowedNodes) {
+		Map<IHwNode,Integer> distance=new HashMap<>();
+		Queue<IHwNode> toVisit=new LinkedList<>();
+		for(IHwNode source : sources) {
+			if(allowedNodes.contains(source) && !distance.containsKey(source)) {
+				distance.put(source,0);
+				toVisit.offer(source);
+			}
+		}
+		while(!toVisit.isEmpty()) {
+			IHwNode node=toVisit.poll();
+			int dist=distance.get(node);
+			for(Link link : node.getLinks()) {
+				IHwNode node2=link.getOtherNode(node);
+				if(allowedNodes.contains(node2) && !distance.containsKey(node2)) {
+					distance.put(node2,dist+1);
+					toVisit.offer(node2);
+				}
+			}
+		}
+		return distance;
+	}
+
 	/**
 	 * Remove duplicate paths in the {@link #paths} field.
 	 */
@@ -173,7 +207,7 @@ public class Infrastructure {
 
 	/**
 	 * Returns the set of available paths between the given pair of nodes. Before 
-	 * calling this method, the method {@link #determinePaths(int)} must have been 
+	 * calling this method, the method {@link #determinePaths(int,Random)} must have been 
 	 * called.
 	 */
 	public Set<Path> getPaths(IHwNode n1, IHwNode n2) {
@@ -182,7 +216,7 @@ public class Infrastructure {
 
 	/**
 	 * Returns the set of all available paths . Before calling this method, the 
-	 * method {@link #determinePaths(int)} must have been called.
+	 * method {@link #determinePaths(int,Random)} must have been called.
 	 */
 	public Set<Path> getAllPaths() {
 		return allPaths;
@@ -190,7 +224,7 @@ public class Infrastructure {
 
 	/**
 	 * Returns the set of available paths containing the given link. Before calling 
-	 * this method, the method {@link #determinePaths(int)} must have been called.
+	 * this method, the method {@link #determinePaths(int,Random)} must have been called.
 	 */
 	public Set<Path> getPathsOfLink(Link l) {
 		return pathsOfLink.get(l);
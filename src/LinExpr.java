@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/**
+ * Linear expression over the variables of an IMilpModel, i.e., a sum of terms of the
+ * form coefficient*variable plus a constant. Variables are identified by the indices
+ * returned by {@link IMilpModel#addVar}. The terms are stored in primitive arrays that
+ * grow as needed, so that an expression can be built without allocating an object per
+ * term; after {@link #clear()}, the expression can be reused.
+ */
+public class LinExpr {
+	/** Variable indices of the terms */
+	private int[] vars;
+	/** Coefficients of the terms */
+	private double[] coefs;
+	/** Number of terms */
+	private int size;
+	/** Constant part of the expression */
+	private double constant;
+
+	/**
+	 * Construct empty expression.
+	 */
+	public LinExpr() {
+		this(8);
+	}
+
+	/**
+	 * Construct empty expression with room for the given number of terms.
+	 */
+	public LinExpr(int capacity) {
+		vars=new int[Math.max(capacity,1)];
+		coefs=new double[Math.max(capacity,1)];
+		size=0;
+		constant=0;
+	}
+
+	/**
+	 * Add the term coef*var to the expression.
+	 */
+	public void addTerm(double coef,int var) {
+		if(size==vars.length) {
+			vars=Arrays.copyOf(vars,2*size);
+			coefs=Arrays.copyOf(coefs,2*size);
+		}
+		vars[size]=var;
+		coefs[size]=coef;
+		size++;
+	}
+
+	/**
+	 * Add the given value to the constant part of the expression.
+	 */
+	public void addConstant(double value) {
+		constant+=value;
+	}
+
+	/**
+	 * Remove all terms and the constant, so that the expression can be reused.
+	 */
+	public void clear() {
+		size=0;
+		constant=0;
+	}
+
+	/** Number of terms */
+	public int size() {
+		return size;
+	}
+
+	/** Variable index of the i-th term */
+	public int getVar(int i) {
+		return vars[i];
+	}
+
+	/** Coefficient of the i-th term */
+	public double getCoef(int i) {
+		return coefs[i];
+	}
+
+	/** Constant part of the expression */
+	public double getConstant() {
+		return constant;
+	}
+}
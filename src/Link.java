@@ -1,9 +1,15 @@
+import java.io.Serializable;
+
 /**
  * Represents a link between two infrastructure nodes.
  */
-public class Link {
+public class Link implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** Unique ID of the link */
 	private String id;
+	/** Hash code of the link, derived from its ID */
+	private int hash;
 	/** Bandwidth of the link */
 	private double bw;
 	/** Latency of the link */
@@ -15,6 +21,7 @@ public class Link {
 	 * Construct a new link with the given fields. The ID is generated automatically. 
 	 * The link is also added to the set of incident links of the two nodes.
 	 */
+	@SuppressWarnings("this-escape")
 	public Link(double bw, double latency, IHwNode v1, IHwNode v2) {
 		id=v1.getId()+"-"+v2.getId();
 		boolean idAlreadyExists;
@@ -29,6 +36,7 @@ public class Link {
 			if(idAlreadyExists)
 				id=id+"'";
 		} while(idAlreadyExists);
+		hash=id.hashCode();
 		this.bw = bw;
 		this.latency = latency;
 		this.v1=v1;
@@ -84,4 +92,13 @@ public class Link {
 	public String getId() {
 		return id;
 	}
+
+	/**
+	 * Returns the hash code of the link. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
 }
@@ -5,18 +5,22 @@ import java.util.Random;
  * Main class to start an experiment.
  */
 public class Main {
-	/** Random generator that can be used by any class in the program */
-	public static Random random;
-
 	/**
-	 * Main method.
+	 * Main method. The optional first argument is the seed of the experiments; the same
+	 * seed leads to the same results. The optional second argument is the number of runs
+	 * executed at the same time (1 by default, since more disturb the measured times).
 	 */
-	public static void main(String[] args) throws IOException {
-		random=new Random();
-		TestDriver testDriver;
-		//testDriver=new TestSynthetic();
-		testDriver=new TestReal();
-		for(int i=0;i<10;i++)
-			testDriver.doTest("_"+i);
+	public static void main(String[] args) throws IOException, InterruptedException {
+		long seed=(args.length>0)?Long.parseLong(args[0]):new Random().nextLong();
+		int parallelism=(args.length>1)?Integer.parseInt(args[1]):1;
+		System.out.println("seed: "+seed);
+		ExperimentRunner runner=new ExperimentRunner(seed,parallelism);
+		//runner.submit("",TestSynthetic::new,10);
+		runner.submit("",TestReal::new,10);
+		//parameter points are submitted the same way, e.g.:
+		//for(int nrRegions : new int[] {5,10})
+		//	runner.submit("_r"+nrRegions,s -> {TestDriver d=new TestReal(s); d.nrRegions=nrRegions; return d;},10);
+		runner.awaitAll();
+		runner.shutdown();
 	}
 }
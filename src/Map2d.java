@@ -1,10 +1,14 @@
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Utility class that implements a map with a 2-dimensional key.
  */
-public class Map2d<K1,K2,V> {
+@SuppressWarnings("serial")
+public class Map2d<K1,K2,V> implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 
 	/** Internal data structure */
 	private Map<K1,Map<K2,V>> data;
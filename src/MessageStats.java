@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the messages between colony agents: number and total size of the
+ * messages, and the round-trip times of the requests (from sending the request to
+ * receiving the reply). Messages of an agent to itself are not counted. Can be updated
+ * from several threads.
+ */
+public class MessageStats {
+	/** Number of messages */
+	private AtomicLong nrMessages;
+	/** Total size of the messages in bytes */
+	private AtomicLong nrBytes;
+	/** Number of requests answered */
+	private AtomicLong nrRoundTrips;
+	/** Total round-trip time of the requests in nanoseconds */
+	private AtomicLong totalRoundTripNs;
+	/** Maximum round-trip time of a request in nanoseconds */
+	private AtomicLong maxRoundTripNs;
+
+	/**
+	 * Construct empty statistics.
+	 */
+	public MessageStats() {
+		nrMessages=new AtomicLong();
+		nrBytes=new AtomicLong();
+		nrRoundTrips=new AtomicLong();
+		totalRoundTripNs=new AtomicLong();
+		maxRoundTripNs=new AtomicLong();
+	}
+
+	/**
+	 * Record a message of the given size.
+	 */
+	public void recordMessage(int bytes) {
+		nrMessages.incrementAndGet();
+		nrBytes.addAndGet(bytes);
+	}
+
+	/**
+	 * Record a request answered in the given time.
+	 */
+	public void recordRoundTrip(long ns) {
+		nrRoundTrips.incrementAndGet();
+		totalRoundTripNs.addAndGet(ns);
+		maxRoundTripNs.accumulateAndGet(ns,Math::max);
+	}
+
+	/** Returns the number of messages */
+	public long getNrMessages() {
+		return nrMessages.get();
+	}
+
+	/** Returns the total size of the messages in bytes */
+	public long getNrBytes() {
+		return nrBytes.get();
+	}
+
+	/** Returns the number of requests answered */
+	public long getNrRoundTrips() {
+		return nrRoundTrips.get();
+	}
+
+	/** Returns the average round-trip time in milliseconds (0 if there was no request) */
+	public double getAvgRoundTripMs() {
+		long n=nrRoundTrips.get();
+		return (n==0)?0:totalRoundTripNs.get()/1e6/n;
+	}
+
+	/** Returns the maximum round-trip time in milliseconds */
+	public double getMaxRoundTripMs() {
+		return maxRoundTripNs.get()/1e6;
+	}
+
+	/**
+	 * Return string representation.
+	 */
+	public String toString() {
+		return ""+getNrMessages()+";"+getNrBytes()+";"+getNrRoundTrips()+";"+getAvgRoundTripMs()+";"+getMaxRoundTripMs();
+	}
+}
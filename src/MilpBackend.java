@@ -0,0 +1,53 @@
+/**
+ * The available solvers for IMilpModel. The Gurobi backend is loaded by reflection, so
+ * that the rest of the code base can be compiled and run without the Gurobi library;
+ * the default backend is Gurobi if it can be loaded, and the embedded one otherwise.
+ */
+public enum MilpBackend {
+	/** Pure-Java LP-based branch and bound, see EmbeddedMilpModel */
+	embedded,
+	/** Gurobi, see GurobiMilpModel; requires the Gurobi library and license */
+	gurobi;
+
+	/**
+	 * Holder of the default backend, determined when it is first needed.
+	 */
+	private static class DefaultBackend {
+		/** Gurobi if it is available, otherwise the embedded backend */
+		private static final MilpBackend backend=gurobi.isAvailable()?gurobi:embedded;
+	}
+
+	/**
+	 * Returns the default backend: Gurobi if its library and license are available,
+	 * otherwise the embedded backend.
+	 */
+	public static MilpBackend getDefault() {
+		return DefaultBackend.backend;
+	}
+
+	/**
+	 * Returns true iff models can be created with this backend, which is checked by
+	 * creating and releasing an empty model.
+	 */
+	public boolean isAvailable() {
+		try {
+			createModel().dispose();
+			return true;
+		} catch(MilpException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create a new, empty model using this backend.
+	 */
+	public IMilpModel createModel() throws MilpException {
+		if(this==embedded)
+			return new EmbeddedMilpModel();
+		try {
+			return (IMilpModel)Class.forName("GurobiMilpModel").getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException | LinkageError e) {
+			throw new MilpException("Gurobi backend not available",e);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Exception signalling that a MILP backend could not build or solve a model.
+ */
+public class MilpException extends Exception {
+	private static final long serialVersionUID=1L;
+
+	/**
+	 * Construct exception with the given message.
+	 */
+	public MilpException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Construct exception with the given message and cause.
+	 */
+	public MilpException(String message,Throwable cause) {
+		super(message,cause);
+	}
+}
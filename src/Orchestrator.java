@@ -3,18 +3,10 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import gurobi.GRB;
-import gurobi.GRB.IntAttr;
-import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
-
 /**
  * ILP-based orchestrator. Solves the optimization problem by transforming it to an
- * integer program using the Gurobi interface, letting Gurobi solve the problem, and
- * then converting Gurobi's solution to a solution of the original problem.
+ * integer program, letting an ILP solver (Gurobi if available) solve the problem, and
+ * then converting the solver's solution to a solution of the original problem.
  */
 public class Orchestrator {
 	private Infrastructure infra;
@@ -25,8 +17,14 @@ public class Orchestrator {
 	private static final double nu=10;
 	private Colony colony;
 	private int coordModel;
+	private MilpBackend backend;
 
 	public Orchestrator(Infrastructure infra, int coordModel) {
+		this(infra,coordModel,MilpBackend.getDefault());
+	}
+
+	public Orchestrator(Infrastructure infra, int coordModel, MilpBackend backend) {
+		this.backend=backend;
 		this.infra=infra;
 		components=new HashSet<>();
 		compMapping=new HashMap<>();
@@ -82,12 +80,11 @@ public class Orchestrator {
 		//System.out.println("Preparations finished: "+(System.currentTimeMillis()-t));
 		//t=System.currentTimeMillis();
 		//creating variables
-		Map2d<ISwNode,IHwNode,GRBVar> x=new Map2d<>();
-		Map2d<Connector,Path,GRBVar> y=new Map2d<>();
-		Map<Component,GRBVar> z=new HashMap<>();
+		Map2d<ISwNode,IHwNode,Integer> x=new Map2d<>();
+		Map2d<Connector,Path,Integer> y=new Map2d<>();
+		Map<Component,Integer> z=new HashMap<>();
 		try {
-			GRBEnv env=new GRBEnv("milp.log");
-			GRBModel model=new GRBModel(env);
+			IMilpModel model=backend.createModel();
 			for(ISwNode sn : allSwNodes) {
 				for(IHwNode hn : allHwNodes) {
 					double objWeight=0;
@@ -95,7 +92,7 @@ public class Orchestrator {
 						objWeight=mu;
 					if(coordModel==4 && colony.isShared(hn))
 						objWeight=nu;
-					GRBVar var=model.addVar(0,1,objWeight,GRB.BINARY,"x_"+sn.getId()+"_"+hn.getId());
+					int var=model.addVar(0,1,objWeight,true,"x_"+sn.getId()+"_"+hn.getId());
 					x.put(sn,hn,var);
 				}
 			}
@@ -103,54 +100,54 @@ public class Orchestrator {
 			//System.out.println("allPaths: "+allPaths);
 			for(Connector conn : allConnectors) {
 				for(Path path : allPaths) {
-					GRBVar var=model.addVar(0,1,0,GRB.BINARY,"y_"+conn.getId()+"_"+path.getId());
+					int var=model.addVar(0,1,0,true,"y_"+conn.getId()+"_"+path.getId());
 					y.put(conn,path,var);
 				}
 			}
 			for(Component comp : components) {
-				GRBVar var=model.addVar(0,1,1,GRB.BINARY,"z_"+comp.getId());//part of obj. function with coeff. 1
+				int var=model.addVar(0,1,1,true,"z_"+comp.getId());//part of obj. function with coeff. 1
 				z.put(comp, var);
 			}
 			//System.out.println("Variables created: "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(9)-(10) each component on exactly one server and on no end device
 			for(Component comp : allComponents) {
-				GRBLinExpr expr = new GRBLinExpr();
+				LinExpr expr = new LinExpr();
 				for(Server s : infra.getServers()) {
-					GRBVar var=x.get(comp,s);
+					int var=x.get(comp,s);
 					expr.addTerm(1,var);
 				}
-				model.addConstr(expr,GRB.EQUAL,1,"Exactly1_"+comp.getId());
+				model.addConstr(expr,IMilpModel.Sense.equal,1,"Exactly1_"+comp.getId());
 				for(EndDevice dev : infra.getEndDevices()) {
-					expr = new GRBLinExpr();
-					GRBVar var=x.get(comp,dev);
+					expr = new LinExpr();
+					int var=x.get(comp,dev);
 					expr.addTerm(1,var);
-					model.addConstr(expr,GRB.EQUAL,0,"Surely0_"+comp.getId()+"_"+dev.getId());
+					model.addConstr(expr,IMilpModel.Sense.equal,0,"Surely0_"+comp.getId()+"_"+dev.getId());
 				}
 			}
 			//System.out.println("(9)-(10): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(11) each connector on exactly one path
 			for(Connector conn : allConnectors) {
-				GRBLinExpr expr=new GRBLinExpr();
+				LinExpr expr=new LinExpr();
 				for(Path path : allPaths) {
-					GRBVar var=y.get(conn,path);
+					int var=y.get(conn,path);
 					expr.addTerm(1,var);
 				}
-				model.addConstr(expr,GRB.EQUAL,1,"Exactly1_"+conn.getId());
+				model.addConstr(expr,IMilpModel.Sense.equal,1,"Exactly1_"+conn.getId());
 			}
 			//System.out.println("(11): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(12)-(13) each end device on itself
 			for(EndDevice dev : infra.getEndDevices()) {
 				for(IHwNode hn : allHwNodes) {
-					GRBLinExpr expr = new GRBLinExpr();
-					GRBVar var=x.get(dev,hn);
+					LinExpr expr = new LinExpr();
+					int var=x.get(dev,hn);
 					expr.addTerm(1,var);
 					if(dev!=hn)
-						model.addConstr(expr,GRB.EQUAL,0,"Surely0_"+dev.getId()+"_"+hn.getId());
+						model.addConstr(expr,IMilpModel.Sense.equal,0,"Surely0_"+dev.getId()+"_"+hn.getId());
 					else
-						model.addConstr(expr,GRB.EQUAL,1,"Surely1_"+dev.getId());
+						model.addConstr(expr,IMilpModel.Sense.equal,1,"Surely1_"+dev.getId());
 				}
 			}
 			//System.out.println("(12)-(13): "+(System.currentTimeMillis()-t));
@@ -158,22 +155,22 @@ public class Orchestrator {
 			//(14) consistency of x and y
 			for(Connector conn : allConnectors) {
 				for(IHwNode n1 : allHwNodes) {
-					GRBVar x1=x.get(conn.getV1(), n1);
+					int x1=x.get(conn.getV1(), n1);
 					//System.out.println("x1: "+x1);
 					for(IHwNode n2 : allHwNodes) {
-						GRBLinExpr expr = new GRBLinExpr();
-						GRBVar x2=x.get(conn.getV2(), n2);
+						LinExpr expr = new LinExpr();
+						int x2=x.get(conn.getV2(), n2);
 						//System.out.println("x2: "+x2);
 						for(Path p : infra.getPaths(n1, n2)) {
 							//System.out.println("conn: "+conn);
 							//System.out.println("p: "+p);
-							GRBVar yVar=y.get(conn, p);
+							int yVar=y.get(conn, p);
 							//System.out.println("yVar: "+yVar);
 							expr.addTerm(1,yVar);
 						}
 						expr.addTerm(-1,x1);
 						expr.addTerm(-1,x2);
-						model.addConstr(expr,GRB.GREATER_EQUAL,-1,"Consistent_"+conn.getId()+"_"+n1.getId()+"_"+n2.getId());
+						model.addConstr(expr,IMilpModel.Sense.greaterEqual,-1,"Consistent_"+conn.getId()+"_"+n1.getId()+"_"+n2.getId());
 					}
 				}
 			}
@@ -181,81 +178,80 @@ public class Orchestrator {
 			//t=System.currentTimeMillis();
 			//(15)-(16) node capacity constraints
 			for(Server s : infra.getServers()) {
-				GRBLinExpr expr1 = new GRBLinExpr();
-				GRBLinExpr expr2 = new GRBLinExpr();
+				LinExpr expr1 = new LinExpr();
+				LinExpr expr2 = new LinExpr();
 				for(Component c : allComponents) {
-					GRBVar xVar=x.get(c, s);
+					int xVar=x.get(c, s);
 					expr1.addTerm(c.getCpuReq(), xVar);
 					expr2.addTerm(c.getRamReq(), xVar);
 				}
-				model.addConstr(expr1,GRB.LESS_EQUAL,s.getCpuCap(),"NodeCpu_"+s.getId());
-				model.addConstr(expr2,GRB.LESS_EQUAL,s.getRamCap(),"NodeRam_"+s.getId());
+				model.addConstr(expr1,IMilpModel.Sense.lessEqual,s.getCpuCap(),"NodeCpu_"+s.getId());
+				model.addConstr(expr2,IMilpModel.Sense.lessEqual,s.getRamCap(),"NodeRam_"+s.getId());
 			}
 			//System.out.println("(15)-(16): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(17) bandwidth constraints
 			for(Link l : allLinks) {
 				//System.out.println("l: "+l.getId());
-				GRBLinExpr expr = new GRBLinExpr();
+				LinExpr expr = new LinExpr();
 				//if(infra.getPathsOfLink(l)==null)
 				//	System.out.println("NULL: "+l.getId());
 				for(Path p : infra.getPathsOfLink(l)) {
 					//System.out.println("p: "+p);
 					for(Connector conn : allConnectors) {
 						//System.out.println("conn: "+conn);
-						GRBVar yVar=y.get(conn, p);
+						int yVar=y.get(conn, p);
 						expr.addTerm(conn.getBwReq(), yVar);
 					}
 				}
-				model.addConstr(expr,GRB.LESS_EQUAL,l.getBw(),"Bw_"+l.getId());
+				model.addConstr(expr,IMilpModel.Sense.lessEqual,l.getBw(),"Bw_"+l.getId());
 			}
 			//System.out.println("(17): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(18) latency constraints
 			for(Connector conn : allConnectors) {
-				GRBLinExpr expr = new GRBLinExpr();
+				LinExpr expr = new LinExpr();
 				for(Path p : allPaths) {
-					GRBVar yVar=y.get(conn, p);
+					int yVar=y.get(conn, p);
 					expr.addTerm(p.getLatency(), yVar);
 				}
-				model.addConstr(expr,GRB.LESS_EQUAL,conn.getMaxLatency(),"Latency_"+conn.getId());
+				model.addConstr(expr,IMilpModel.Sense.lessEqual,conn.getMaxLatency(),"Latency_"+conn.getId());
 			}
 			//System.out.println("(18): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//(19) setting migration variables
 			for(Component c : components) {
-				GRBVar zVar=z.get(c);
-				GRBVar xVar=x.get(c, compMapping.get(c));
-				GRBLinExpr expr = new GRBLinExpr();
+				int zVar=z.get(c);
+				int xVar=x.get(c, compMapping.get(c));
+				LinExpr expr = new LinExpr();
 				expr.addTerm(1, zVar);
 				expr.addTerm(1, xVar);
-				model.addConstr(expr,GRB.EQUAL,1,"Migr_"+c);
+				model.addConstr(expr,IMilpModel.Sense.equal,1,"Migr_"+c);
 			}
 			//foreign components must not be migrated
 			for(Component c : foreignCompMapping.keySet()) {
 				Server s=foreignCompMapping.get(c);
-				GRBVar xVar=x.get(c, s);
-				GRBLinExpr expr = new GRBLinExpr();
+				int xVar=x.get(c, s);
+				LinExpr expr = new LinExpr();
 				expr.addTerm(1, xVar);
-				model.addConstr(expr,GRB.EQUAL,1,"NoMigr_"+c);
+				model.addConstr(expr,IMilpModel.Sense.equal,1,"NoMigr_"+c);
 			}
 			//System.out.println("(19): "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
 			//perform optimization
 			//model.write("model.lp");
-			model.getEnv().set(GRB.DoubleParam.TimeLimit,60);
-			model.getEnv().set(GRB.IntParam.LogToConsole,0);
+			model.setTimeLimit(60);
 			//System.out.println("Running model.optimize()");
-			model.optimize();
+			boolean found=model.optimize();
 			//System.out.println("Optimize finished: "+(System.currentTimeMillis()-t));
 			//t=System.currentTimeMillis();
-			if(model.get(IntAttr.SolCount)>0) {
+			if(found) {
 				//model.write("solution.sol");
 				result.success=1;
 				result.migrations=0;
 				for(Component comp : components) {
-					GRBVar var=z.get(comp);
-					if(var.get(GRB.DoubleAttr.X)>0.5) {
+					int var=z.get(comp);
+					if(model.getValue(var)>0.5) {
 						result.migrations++;
 						System.out.println("Migration of component "+comp.getId());
 					}
@@ -263,8 +259,8 @@ public class Orchestrator {
 				//retrieve solution
 				for(Component comp : ourComponents) {
 					for(Server s : infra.getServers()) {
-						GRBVar var=x.get(comp,s);
-						if(var.get(GRB.DoubleAttr.X)>0.5) {
+						int var=x.get(comp,s);
+						if(model.getValue(var)>0.5) {
 							if(coordModel==1 || coordModel==2) {
 								compMapping.put(comp,s);
 								components.add(comp);
@@ -296,8 +292,7 @@ public class Orchestrator {
 				result.migrations=0;
 			}
 			model.dispose();
-			env.dispose();
-		} catch (GRBException e) {
+		} catch (MilpException e) {
 			e.printStackTrace();
 			result.success=0;
 			result.migrations=0;
@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Deploys applications to several colonies at the same time, on a pool of worker
+ * threads. Each colony gets its own Conductor with its own solver (solvers keep state
+ * during an optimization run, so they cannot be shared between threads), but all of them
+ * work on the same BookKeeper. A deployment locks the servers in its scope (see
+ * Conductor.getScope()) for its whole duration, always in the order of the server IDs,
+ * so that deadlocks cannot occur. Deployments to colonies with disjoint scopes (e.g., in
+ * independent mode) therefore never wait for each other, while servers that are used by
+ * several colonies (shared nodes in overlapping mode, the neighbors' servers in
+ * communicating mode, or all servers in centralized mode) are arbitrated by their locks.
+ * The colonies may only be changed (e.g. by a ColonyRebalancer) through runExclusively(),
+ * which waits until no deployment is running.
+ */
+public class ParallelConductor {
+	/** The BookKeeper shared by the colonies */
+	private BookKeeper bookKeeper;
+	/** The decentralization and coordination model used in the experiments */
+	private Conductor.ModeType mode;
+	/** Creates the solver of a colony */
+	private Function<BookKeeper,ISolver> solverFactory;
+	/** Time limit for deploying an application (in milliseconds); 0 means no time limit */
+	private long timeLimitMs;
+	/** The Conductor of each colony, created on first use */
+	private Map<Colony,Conductor> conductors;
+	/** One lock for each server */
+	private Map<Server,ReentrantLock> locks;
+	/** Held in read mode by the deployments, and in write mode while the colonies are changed */
+	private ReentrantReadWriteLock colonyLock;
+	/** The worker threads */
+	private ExecutorService executor;
+
+	/**
+	 * Construct the ParallelConductor with the given number of worker threads. The solver
+	 * factory is called once for each colony.
+	 */
+	public ParallelConductor(BookKeeper bookKeeper,Function<BookKeeper,ISolver> solverFactory,Conductor.ModeType mode,int nrThreads) {
+		this.bookKeeper=bookKeeper;
+		this.solverFactory=solverFactory;
+		this.mode=mode;
+		timeLimitMs=0;
+		conductors=new ConcurrentHashMap<>();
+		locks=new HashMap<>();
+		for(Server s : bookKeeper.getInfra().getServers())
+			locks.put(s,new ReentrantLock());
+		colonyLock=new ReentrantReadWriteLock();
+		executor=Executors.newFixedThreadPool(nrThreads);
+	}
+
+	/**
+	 * Construct the ParallelConductor with one worker thread for each available processor.
+	 */
+	public ParallelConductor(BookKeeper bookKeeper,Function<BookKeeper,ISolver> solverFactory,Conductor.ModeType mode) {
+		this(bookKeeper,solverFactory,mode,Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Set the time limit for deploying an application (in milliseconds). The time limit
+	 * starts when the deployment has obtained its locks. 0 means no time limit.
+	 */
+	public void setTimeLimit(long timeLimitMs) {
+		this.timeLimitMs=timeLimitMs;
+		for(Conductor conductor : conductors.values())
+			conductor.setTimeLimit(timeLimitMs);
+	}
+
+	/**
+	 * Returns the Conductor of the given colony, creating it if necessary.
+	 */
+	private Conductor getConductor(Colony colony) {
+		return conductors.computeIfAbsent(colony,k -> {
+			Conductor conductor=new Conductor(bookKeeper,solverFactory.apply(bookKeeper),mode);
+			conductor.setTimeLimit(timeLimitMs);
+			return conductor;
+		});
+	}
+
+	/**
+	 * Returns the locks of the given servers, in the order of the server IDs.
+	 */
+	private List<ReentrantLock> getLocks(Set<Server> servers) {
+		List<Server> sortedServers=new ArrayList<>(servers);
+		Collections.sort(sortedServers,new Comparator<Server>() {
+			@Override
+			public int compare(Server lhs,Server rhs) {
+				return lhs.getId().compareTo(rhs.getId());
+			}
+		});
+		List<ReentrantLock> result=new ArrayList<>();
+		for(Server s : sortedServers)
+			result.add(locks.get(s));
+		return result;
+	}
+
+	/**
+	 * Deploy an application to the given colony in the calling thread, holding the locks
+	 * of the servers in the scope of the deployment.
+	 */
+	public Result deployApplication(Colony colony,Application app) {
+		Conductor conductor=getConductor(colony);
+		colonyLock.readLock().lock();
+		List<ReentrantLock> scopeLocks=getLocks(conductor.getScope(colony));
+		for(ReentrantLock lock : scopeLocks)
+			lock.lock();
+		try {
+			return conductor.deployApplication(colony,app);
+		} finally {
+			for(ReentrantLock lock : scopeLocks)
+				lock.unlock();
+			colonyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Deploy several applications to the given colony in the calling thread, as a batch
+	 * (see Conductor.deployApplications()), holding the locks of the servers in the
+	 * scope of the deployment. Returns one Result for each application.
+	 */
+	public List<Result> deployBatch(Colony colony,List<Application> apps) {
+		Conductor conductor=getConductor(colony);
+		colonyLock.readLock().lock();
+		List<ReentrantLock> scopeLocks=getLocks(conductor.getScope(colony));
+		for(ReentrantLock lock : scopeLocks)
+			lock.lock();
+		try {
+			return conductor.deployApplications(colony,apps);
+		} finally {
+			for(ReentrantLock lock : scopeLocks)
+				lock.unlock();
+			colonyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Run the given task (which may change the colonies) while no deployment is running.
+	 */
+	public void runExclusively(Runnable task) {
+		colonyLock.writeLock().lock();
+		try {
+			task.run();
+		} finally {
+			colonyLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Notify the Conductors that the servers of the given colony have changed (see
+	 * Conductor.colonyChanged()).
+	 */
+	public void colonyChanged(Colony colony) {
+		for(Conductor conductor : conductors.values())
+			conductor.colonyChanged(colony);
+	}
+
+	/**
+	 * Deploy the i-th application to the i-th colony, for each i, at the same time on the
+	 * worker threads, and return the results in the same order. Applications given for
+	 * the same colony are deployed one after the other, in an unspecified order.
+	 */
+	public List<Result> deployApplications(List<Colony> colonies,List<Application> apps) {
+		List<Future<Result>> futures=new ArrayList<>();
+		for(int i=0;i<colonies.size();i++) {
+			Colony colony=colonies.get(i);
+			Application app=apps.get(i);
+			futures.add(executor.submit(() -> deployApplication(colony,app)));
+		}
+		List<Result> results=new ArrayList<>();
+		for(Future<Result> future : futures) {
+			try {
+				results.add(future.get());
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for deployments",e);
+			} catch(ExecutionException e) {
+				throw new IllegalStateException("Deployment failed",e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the servers whose state changes if the given application is removed: the
+	 * hosts of its components and the servers on the paths of its connectors.
+	 */
+	private Set<Server> getServersUsedBy(Application app) {
+		Set<Server> servers=new HashSet<>();
+		for(Component c : app.getComponents()) {
+			Server s=bookKeeper.getHost(c);
+			if(s!=null)
+				servers.add(s);
+			for(Connector conn : c.getConnectors()) {
+				Path p=bookKeeper.getPath(conn);
+				if(p==null)
+					continue;
+				for(IHwNode n : p.getNodes()) {
+					if(n instanceof Server)
+						servers.add((Server)n);
+				}
+			}
+		}
+		return servers;
+	}
+
+	/**
+	 * Remove a previously deployed application, holding the locks of the servers it uses.
+	 * Returns the capacity that became free.
+	 */
+	public ReleasedCapacity undeployApplication(Application app) {
+		while(true) {
+			Set<Server> servers=getServersUsedBy(app);
+			List<ReentrantLock> serverLocks=getLocks(servers);
+			for(ReentrantLock lock : serverLocks)
+				lock.lock();
+			try {
+				if(getServersUsedBy(app).equals(servers)) //otherwise a deployment has migrated some components before we got the locks
+					return bookKeeper.removeApplication(app);
+			} finally {
+				for(ReentrantLock lock : serverLocks)
+					lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Stop the worker threads after the submitted deployments have finished.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -1,3 +1,4 @@
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -5,9 +6,14 @@ import java.util.List;
  * Represents a path in the infrastructure. A path consists of k>=1 nodes and k-1
  * links.
  */
-public class Path {
+@SuppressWarnings("serial")
+public class Path implements Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** Unique ID of the path */
 	private String id;
+	/** Hash code of the path, derived from its ID */
+	private int hash;
 	/** List of nodes along the path */
 	private List<IHwNode> nodes;
 	/** List of links along the path */
@@ -20,6 +26,7 @@ public class Path {
 	 */
 	public Path(String id, IHwNode start) {
 		this.id=id;
+		hash=id.hashCode();
 		nodes=new ArrayList<>();
 		nodes.add(start);
 		links=new ArrayList<>();
@@ -59,6 +66,15 @@ public class Path {
 		return id;
 	}
 
+	/**
+	 * Returns the hash code of the path. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/**
 	 * Decides if two paths are the same, i.e., they consist of the same sequence of
 	 * links.
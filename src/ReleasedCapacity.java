@@ -0,0 +1,47 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the capacity that became free when components and connectors were removed
+ * from the infrastructure. The fields are public so they can be read directly.
+ */
+public class ReleasedCapacity {
+	/** Released CPU capacity per server */
+	public Map<Server,Double> cpu;
+	/** Released RAM capacity per server */
+	public Map<Server,Double> ram;
+	/** Released bandwidth per link */
+	public Map<Link,Double> bandwidth;
+
+	/**
+	 * Constructs a ReleasedCapacity object in which no capacity is released.
+	 */
+	public ReleasedCapacity() {
+		cpu=new HashMap<>();
+		ram=new HashMap<>();
+		bandwidth=new HashMap<>();
+	}
+
+	/**
+	 * Record that the given component has been removed from the given server.
+	 */
+	public void addComponent(Component c,Server s) {
+		cpu.merge(s,c.getCpuReq(),Double::sum);
+		ram.merge(s,c.getRamReq(),Double::sum);
+	}
+
+	/**
+	 * Record that the given connector has been removed from the given path.
+	 */
+	public void addConnector(Connector conn,Path p) {
+		for(Link l : p.getLinks())
+			bandwidth.merge(l,conn.getBwReq(),Double::sum);
+	}
+
+	/**
+	 * Return string representation.
+	 */
+	public String toString() {
+		return "cpu: "+cpu+", ram: "+ram+", bandwidth: "+bandwidth;
+	}
+}
@@ -9,6 +9,8 @@ public class Result {
 	public long timeMs;
 	/** Total number of migrations in the optimization runs */
 	public long migrations;
+	/** Number of optimization runs that were stopped because their deadline expired */
+	public int timeouts;
 
 	/**
 	 * Constructs a Result object in which each field is 0.
@@ -17,6 +19,7 @@ public class Result {
 		success=0;
 		timeMs=0;
 		migrations=0;
+		timeouts=0;
 	}
 
 	/**
@@ -26,12 +29,13 @@ public class Result {
 		success+=other.success;
 		timeMs+=other.timeMs;
 		migrations+=other.migrations;
+		timeouts+=other.timeouts;
 	}
 
 	/**
 	 * Return string representation.
 	 */
 	public String toString() {
-		return ""+success+";"+timeMs+";"+migrations;
+		return ""+success+";"+timeMs+";"+migrations+";"+timeouts;
 	}
 }
@@ -0,0 +1,230 @@
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the sets that make up the scope of a deployment to a colony up to date, so
+ * that the Conductor does not have to recompute them from all placed components for
+ * each deployment. A colony is tracked from the first query about it: its sets are
+ * computed once from the BookKeeper, and from then on updated whenever a component is
+ * placed or un-placed, at a cost proportional to the number of connectors of the
+ * component. The components of a neighboring colony that are connected to the colony
+ * are found with a cross-colony connector index: for each such component, the number of
+ * its connectors to components in the colony.
+ * <p>
+ * The cache is safe to use from several threads, provided that (as in ParallelConductor)
+ * the sets of a colony are only read while no other thread changes the placement on the
+ * servers of the colony and its neighbors.
+ */
+public class ScopeCache implements BookKeeper.IPlacementListener {
+	/** The cached sets of one colony */
+	class ColonyScope {
+		/** Identifier number of the colony */
+		private int nr;
+		/** The servers of the colony */
+		private Set<Server> servers;
+		/** The servers of the colony that are not shared with other colonies */
+		private Set<Server> unsharedServers;
+		/** The servers of the neighboring colonies that do not belong to the colony */
+		private Set<Server> unpreferredServers;
+		/** The servers of the neighboring colonies */
+		private Set<Server> neighborServers;
+		/** The components placed in the colony that are targeted to the colony */
+		private Set<Component> ownComponents;
+		/** The components placed in the colony that are targeted to another colony */
+		private Set<Component> foreignComponents;
+		/** For each component placed in a neighboring colony: the number of its connectors to components placed in the colony */
+		private Map<Component,Integer> nrConnectorsToColony;
+		/** Unmodifiable view of ownComponents */
+		private Set<Component> ownComponentsView;
+		/** Unmodifiable view of foreignComponents */
+		private Set<Component> foreignComponentsView;
+		/** Unmodifiable view of the keys of nrConnectorsToColony */
+		private Set<Component> connectedNeighborComponentsView;
+
+		/** Construct the sets of the given colony, without any components */
+		public ColonyScope(Colony colony) {
+			nr=colony.getNr();
+			servers=Collections.unmodifiableSet(new HashSet<>(colony.getServers()));
+			Set<Server> unshared=new HashSet<>(colony.getServers());
+			unshared.removeAll(colony.getSharedNodes());
+			unsharedServers=Collections.unmodifiableSet(unshared);
+			neighborServers=new HashSet<>();
+			for(Colony colony2 : colony.getNeighbors())
+				neighborServers.addAll(colony2.getServers());
+			Set<Server> unpreferred=new HashSet<>(neighborServers);
+			unpreferred.removeAll(servers); //important so that the cloud is not added as an unpreferred server
+			unpreferredServers=Collections.unmodifiableSet(unpreferred);
+			ownComponents=ConcurrentHashMap.newKeySet();
+			foreignComponents=ConcurrentHashMap.newKeySet();
+			nrConnectorsToColony=new ConcurrentHashMap<>();
+			ownComponentsView=Collections.unmodifiableSet(ownComponents);
+			foreignComponentsView=Collections.unmodifiableSet(foreignComponents);
+			connectedNeighborComponentsView=Collections.unmodifiableSet(nrConnectorsToColony.keySet());
+		}
+
+		/** Add component c placed on server s to the sets of the colony */
+		private void addComponent(Component c,Server s) {
+			if(!servers.contains(s))
+				return;
+			if(c.getTargetColony()==nr)
+				ownComponents.add(c);
+			else
+				foreignComponents.add(c);
+		}
+
+		/**
+		 * Update the connector index with the connectors of component c, placed on (or
+		 * removed from) server s, to the placed components; delta is +1 or -1. If
+		 * bothDirections is false, only the connectors of c itself are counted (used when
+		 * the index is built from scratch, where each connector is seen from both ends).
+		 */
+		private void updateIndex(Component c,Server s,int delta,boolean bothDirections) {
+			boolean inColony=servers.contains(s);
+			boolean inNeighbor=neighborServers.contains(s);
+			if(!inColony && !inNeighbor)
+				return;
+			for(Connector conn : c.getConnectors()) {
+				ISwNode other=conn.getOtherVertex(c);
+				if(other.isEndDevice())
+					continue;
+				Server otherHost=bookKeeper.getHost((Component)other);
+				if(otherHost==null)
+					continue;
+				if(inNeighbor && servers.contains(otherHost))
+					nrConnectorsToColony.merge(c,delta,ScopeCache::sumOrRemove);
+				if(bothDirections && inColony && neighborServers.contains(otherHost))
+					nrConnectorsToColony.merge((Component)other,delta,ScopeCache::sumOrRemove);
+			}
+		}
+	}
+
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** The cached sets of the tracked colonies */
+	private Map<Colony,ColonyScope> scopes;
+
+	/**
+	 * Constructor. Use create(), which also registers the cache as a listener.
+	 */
+	private ScopeCache(BookKeeper bookKeeper) {
+		this.bookKeeper=bookKeeper;
+		scopes=new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Create a cache for the given BookKeeper, registered as a listener of it.
+	 */
+	public static ScopeCache create(BookKeeper bookKeeper) {
+		ScopeCache cache=new ScopeCache(bookKeeper);
+		bookKeeper.addListener(cache);
+		return cache;
+	}
+
+	/**
+	 * Helper method for counters in maps: the sum of the two values, or null (i.e.,
+	 * removal of the entry) if the sum is 0.
+	 */
+	private static Integer sumOrRemove(Integer a,Integer b) {
+		int sum=a+b;
+		return (sum==0)?null:sum;
+	}
+
+	/**
+	 * Returns the cached sets of the given colony, computing them if the colony is not
+	 * tracked yet.
+	 */
+	private ColonyScope getScope(Colony colony) {
+		return scopes.computeIfAbsent(colony,k -> {
+			ColonyScope scope=new ColonyScope(colony);
+			for(Map.Entry<Component,Server> entry : bookKeeper.getAlpha().entrySet()) {
+				scope.addComponent(entry.getKey(),entry.getValue());
+				scope.updateIndex(entry.getKey(),entry.getValue(),1,false);
+			}
+			return scope;
+		});
+	}
+
+	/**
+	 * Forget the sets of the given colony, e.g. because its servers have changed. They are
+	 * recomputed on the next query about the colony.
+	 */
+	public void invalidate(Colony colony) {
+		scopes.remove(colony);
+	}
+
+	/**
+	 * Update the tracked colonies after component c has been placed on server s.
+	 */
+	@Override
+	public void placed(Component c,Server s) {
+		for(ColonyScope scope : scopes.values()) {
+			scope.addComponent(c,s);
+			scope.updateIndex(c,s,1,true);
+		}
+	}
+
+	/**
+	 * Update the tracked colonies after component c has been removed from server s.
+	 */
+	@Override
+	public void unPlaced(Component c,Server s) {
+		for(ColonyScope scope : scopes.values()) {
+			scope.ownComponents.remove(c);
+			scope.foreignComponents.remove(c);
+			scope.updateIndex(c,s,-1,true);
+		}
+	}
+
+	/**
+	 * Returns the servers of the given colony. The returned set must not be modified.
+	 */
+	public Set<Server> getServers(Colony colony) {
+		return getScope(colony).servers;
+	}
+
+	/**
+	 * Returns the servers of the given colony that are not shared with other colonies.
+	 * The returned set must not be modified.
+	 */
+	public Set<Server> getUnsharedServers(Colony colony) {
+		return getScope(colony).unsharedServers;
+	}
+
+	/**
+	 * Returns the servers of the neighbors of the given colony that do not belong to the
+	 * colony itself. The returned set must not be modified.
+	 */
+	public Set<Server> getUnpreferredServers(Colony colony) {
+		return getScope(colony).unpreferredServers;
+	}
+
+	/**
+	 * Returns the components placed in the given colony that are targeted to the colony.
+	 * The returned set is an unmodifiable view, which follows the later changes of the
+	 * placement.
+	 */
+	public Set<Component> getOwnComponents(Colony colony) {
+		return getScope(colony).ownComponentsView;
+	}
+
+	/**
+	 * Returns the components placed in the given colony that are targeted to another
+	 * colony. The returned set is an unmodifiable view, which follows the later changes
+	 * of the placement.
+	 */
+	public Set<Component> getForeignComponents(Colony colony) {
+		return getScope(colony).foreignComponentsView;
+	}
+
+	/**
+	 * Returns the components placed in a neighboring colony of the given colony that have
+	 * a connector to a component placed in the colony. The returned set is an
+	 * unmodifiable view, which follows the later changes of the placement.
+	 */
+	public Set<Component> getConnectedNeighborComponents(Colony colony) {
+		return getScope(colony).connectedNeighborComponentsView;
+	}
+}
@@ -1,12 +1,18 @@
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Represents a fog node or the cloud.
  */
-public class Server implements IHwNode {
+@SuppressWarnings("serial")
+public class Server implements IHwNode, Serializable {
+	/** Version of the serialized form */
+	private static final long serialVersionUID=1L;
 	/** ID of this server */
 	private String id;
+	/** Hash code of the server, derived from its ID */
+	private int hash;
 	/** CPU capacity of this server */
 	private double cpuCap;
 	/** RAM capacity of this server */
@@ -23,6 +29,7 @@ public class Server implements IHwNode {
 	 */
 	public Server(String id,double cpuCap,double ramCap,boolean bCloud,int colony) {
 		this.id=id;
+		hash=id.hashCode();
 		this.cpuCap = cpuCap;
 		this.ramCap = ramCap;
 		this.bCloud=bCloud;
@@ -37,6 +44,15 @@ public class Server implements IHwNode {
 		return id;
 	}
 
+	/**
+	 * Returns the hash code of the server. It depends only on the ID, so that the
+	 * iteration order of hash-based collections is the same in each run.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	/**
 	 * Returns the CPU capacity of the server.
 	 */
@@ -79,6 +95,13 @@ public class Server implements IHwNode {
 		colonies.add(colony);
 	}
 
+	/**
+	 * Remove this server from the colony with the given identifier number.
+	 */
+	public void removeFromColony(int colony) {
+		colonies.remove(colony);
+	}
+
 	/**
 	 * Determines if this server belongs to the coloy with the given identifier number.
 	 */
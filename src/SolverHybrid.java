@@ -0,0 +1,191 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hybrid solver. Runs SolverSB first, and only if it fails, tries to repair the
+ * failure with SolverILP on a restricted problem: the neighborhood of the components
+ * at which SolverSB got stuck. The neighborhood consists of the candidate servers of
+ * those components (the servers that can host them as far as capacity and the latency
+ * to their fixed communication partners are concerned) and the movable components
+ * currently placed on these servers. All other movable components keep their place, and
+ * the ILP only contains the candidate servers, the hosts of the fixed components
+ * connected to the ones that may move, and the servers on the paths between them, which
+ * keeps it small; the ILP run gets its own time budget, and is not warm-started with
+ * another SolverSB run. This way, the usual case costs about as much as SolverSB, while
+ * the harder cases still benefit from the exactness of the ILP.
+ */
+public class SolverHybrid implements ISolver {
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** The solver tried first */
+	private SolverSB solverSB;
+	/** The solver used for the repair; since the servers of a repair depend on the failure, its models are released after each repair */
+	private SolverILP solverILP;
+	/** Time budget of the repair (in milliseconds); 0 means that only the deadline of the optimization run applies */
+	private long repairTimeBudgetMs;
+
+	/**
+	 * Constructor.
+	 */
+	public SolverHybrid(BookKeeper bookKeeper,MilpBackend backend,long repairTimeBudgetMs) {
+		this.bookKeeper=bookKeeper;
+		this.repairTimeBudgetMs=repairTimeBudgetMs;
+		solverSB=new SolverSB(bookKeeper);
+		solverSB.setQuiet(true);
+		solverILP=new SolverILP(bookKeeper,backend);
+		solverILP.setQuiet(true);
+		solverILP.setHeuristicStart(false); //SolverSB has just failed on a superset of the problem
+	}
+
+	/**
+	 * Release the models of the repair solver.
+	 */
+	public void dispose() {
+		solverILP.dispose();
+	}
+
+	/**
+	 * Returns true iff the given server may host the given component: its total capacity
+	 * suffices, and it can reach the end devices and the fixed components connected to the
+	 * component within the latency limits of the connectors.
+	 */
+	private boolean isCandidate(Component c,Server s,Set<Component> ourComponents) {
+		if(c.getCpuReq()>s.getCpuCap() || c.getRamReq()>s.getRamCap())
+			return false;
+		for(Connector conn : c.getConnectors()) {
+			ISwNode other=conn.getOtherVertex(c);
+			IHwNode otherHost=null;
+			if(other.isEndDevice())
+				otherHost=(EndDevice)other;
+			else if(!ourComponents.contains(other))
+				otherHost=bookKeeper.getHost((Component)other);
+			if(otherHost==null) //the other end can move too
+				continue;
+			boolean reachable=false;
+			for(Path p : bookKeeper.getInfra().getPaths(s,otherHost)) {
+				if(p.getLatency()<=conn.getMaxLatency()) {
+					reachable=true;
+					break;
+				}
+			}
+			if(!reachable)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the servers on the paths that the connectors of the given components may use
+	 * if the components are placed on the given servers. The ILP only routes over the
+	 * servers it may use, so these must be part of the repair, too.
+	 */
+	private Set<Server> getRoutingServers(Set<Component> components,Set<Server> servers) {
+		Set<Server> result=new HashSet<>();
+		for(Component c : components) {
+			for(Connector conn : c.getConnectors()) {
+				ISwNode other=conn.getOtherVertex(c);
+				Set<IHwNode> otherHosts=new HashSet<>();
+				if(other.isEndDevice())
+					otherHosts.add((EndDevice)other);
+				else if(components.contains(other))
+					otherHosts.addAll(servers);
+				else if(bookKeeper.getHost((Component)other)!=null)
+					otherHosts.add(bookKeeper.getHost((Component)other));
+				for(Server s : servers) {
+					for(IHwNode otherHost : otherHosts) {
+						for(Path p : bookKeeper.getInfra().getPaths(s,otherHost)) {
+							if(p.getLatency()>conn.getMaxLatency())
+								continue;
+							for(IHwNode n : p.getNodes()) {
+								if(n instanceof Server)
+									result.add((Server)n);
+							}
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Perform an optimization run, trying to place the new components. If SolverSB fails
+	 * (but not because of the deadline), the restricted ILP is solved, stopping when either
+	 * the deadline or the time budget of the repair expires.
+	 */
+	@Override
+	public Result optimize(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents,
+			Set<Component> readOnlyComponents,
+			Colony ourColony,
+			Conductor.ModeType mode,
+			Deadline deadline) {
+		long startTime=System.currentTimeMillis();
+		Result result=solverSB.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,deadline);
+		if(result.success>0 || result.timeouts>0 || deadline.isExpired()) {
+			System.out.println("Result: "+result);
+			return result;
+		}
+		//determine the candidate servers of the components at which SolverSB got stuck
+		List<Component> failedComponents=solverSB.getFailedComponents();
+		if(failedComponents.isEmpty())
+			failedComponents=List.copyOf(newComponents);
+		Set<Component> ourComponents=new HashSet<>(newComponents);
+		ourComponents.addAll(fullyControlledComponents);
+		ourComponents.addAll(obtainedComponents);
+		Set<Server> servers=new HashSet<>(freelyUsableServers);
+		servers.addAll(unpreferredServers);
+		Set<Server> candidateServers=new HashSet<>();
+		for(Component c : failedComponents) {
+			for(Server s : servers) {
+				if(isCandidate(c,s,ourComponents))
+					candidateServers.add(s);
+			}
+		}
+		//only the movable components on the candidate servers may move; the others become fixed
+		Set<Component> restrictedFullyControlled=new HashSet<>();
+		for(Component c : fullyControlledComponents) {
+			if(candidateServers.contains(bookKeeper.getHost(c)))
+				restrictedFullyControlled.add(c);
+		}
+		Set<Component> restrictedObtained=new HashSet<>();
+		for(Component c : obtainedComponents) {
+			if(candidateServers.contains(bookKeeper.getHost(c)))
+				restrictedObtained.add(c);
+		}
+		Set<Component> restrictedComponents=new HashSet<>(newComponents);
+		restrictedComponents.addAll(restrictedFullyControlled);
+		restrictedComponents.addAll(restrictedObtained);
+		//the fixed components connected to the ones that may move are read-only in the repair; the servers of the
+		//repair are the candidate servers, the hosts of these fixed components, and the servers needed for routing
+		Set<Component> restrictedReadOnly=new HashSet<>(readOnlyComponents);
+		Set<Server> scope=new HashSet<>(candidateServers);
+		for(Component c : restrictedComponents) {
+			for(Connector conn : c.getConnectors()) {
+				ISwNode other=conn.getOtherVertex(c);
+				if(!other.isEndDevice() && !restrictedComponents.contains(other)) {
+					restrictedReadOnly.add((Component)other);
+					scope.add(bookKeeper.getHost((Component)other));
+				}
+			}
+		}
+		scope.addAll(getRoutingServers(restrictedComponents,scope));
+		Set<Server> restrictedFreelyUsable=new HashSet<>(freelyUsableServers);
+		restrictedFreelyUsable.retainAll(scope);
+		Set<Server> restrictedUnpreferred=new HashSet<>(unpreferredServers);
+		restrictedUnpreferred.retainAll(scope);
+		Result repairResult=solverILP.optimize(restrictedFreelyUsable,restrictedUnpreferred,newComponents,restrictedFullyControlled,restrictedObtained,restrictedReadOnly,ourColony,mode,deadline.child(repairTimeBudgetMs));
+		solverILP.dispose();
+		result.success=repairResult.success;
+		result.migrations=repairResult.migrations;
+		result.timeouts=repairResult.timeouts;
+		result.timeMs=System.currentTimeMillis()-startTime;
+		System.out.println("Result: "+result);
+		return result;
+	}
+}
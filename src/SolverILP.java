@@ -1,26 +1,384 @@
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
-
-import gurobi.GRB;
-import gurobi.GRB.IntAttr;
-import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 public class SolverILP implements ISolver {
 	/** Reference to the bookKeeper */
 	private BookKeeper bookKeeper;
+	/** The solver used for the ILP */
+	private MilpBackend backend;
 	private static final double mu=10;
+	/** Upper bound on the time given to the ILP solver (in seconds), also if the deadline allows more */
+	private static final double maxTimeLimitSec=60;
+	/** Time limit of the SolverSB run that provides the MIP start (in milliseconds) */
+	private static final long heuristicTimeLimitMs=1000;
+	/** Whether the ILP solver is warm-started with the solution of a quick SolverSB run */
+	private boolean heuristicStart=true;
+	/** Whether the Result of each optimization run is printed */
+	private boolean printResult=true;
+	/** The persistent models, keyed by the set of freely usable servers they were built for */
+	private Map<Set<Server>,PersistentModel> models;
+
+	/**
+	 * Index of the relevant paths (i.e., paths using only relevant HW nodes) between pairs
+	 * of HW nodes. The entries are determined on demand; the index may be used by several
+	 * threads concurrently.
+	 */
+	static class PathIndex {
+		/** The infrastructure */
+		private Infrastructure infra;
+		/** The relevant HW nodes */
+		private Set<IHwNode> nodes;
+		/** The relevant paths for the pairs of HW nodes determined so far */
+		private Map<IHwNode,Map<IHwNode,List<Path>>> paths;
+
+		/** Construct empty index */
+		public PathIndex(Infrastructure infra,Set<IHwNode> nodes) {
+			this.infra=infra;
+			this.nodes=nodes;
+			paths=new ConcurrentHashMap<>();
+		}
+
+		/** Returns the relevant paths from n1 to n2 */
+		public List<Path> getPaths(IHwNode n1,IHwNode n2) {
+			return paths.computeIfAbsent(n1,k -> new ConcurrentHashMap<>()).computeIfAbsent(n2,k -> getRelevantPaths(infra,n1,n2,nodes));
+		}
+
+		/**
+		 * Change the set of relevant HW nodes. Only the entries of the pairs that have a
+		 * path through an added or removed node are recomputed. Returns the pairs whose
+		 * relevant paths have changed, as a map from the first node of a pair to the second
+		 * nodes. Must not be called concurrently with getPaths().
+		 */
+		public Map<IHwNode,Set<IHwNode>> setNodes(Set<IHwNode> newNodes) {
+			Set<IHwNode> changedNodes=new HashSet<>(newNodes);
+			for(IHwNode n : nodes) {
+				if(!changedNodes.remove(n))
+					changedNodes.add(n);
+			}
+			nodes=newNodes;
+			Map<IHwNode,Set<IHwNode>> changedPairs=new HashMap<>();
+			if(changedNodes.isEmpty())
+				return changedPairs;
+			for(Map.Entry<IHwNode,Map<IHwNode,List<Path>>> entry1 : paths.entrySet()) {
+				IHwNode n1=entry1.getKey();
+				for(Map.Entry<IHwNode,List<Path>> entry2 : entry1.getValue().entrySet()) {
+					IHwNode n2=entry2.getKey();
+					boolean touched=false;
+					for(Path p : infra.getPaths(n1,n2)) {
+						for(IHwNode n : p.getNodes()) {
+							if(changedNodes.contains(n))
+								touched=true;
+						}
+					}
+					if(!touched)
+						continue;
+					List<Path> relevant=getRelevantPaths(infra,n1,n2,nodes);
+					if(!relevant.equals(entry2.getValue())) {
+						entry2.setValue(relevant);
+						changedPairs.computeIfAbsent(n1,k -> new HashSet<>()).add(n2);
+					}
+				}
+			}
+			return changedPairs;
+		}
+	}
+
+	/**
+	 * The components that have a given server as candidate host, indexed by their CPU and
+	 * RAM requirements, so that the components for which a change of the free capacity of
+	 * the server matters can be found without looking at the others.
+	 */
+	static class DemandIndex {
+		/** The components, by CPU requirement */
+		private NavigableMap<Double,Set<Component>> byCpu;
+		/** The components, by RAM requirement */
+		private NavigableMap<Double,Set<Component>> byRam;
+
+		/** Construct empty index */
+		public DemandIndex() {
+			byCpu=new TreeMap<>();
+			byRam=new TreeMap<>();
+		}
+
+		/** Add the given component */
+		public void add(Component c) {
+			byCpu.computeIfAbsent(c.getCpuReq(),k -> new HashSet<>()).add(c);
+			byRam.computeIfAbsent(c.getRamReq(),k -> new HashSet<>()).add(c);
+		}
+
+		/** Remove the given component */
+		public void remove(Component c) {
+			Set<Component> set=byCpu.get(c.getCpuReq());
+			set.remove(c);
+			if(set.isEmpty())
+				byCpu.remove(c.getCpuReq());
+			set=byRam.get(c.getRamReq());
+			set.remove(c);
+			if(set.isEmpty())
+				byRam.remove(c.getRamReq());
+		}
+
+		/**
+		 * Returns the components that fit into exactly one of the two given capacities,
+		 * i.e., whose CPU or RAM requirement lies between the old and the new value. If
+		 * the old capacity is unknown (NaN), all components are returned.
+		 */
+		public Set<Component> getCrossing(double oldCpu,double oldRam,double newCpu,double newRam) {
+			Set<Component> result=new HashSet<>();
+			if(Double.isNaN(oldCpu) || Double.isNaN(oldRam)) {
+				for(Set<Component> set : byCpu.values())
+					result.addAll(set);
+				return result;
+			}
+			for(Set<Component> set : byCpu.subMap(Math.min(oldCpu,newCpu),false,Math.max(oldCpu,newCpu),true).values())
+				result.addAll(set);
+			for(Set<Component> set : byRam.subMap(Math.min(oldRam,newRam),false,Math.max(oldRam,newRam),true).values())
+				result.addAll(set);
+			return result;
+		}
+	}
+
+	/** The candidate paths of a connector between a given pair of candidate hosts of its ends */
+	static class PairPaths {
+		/** Candidate host of the first end of the connector */
+		private IHwNode n1;
+		/** Candidate host of the second end of the connector */
+		private IHwNode n2;
+		/** The paths from n1 to n2 that fulfill the latency requirement of the connector */
+		private List<Path> paths;
+		/** Whether both hosts may be used in the current run (otherwise the variables of the paths are fixed to 0) */
+		private boolean allowed;
+
+		/** Construct new entry */
+		public PairPaths(IHwNode n1,IHwNode n2,List<Path> paths) {
+			this.n1=n1;
+			this.n2=n2;
+			this.paths=paths;
+			allowed=true;
+		}
+	}
+
+	/** A constraint whose expression has been built, but which has not been added to the model yet */
+	static class PendingConstraint {
+		/** Left-hand side */
+		private LinExpr expr;
+		/** Sense of the constraint */
+		private IMilpModel.Sense sense;
+		/** Right-hand side */
+		private double rhs;
+		/** Name of the constraint */
+		private String name;
+
+		/** Construct new pending constraint */
+		public PendingConstraint(LinExpr expr,IMilpModel.Sense sense,double rhs,String name) {
+			this.expr=expr;
+			this.sense=sense;
+			this.rhs=rhs;
+			this.name=name;
+		}
+	}
+
+	/** The variables of a component in a persistent model, and the constraints that only concern this component */
+	static class ComponentEntry {
+		/** Variable x(c,s) for each candidate host s, i.e., each server whose total capacity suffices for the component */
+		private Map<Server,Integer> x;
+		/** The candidate hosts that may be used in the current run (for the others, x(c,s) is fixed to 0) */
+		private Set<Server> allowedHosts;
+		/** Constraint (9) */
+		private int exactlyOneConstr;
+		/** Migration variable z(c), or -1 if the component is not placed yet */
+		private int z;
+		/** Constraint (19), or -1 if the component is not placed yet */
+		private int migrationConstr;
+		/** The host whose x variable is part of constraint (19) */
+		private Server migrationHost;
+		/** Whether the component was obtained from another colony */
+		private boolean obtained;
+		/** Whether the component was movable, i.e., already placed, when updateMigration() was last called */
+		private boolean movable;
+
+		/** Construct empty entry */
+		public ComponentEntry() {
+			x=new HashMap<>();
+			allowedHosts=new HashSet<>();
+			z=-1;
+			migrationConstr=-1;
+		}
+	}
+
+	/** The variables of a connector in a persistent model, and the constraints that only concern this connector */
+	static class ConnectorEntry {
+		/** The candidate paths, grouped by the pairs of candidate hosts of the ends */
+		private List<PairPaths> pairs;
+		/** Variable y(conn,p) for each candidate path p */
+		private Map<Path,Integer> y;
+		/** Constraints (11), (14) and NoCross of the connector */
+		private List<Integer> constrs;
+		/** Host of the first end if it is a constant (end device or read-only component), otherwise null */
+		private IHwNode constantHost1;
+		/** Host of the second end if it is a constant (end device or read-only component), otherwise null */
+		private IHwNode constantHost2;
+
+		/** Construct empty entry */
+		public ConnectorEntry() {
+			y=new HashMap<>();
+			constrs=new ArrayList<>();
+		}
+	}
+
+	/**
+	 * ILP model that is kept across the optimization runs for the same set of servers
+	 * (i.e., for the same colony, or for the whole infrastructure in centralized mode).
+	 * It contains the variables of the components and connectors of the previous runs
+	 * that are still in our control; a run only adds the variables and constraints of the
+	 * components and connectors that are new to the model, removes those that are not in
+	 * our control anymore, and updates the right-hand sides and bounds that depend on the
+	 * current free capacities. The model follows the placement (as a listener of the
+	 * BookKeeper) to know which components have moved since its last run.
+	 */
+	static class PersistentModel implements BookKeeper.IPlacementListener {
+		/** The model */
+		private IMilpModel model;
+		/** The mode the model was built for */
+		private Conductor.ModeType mode;
+		/** The freely usable servers the model was built for */
+		private Set<Server> freelyUsableServers;
+		/** The unpreferred servers the model was built for */
+		private Set<Server> unpreferredServers;
+		/** All usable servers */
+		private Set<Server> servers;
+		/** The end devices that the candidate paths may use, i.e., those connected to components in scope */
+		private Set<EndDevice> endDevices;
+		/** The paths among the usable servers and the end devices */
+		private PathIndex pathIndex;
+		/** The components in the model */
+		private Map<Component,ComponentEntry> components;
+		/** The connectors in the model */
+		private Map<Connector,ConnectorEntry> connectors;
+		/** The components in the model that have the given server as candidate host */
+		private Map<Server,DemandIndex> componentsOfServer;
+		/** The components that have been placed or un-placed since they were last updated in the model */
+		private Set<Component> movedComponents;
+		/** CPU capacity constraint (15) of each server */
+		private Map<Server,Integer> cpuConstrs;
+		/** RAM capacity constraint (16) of each server */
+		private Map<Server,Integer> ramConstrs;
+		/** Current right-hand side of the CPU capacity constraint of each server */
+		private Map<Server,Double> cpuRhs;
+		/** Current right-hand side of the RAM capacity constraint of each server */
+		private Map<Server,Double> ramRhs;
+		/** Bandwidth constraint (17) of each link used by a candidate path */
+		private Map<Link,Integer> bwConstrs;
+		/** Current right-hand side of the bandwidth constraint of each link */
+		private Map<Link,Double> bwRhs;
+
+		/** Construct model without components, with empty capacity constraints for the given servers */
+		public PersistentModel(MilpBackend backend,Infrastructure infra,Set<Server> freelyUsableServers,Set<Server> unpreferredServers,Conductor.ModeType mode) throws MilpException {
+			model=backend.createModel();
+			this.mode=mode;
+			this.freelyUsableServers=new HashSet<>(freelyUsableServers);
+			this.unpreferredServers=new HashSet<>(unpreferredServers);
+			servers=union(freelyUsableServers,unpreferredServers);
+			endDevices=new HashSet<>();
+			pathIndex=new PathIndex(infra,new HashSet<>(servers));
+			components=new HashMap<>();
+			connectors=new HashMap<>();
+			componentsOfServer=new HashMap<>();
+			movedComponents=ConcurrentHashMap.newKeySet();
+			cpuConstrs=new HashMap<>();
+			ramConstrs=new HashMap<>();
+			cpuRhs=new HashMap<>();
+			ramRhs=new HashMap<>();
+			bwConstrs=new HashMap<>();
+			bwRhs=new HashMap<>();
+			for(Server s : servers) { //the right-hand sides are set at the beginning of each run
+				cpuConstrs.put(s,model.addConstr(new LinExpr(),IMilpModel.Sense.lessEqual,0,"NodeCpu_"+s.getId()));
+				ramConstrs.put(s,model.addConstr(new LinExpr(),IMilpModel.Sense.lessEqual,0,"NodeRam_"+s.getId()));
+				cpuRhs.put(s,Double.NaN);
+				ramRhs.put(s,Double.NaN);
+			}
+		}
+
+		/** Note that component c has moved */
+		@Override
+		public void placed(Component c,Server s) {
+			movedComponents.add(c);
+		}
+
+		/** Note that component c has moved */
+		@Override
+		public void unPlaced(Component c,Server s) {
+			movedComponents.add(c);
+		}
+
+		/** Returns true iff the model was built for the given sets of servers and mode */
+		public boolean isFor(Set<Server> freelyUsableServers,Set<Server> unpreferredServers,Conductor.ModeType mode) {
+			return this.mode==mode && this.freelyUsableServers.equals(freelyUsableServers) && this.unpreferredServers.equals(unpreferredServers);
+		}
+	}
 
 	/**
-	 * Constructor.
+	 * Constructor, using the default backend (see MilpBackend.getDefault) to solve the ILP.
 	 */
 	public SolverILP(BookKeeper bookKeeper) {
+		this(bookKeeper,MilpBackend.getDefault());
+	}
+
+	/**
+	 * Constructor, using the given backend to solve the ILP.
+	 */
+	public SolverILP(BookKeeper bookKeeper,MilpBackend backend) {
 		this.bookKeeper=bookKeeper;
+		this.backend=backend;
+		models=new HashMap<>();
+	}
+
+	/**
+	 * Set whether the ILP solver is warm-started with the solution of a quick SolverSB run.
+	 * Without it, the current placement of the movable components is used as MIP start;
+	 * this is useful if the caller has just seen SolverSB fail on the same problem.
+	 */
+	public void setHeuristicStart(boolean heuristicStart) {
+		this.heuristicStart=heuristicStart;
+	}
+
+	/**
+	 * Switch off (or on) printing the Result of each optimization run, for runs that are
+	 * part of the run of another solver.
+	 */
+	public void setQuiet(boolean quiet) {
+		printResult=!quiet;
+	}
+
+	/**
+	 * Release the persistent models.
+	 */
+	public void dispose() {
+		for(PersistentModel pm : models.values())
+			disposeQuietly(pm);
+		models.clear();
+	}
+
+	/**
+	 * Helper method to release a persistent model and stop following the placement for
+	 * it, reporting (but otherwise ignoring) errors.
+	 */
+	private void disposeQuietly(PersistentModel pm) {
+		bookKeeper.removeListener(pm);
+		try {
+			pm.model.dispose();
+		} catch (MilpException e) {
+			e.printStackTrace();
+		}
 	}
 
 	/**
@@ -35,26 +393,12 @@ public class SolverILP implements ISolver {
 		return result;
 	}
 
-	/**
-	 * Helper method to determine the set of links among the given set of HW nodes.
-	 */
-	private Set<Link> getRelevantLinks(Set<IHwNode> nodes) {
-		Set<Link> links=new HashSet<>();
-		for(IHwNode node : nodes) {
-			for(Link link : node.getLinks()) {
-				if(nodes.contains(link.getOtherNode(node)))
-					links.add(link);
-			}
-		}
-		return links;
-	}
-
 	/**
 	 * Helper method to determine the set of paths between the two given HW nodes, given the set of
 	 * all relevant nodes.
 	 */
-	private Set<Path> getRelevantPaths(Infrastructure infra,IHwNode n1,IHwNode n2,Set<IHwNode> nodes) {
-		Set<Path> paths=new HashSet<>();
+	private static List<Path> getRelevantPaths(Infrastructure infra,IHwNode n1,IHwNode n2,Set<IHwNode> nodes) {
+		List<Path> paths=new ArrayList<>();
 		for(Path p : infra.getPaths(n1,n2)) {
 			boolean good=true;
 			for(IHwNode n : p.getNodes()) {
@@ -70,20 +414,314 @@ public class SolverILP implements ISolver {
 	}
 
 	/**
-	 * Helper method to determine the set of all paths among the given set of HW nodes.
+	 * Returns the persistent model for the given sets of servers and mode, creating it if
+	 * there is none yet.
+	 */
+	private PersistentModel getModel(Set<Server> freelyUsableServers,Set<Server> unpreferredServers,Conductor.ModeType mode) throws MilpException {
+		PersistentModel pm=models.get(freelyUsableServers);
+		if(pm!=null && pm.isFor(freelyUsableServers,unpreferredServers,mode))
+			return pm;
+		if(pm!=null)
+			disposeQuietly(pm);
+		pm=new PersistentModel(backend,bookKeeper.getInfra(),freelyUsableServers,unpreferredServers,mode);
+		bookKeeper.addListener(pm);
+		models.put(pm.freelyUsableServers,pm);
+		return pm;
+	}
+
+	/**
+	 * The host of the given end of a connector if it is a constant in the current run (i.e.,
+	 * the end is an end device or a component that is not ours), otherwise null.
+	 */
+	private IHwNode getConstantHost(ISwNode end,Set<Component> ourComponents) {
+		if(end.isEndDevice())
+			return (EndDevice)end;
+		if(ourComponents.contains(end))
+			return null;
+		return bookKeeper.getHost((Component)end);
+	}
+
+	/**
+	 * Add the variables of the given component and its constraint (9) to the model. The
+	 * candidate hosts are the servers whose total capacity suffices for the component;
+	 * all of them are allowed until updateAllowedHosts() is called.
 	 */
-	private Set<Path> getRelevantPaths(Infrastructure infra,Set<IHwNode> nodes) {
-		Set<Path> paths=new HashSet<>();
-		for(IHwNode node1 : nodes) {
-			for(IHwNode node2 : nodes) {
-				paths.addAll(getRelevantPaths(infra,node1,node2,nodes));
+	private ComponentEntry addComponent(PersistentModel pm,Component c) throws MilpException {
+		ComponentEntry entry=new ComponentEntry();
+		LinExpr expr=new LinExpr();
+		for(Server s : pm.servers) {
+			if(c.getCpuReq()>s.getCpuCap() || c.getRamReq()>s.getRamCap())
+				continue;
+			double objWeight=0;
+			if(pm.unpreferredServers.contains(s))
+				objWeight=mu;
+			int var=pm.model.addVar(0,1,objWeight,true,"x_"+c.getId()+"_"+s.getId());
+			entry.x.put(s,var);
+			entry.allowedHosts.add(s);
+			expr.addTerm(1,var);
+			//(15)-(16) node capacity constraints
+			pm.model.changeCoeff(pm.cpuConstrs.get(s),var,c.getCpuReq());
+			pm.model.changeCoeff(pm.ramConstrs.get(s),var,c.getRamReq());
+			pm.componentsOfServer.computeIfAbsent(s,k -> new DemandIndex()).add(c);
+		}
+		//(9) each component on exactly one server; (10) and (12)-(13) hold by construction
+		entry.exactlyOneConstr=pm.model.addConstr(expr,IMilpModel.Sense.equal,1,"Exactly1_"+c.getId());
+		pm.components.put(c,entry);
+		return entry;
+	}
+
+	/**
+	 * Remove the variables and constraints of the given component from the model. The
+	 * connectors of the component must have been removed before.
+	 */
+	private void removeComponent(PersistentModel pm,Component c) throws MilpException {
+		ComponentEntry entry=pm.components.remove(c);
+		for(Server s : entry.x.keySet()) {
+			pm.model.removeVar(entry.x.get(s));
+			pm.componentsOfServer.get(s).remove(c);
+		}
+		pm.model.removeConstr(entry.exactlyOneConstr);
+		if(entry.z>=0) {
+			pm.model.removeVar(entry.z);
+			pm.model.removeConstr(entry.migrationConstr);
+		}
+	}
+
+	/**
+	 * Make the migration variable of the given component and its constraint (19) match the
+	 * current host of the component (null if the component is not placed yet).
+	 */
+	private void updateMigration(PersistentModel pm,Component c,ComponentEntry entry,Server host) throws MilpException {
+		if(host==null) {
+			if(entry.z>=0) {
+				pm.model.removeVar(entry.z);
+				pm.model.removeConstr(entry.migrationConstr);
+				entry.z=-1;
+				entry.migrationConstr=-1;
+				entry.migrationHost=null;
+			}
+			return;
+		}
+		if(entry.z<0) {
+			entry.z=pm.model.addVar(0,1,1,true,"z_"+c.getId());//part of obj. function with coeff. 1
+			LinExpr expr=new LinExpr();
+			expr.addTerm(1,entry.z);
+			Integer xVar=entry.x.get(host);
+			if(xVar!=null) //otherwise the component must be migrated anyway
+				expr.addTerm(1,xVar);
+			entry.migrationConstr=pm.model.addConstr(expr,IMilpModel.Sense.equal,1,"Migr_"+c);
+			entry.migrationHost=host;
+		} else if(entry.migrationHost!=host) {
+			Integer oldVar=entry.x.get(entry.migrationHost);
+			if(oldVar!=null)
+				pm.model.changeCoeff(entry.migrationConstr,oldVar,0);
+			Integer newVar=entry.x.get(host);
+			if(newVar!=null)
+				pm.model.changeCoeff(entry.migrationConstr,newVar,1);
+			entry.migrationHost=host;
+		}
+	}
+
+	/**
+	 * Determine which candidate hosts of the given component may be used in the current
+	 * run, and fix the x variables of the others to 0. Returns true iff this changed.
+	 */
+	private boolean updateAllowedHosts(PersistentModel pm,Component c,ComponentEntry entry,Map<Server,Double> availableCpuCap,Map<Server,Double> availableRamCap,Colony ourColony) throws MilpException {
+		boolean changed=false;
+		for(Server s : entry.x.keySet()) {
+			if(updateAllowedHost(pm,c,entry,s,availableCpuCap.get(s),availableRamCap.get(s),ourColony))
+				changed=true;
+		}
+		return changed;
+	}
+
+	/**
+	 * Determine whether the given candidate host of the given component, with the given
+	 * available capacity, may be used in the current run, and fix its x variable to 0 if
+	 * not. Returns true iff this changed.
+	 */
+	private boolean updateAllowedHost(PersistentModel pm,Component c,ComponentEntry entry,Server s,double cpu,double ram,Colony ourColony) throws MilpException {
+		boolean allowed=(c.getCpuReq()<=cpu && c.getRamReq()<=ram);
+		//A component that colony k received from colony k' may only be placed in k or k'
+		if(pm.mode==Conductor.ModeType.communicating && entry.obtained
+				&& !ourColony.getServers().contains(s) && !s.belongsToColony(c.getTargetColony()))
+			allowed=false;
+		if(allowed==entry.allowedHosts.contains(s))
+			return false;
+		if(allowed)
+			entry.allowedHosts.add(s);
+		else
+			entry.allowedHosts.remove(s);
+		pm.model.setBounds(entry.x.get(s),0,allowed?1:0);
+		return true;
+	}
+
+	/**
+	 * Fix the path variables of the given connector to 0 for the pairs of hosts that are
+	 * not allowed in the current run, and release them for the others.
+	 */
+	private void updateAllowedPairs(PersistentModel pm,Connector conn,ConnectorEntry entry) throws MilpException {
+		for(PairPaths pair : entry.pairs) {
+			boolean allowed=(entry.constantHost1!=null || pm.components.get(conn.getV1()).allowedHosts.contains(pair.n1))
+					&& (entry.constantHost2!=null || pm.components.get(conn.getV2()).allowedHosts.contains(pair.n2));
+			if(allowed!=pair.allowed) {
+				pair.allowed=allowed;
+				for(Path p : pair.paths)
+					pm.model.setBounds(entry.y.get(p),0,allowed?1:0);
 			}
 		}
-		return paths;
 	}
 
 	/**
-	 * Perform an optimization run, trying to place the new components.
+	 * Remove the variables and constraints of the given connector from the model.
+	 */
+	private void removeConnector(PersistentModel pm,Connector conn) throws MilpException {
+		ConnectorEntry entry=pm.connectors.remove(conn);
+		for(int var : entry.y.values())
+			pm.model.removeVar(var);
+		for(int constr : entry.constrs)
+			pm.model.removeConstr(constr);
+	}
+
+	/**
+	 * Add the variables and constraints of the given connectors to the model. The candidate
+	 * paths connect candidate hosts of the ends, and fulfill the latency requirement of the
+	 * connector; they are determined in parallel for the connectors.
+	 */
+	private void addConnectors(PersistentModel pm,List<Connector> connectorList,Set<Component> ourComponents,Colony ourColony) throws MilpException {
+		List<ConnectorEntry> entries=new ArrayList<>();
+		for(Connector conn : connectorList) {
+			ConnectorEntry entry=new ConnectorEntry();
+			entry.constantHost1=getConstantHost(conn.getV1(),ourComponents);
+			entry.constantHost2=getConstantHost(conn.getV2(),ourComponents);
+			entries.add(entry);
+		}
+		IntStream.range(0,connectorList.size()).parallel().forEach(i -> {
+			Connector conn=connectorList.get(i);
+			ConnectorEntry entry=entries.get(i);
+			Set<? extends IHwNode> hosts1=(entry.constantHost1!=null)?Collections.singleton(entry.constantHost1):pm.components.get(conn.getV1()).x.keySet();
+			Set<? extends IHwNode> hosts2=(entry.constantHost2!=null)?Collections.singleton(entry.constantHost2):pm.components.get(conn.getV2()).x.keySet();
+			List<PairPaths> pairs=new ArrayList<>();
+			for(IHwNode n1 : hosts1) {
+				for(IHwNode n2 : hosts2) {
+					List<Path> paths=new ArrayList<>();
+					for(Path p : pm.pathIndex.getPaths(n1,n2)) {
+						if(p.getLatency()<=conn.getMaxLatency())
+							paths.add(p);
+					}
+					pairs.add(new PairPaths(n1,n2,paths));
+				}
+			}
+			entry.pairs=pairs;
+		});
+		for(int i=0;i<connectorList.size();i++) {
+			Connector conn=connectorList.get(i);
+			ConnectorEntry entry=entries.get(i);
+			//(11) each connector on exactly one path
+			LinExpr expr=new LinExpr();
+			for(PairPaths pair : entry.pairs) {
+				for(Path path : pair.paths) {
+					int var=pm.model.addVar(0,1,0,true,"y_"+conn.getId()+"_"+path.getId());
+					entry.y.put(path,var);
+					expr.addTerm(1,var);
+					//(17) bandwidth constraints; the right-hand sides are set at the end of the update of the model
+					for(Link l : path.getLinks()) {
+						Integer constr=pm.bwConstrs.get(l);
+						if(constr==null) {
+							constr=pm.model.addConstr(new LinExpr(),IMilpModel.Sense.lessEqual,0,"Bw_"+l.getId());
+							pm.bwConstrs.put(l,constr);
+							pm.bwRhs.put(l,Double.NaN);
+						}
+						pm.model.changeCoeff(constr,var,conn.getBwReq());
+					}
+				}
+			}
+			entry.constrs.add(pm.model.addConstr(expr,IMilpModel.Sense.equal,1,"Exactly1_"+conn.getId()));
+			pm.connectors.put(conn,entry);
+		}
+		//(14) consistency of x and y; the placement of end devices and read-only components is a constant
+		//the expressions are built in parallel for the connectors, but added to the model sequentially
+		List<List<PendingConstraint>> consistencyConstraints=new ArrayList<>(Collections.nCopies(connectorList.size(),(List<PendingConstraint>)null));
+		IntStream.range(0,connectorList.size()).parallel().forEach(i -> {
+			Connector conn=connectorList.get(i);
+			ConnectorEntry entry=entries.get(i);
+			List<PendingConstraint> constraints=new ArrayList<>();
+			for(PairPaths pair : entry.pairs) {
+				Integer x1=(entry.constantHost1==null)?pm.components.get(conn.getV1()).x.get(pair.n1):null;
+				Integer x2=(entry.constantHost2==null)?pm.components.get(conn.getV2()).x.get(pair.n2):null;
+				LinExpr expr=new LinExpr();
+				for(Path p : pair.paths)
+					expr.addTerm(1,entry.y.get(p));
+				double rhs=-1;
+				if(x1!=null)
+					expr.addTerm(-1,x1);
+				else
+					rhs+=1;
+				if(x2!=null)
+					expr.addTerm(-1,x2);
+				else
+					rhs+=1;
+				constraints.add(new PendingConstraint(expr,IMilpModel.Sense.greaterEqual,rhs,"Consistent_"+conn.getId()+"_"+pair.n1.getId()+"_"+pair.n2.getId()));
+			}
+			consistencyConstraints.set(i,constraints);
+		});
+		for(int i=0;i<connectorList.size();i++) {
+			for(PendingConstraint pc : consistencyConstraints.get(i))
+				entries.get(i).constrs.add(pm.model.addConstr(pc.expr,pc.sense,pc.rhs,pc.name));
+		}
+		//(18) latency constraints hold by the choice of the candidate paths
+		//foreign components are not migrated, since their placement is a constant
+		if(pm.mode==Conductor.ModeType.communicating) {
+			//the restriction of obtained components to our colony and their target colony is part of the allowed hosts
+			//If there is a connector c1-c2, and k' and k'' are colonies different from each other and from ours, then it is forbidden to place c1 on k' and c2 on k''
+			for(int i=0;i<connectorList.size();i++) {
+				Connector conn=connectorList.get(i);
+				ConnectorEntry entry=entries.get(i);
+				if(entry.constantHost1!=null || entry.constantHost2!=null)
+					continue;
+				Map<Server,Integer> x1Vars=pm.components.get(conn.getV1()).x;
+				Map<Server,Integer> x2Vars=pm.components.get(conn.getV2()).x;
+				for(Colony k1 : ourColony.getNeighbors()) {
+					for(Colony k2 : ourColony.getNeighbors()) {
+						if(k1==k2)
+							continue;
+						for(Server s1 : k1.getServers()) {
+							//if(freelyUsableServers.contains(s1))//case of the cloud
+							if(!pm.unpreferredServers.contains(s1))//covers both the case of the cloud and non-communicating colonies
+								continue;
+							Integer x1=x1Vars.get(s1);
+							if(x1==null)
+								continue;
+							for(Server s2 : k2.getServers()) {
+								//if(freelyUsableServers.contains(s2))//case of the cloud
+								if(!pm.unpreferredServers.contains(s2))//covers both the case of the cloud and non-communicating colonies
+									continue;
+								Integer x2=x2Vars.get(s2);
+								if(x2==null)
+									continue;
+								LinExpr expr=new LinExpr();
+								expr.addTerm(1,x1);
+								expr.addTerm(1,x2);
+								entry.constrs.add(pm.model.addConstr(expr,IMilpModel.Sense.lessEqual,1,"NoCross_"+conn.getV1()+"_"+conn.getV2()+"_"+s1+"_"+s2));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Perform an optimization run, trying to place the new components. The ILP is not
+	 * built from scratch: the persistent model of the given servers is brought up to date
+	 * (see PersistentModel), so that the effort of building the model is proportional to
+	 * the changes since the previous run. The time limit of the ILP solver is derived from
+	 * the deadline, and the solver is interrupted if the deadline is cancelled. If the ILP
+	 * solver found a solution by the time it had to stop, that solution is used. The ILP
+	 * solver is warm-started with the solution of a quick SolverSB run (or, if that fails
+	 * or is switched off with setHeuristicStart, with the current placement of the movable
+	 * components), and only looks for solutions better than that; if it finds none, the
+	 * SolverSB solution is used. If the backend fails, an IllegalStateException is thrown.
 	 */
 	@Override
 	public Result optimize(
@@ -94,14 +732,19 @@ public class SolverILP implements ISolver {
 			Set<Component> obtainedComponents,
 			Set<Component> readOnlyComponents,
 			Colony ourColony,
-			Conductor.ModeType mode) {
+			Conductor.ModeType mode,
+			Deadline deadline) {
 		long startTime=System.currentTimeMillis();
 		Result result=new Result();
-		Infrastructure infra=bookKeeper.getInfra();
+		if(deadline.isExpired()) {
+			result.timeouts=1;
+			result.timeMs=System.currentTimeMillis()-startTime;
+			return result;
+		}
 		//preparing collections
 		Set<Component> ourComponents=union(newComponents,fullyControlledComponents,obtainedComponents);
 		Set<Component> allComponents=union(ourComponents,readOnlyComponents);
-		Set<Component> oldComponents=union(fullyControlledComponents,obtainedComponents,readOnlyComponents);
+		Set<Component> movableComponents=union(fullyControlledComponents,obtainedComponents);
 		Set<Connector> allConnectors=new HashSet<>();
 		for(Component comp : ourComponents)
 			allConnectors.addAll(comp.getConnectors());
@@ -121,238 +764,224 @@ public class SolverILP implements ISolver {
 				System.exit(-1);
 			}
 		}
-		Set<EndDevice> endDevices=new HashSet<>();
-		for(Component comp : allComponents) {
-			for(Connector conn : comp.getConnectors()) {
-				ISwNode other=conn.getOtherVertex(comp);
-				if(other.isEndDevice())
-					endDevices.add((EndDevice)other);
-			}
-		}
-		Set<ISwNode> allSwNodes=new HashSet<>(allComponents);
-		allSwNodes.addAll(endDevices);
-		Set<Server> servers=union(freelyUsableServers,unpreferredServers);
-		Set<IHwNode> allHwNodes=new HashSet<>(servers);
-		allHwNodes.addAll(endDevices);
-		Set<Path> allPaths=getRelevantPaths(infra,allHwNodes);
-		Set<Link> allLinks=getRelevantLinks(allHwNodes);
-		//creating variables
-		Map2d<ISwNode,IHwNode,GRBVar> x=new Map2d<>();
-		Map2d<Connector,Path,GRBVar> y=new Map2d<>();
-		Map<Component,GRBVar> z=new HashMap<>();
+		PersistentModel pm=null;
 		try {
-			GRBEnv env=new GRBEnv("milp.log");
-			GRBModel model=new GRBModel(env);
-			for(ISwNode sn : allSwNodes) {
-				for(IHwNode hn : allHwNodes) {
-					double objWeight=0;
-					if(unpreferredServers.contains(hn))
-						objWeight=mu;
-					GRBVar var=model.addVar(0,1,objWeight,GRB.BINARY,"x_"+sn.getId()+"_"+hn.getId());
-					x.put(sn,hn,var);
-				}
+			pm=getModel(freelyUsableServers,unpreferredServers,mode);
+			IMilpModel model=pm.model;
+			//the available capacity, i.e., the capacity that would be free if our movable components were unplaced
+			Map<Server,Double> availableCpuCap=new HashMap<>();
+			Map<Server,Double> availableRamCap=new HashMap<>();
+			for(Server s : pm.servers) {
+				availableCpuCap.put(s,bookKeeper.getFreeCpuCap(s));
+				availableRamCap.put(s,bookKeeper.getFreeRamCap(s));
 			}
-			for(Connector conn : allConnectors) {
-				for(Path path : allPaths) {
-					GRBVar var=model.addVar(0,1,0,GRB.BINARY,"y_"+conn.getId()+"_"+path.getId());
-					y.put(conn,path,var);
+			for(Component c : movableComponents) {
+				Server s=bookKeeper.getHost(c);
+				if(pm.servers.contains(s)) {
+					availableCpuCap.put(s,availableCpuCap.get(s)+c.getCpuReq());
+					availableRamCap.put(s,availableRamCap.get(s)+c.getRamReq());
 				}
 			}
-			for(Component comp : oldComponents) {
-				GRBVar var=model.addVar(0,1,1,GRB.BINARY,"z_"+comp.getId());//part of obj. function with coeff. 1
-				z.put(comp, var);
-			}
-			//(9)-(10) each component on exactly one server and on no end device
+			//the candidate paths may use the end devices connected to components in scope; if these have changed,
+			//the connectors with a pair of hosts whose relevant paths have changed are rebuilt
+			Set<EndDevice> endDevices=new HashSet<>();
 			for(Component comp : allComponents) {
-				GRBLinExpr expr = new GRBLinExpr();
-				for(Server s : servers) {
-					GRBVar var=x.get(comp,s);
-					expr.addTerm(1,var);
+				for(Connector conn : comp.getConnectors()) {
+					ISwNode other=conn.getOtherVertex(comp);
+					if(other.isEndDevice())
+						endDevices.add((EndDevice)other);
 				}
-				model.addConstr(expr,GRB.EQUAL,1,"Exactly1_"+comp.getId());
-				for(EndDevice dev : endDevices) {
-					expr = new GRBLinExpr();
-					GRBVar var=x.get(comp,dev);
-					expr.addTerm(1,var);
-					model.addConstr(expr,GRB.EQUAL,0,"Surely0_"+comp.getId()+"_"+dev.getId());
+			}
+			if(!endDevices.equals(pm.endDevices)) {
+				Set<IHwNode> nodes=new HashSet<>(pm.servers);
+				nodes.addAll(endDevices);
+				pm.endDevices=endDevices;
+				Map<IHwNode,Set<IHwNode>> changedPairs=pm.pathIndex.setNodes(nodes);
+				for(Connector conn : new ArrayList<>(pm.connectors.keySet())) {
+					for(PairPaths pair : pm.connectors.get(conn).pairs) {
+						if(changedPairs.getOrDefault(pair.n1,Collections.emptySet()).contains(pair.n2)) {
+							removeConnector(pm,conn);
+							break;
+						}
+					}
 				}
 			}
-			//(11) each connector on exactly one path
-			for(Connector conn : allConnectors) {
-				GRBLinExpr expr=new GRBLinExpr();
-				for(Path path : allPaths) {
-					GRBVar var=y.get(conn,path);
-					expr.addTerm(1,var);
+			//remove the connectors and components that are not ours anymore, and the connectors whose constant ends have moved
+			for(Connector conn : new ArrayList<>(pm.connectors.keySet())) {
+				ConnectorEntry entry=pm.connectors.get(conn);
+				if(!allConnectors.contains(conn)
+						|| entry.constantHost1!=getConstantHost(conn.getV1(),ourComponents)
+						|| entry.constantHost2!=getConstantHost(conn.getV2(),ourComponents))
+					removeConnector(pm,conn);
+			}
+			for(Component c : new ArrayList<>(pm.components.keySet())) {
+				if(!ourComponents.contains(c))
+					removeComponent(pm,c);
+			}
+			//add the new components, and update the migration constraints of those whose movability or host has changed
+			Set<Component> affectedComponents=new HashSet<>();
+			for(Component c : ourComponents) {
+				ComponentEntry entry=pm.components.get(c);
+				boolean moved=pm.movedComponents.remove(c);
+				if(entry==null) {
+					entry=addComponent(pm,c);
+					affectedComponents.add(c);
+					moved=true;
+				}
+				boolean obtained=obtainedComponents.contains(c);
+				if(entry.obtained!=obtained) {
+					entry.obtained=obtained;
+					affectedComponents.add(c);
+				}
+				boolean movable=movableComponents.contains(c);
+				if(moved || entry.movable!=movable) {
+					entry.movable=movable;
+					updateMigration(pm,c,entry,movable?bookKeeper.getHost(c):null);
 				}
-				model.addConstr(expr,GRB.EQUAL,1,"Exactly1_"+conn.getId());
 			}
-			//(12)-(13) each end device on itself
-			for(EndDevice dev : endDevices) {
-				for(IHwNode hn : allHwNodes) {
-					GRBLinExpr expr = new GRBLinExpr();
-					GRBVar var=x.get(dev,hn);
-					expr.addTerm(1,var);
-					if(dev!=hn)
-						model.addConstr(expr,GRB.EQUAL,0,"Surely0_"+dev.getId()+"_"+hn.getId());
-					else
-						model.addConstr(expr,GRB.EQUAL,1,"Surely1_"+dev.getId());
+			pm.movedComponents.retainAll(pm.components.keySet()); //the others are added to the model from scratch, if at all
+			//restrict the new components and those whose colony restriction has changed to the hosts that may be used in this run
+			Set<Connector> affectedConnectors=new HashSet<>();
+			for(Component c : affectedComponents) {
+				if(updateAllowedHosts(pm,c,pm.components.get(c),availableCpuCap,availableRamCap,ourColony)) {
+					for(Connector conn : c.getConnectors()) {
+						if(pm.connectors.containsKey(conn))
+							affectedConnectors.add(conn);
+					}
 				}
 			}
-			//(14) consistency of x and y
-			for(Connector conn : allConnectors) {
-				for(IHwNode n1 : allHwNodes) {
-					GRBVar x1=x.get(conn.getV1(), n1);
-					for(IHwNode n2 : allHwNodes) {
-						GRBLinExpr expr = new GRBLinExpr();
-						GRBVar x2=x.get(conn.getV2(), n2);
-						for(Path p : getRelevantPaths(infra,n1,n2,allHwNodes)) {
-							GRBVar yVar=y.get(conn, p);
-							expr.addTerm(1,yVar);
+			//update the capacity constraints; a server is only re-checked for the components that fit into exactly one of its old and new capacities
+			for(Server s : pm.servers) {
+				double cpu=availableCpuCap.get(s);
+				double ram=availableRamCap.get(s);
+				double oldCpu=pm.cpuRhs.get(s);
+				double oldRam=pm.ramRhs.get(s);
+				if(cpu==oldCpu && ram==oldRam)
+					continue;
+				model.setRhs(pm.cpuConstrs.get(s),cpu);
+				model.setRhs(pm.ramConstrs.get(s),ram);
+				pm.cpuRhs.put(s,cpu);
+				pm.ramRhs.put(s,ram);
+				DemandIndex index=pm.componentsOfServer.get(s);
+				if(index==null)
+					continue;
+				for(Component c : index.getCrossing(oldCpu,oldRam,cpu,ram)) {
+					if(affectedComponents.contains(c)) //already up to date
+						continue;
+					if(updateAllowedHost(pm,c,pm.components.get(c),s,cpu,ram,ourColony)) {
+						for(Connector conn : c.getConnectors()) {
+							if(pm.connectors.containsKey(conn))
+								affectedConnectors.add(conn);
 						}
-						expr.addTerm(-1,x1);
-						expr.addTerm(-1,x2);
-						//System.out.println("conn: "+conn+", n1: "+n1+", n2: "+n2+", x1: "+x1+", x2: "+x2);//just for debugging purposes
-						model.addConstr(expr,GRB.GREATER_EQUAL,-1,"Consistent_"+conn.getId()+"_"+n1.getId()+"_"+n2.getId());
 					}
 				}
 			}
-			//(15)-(16) node capacity constraints
-			//first, we need to calculate the available capacity, i.e., the capacity that would be free if our components were unplaced
-			Map<Server,Double> availableCpuCap=new HashMap<>();
-			Map<Server,Double> availableRamCap=new HashMap<>();
-			for(Server s : servers) {
-				availableCpuCap.put(s,bookKeeper.getFreeCpuCap(s));
-				availableRamCap.put(s,bookKeeper.getFreeRamCap(s));
+			List<Connector> newConnectors=new ArrayList<>();
+			for(Connector conn : allConnectors) {
+				if(!pm.connectors.containsKey(conn))
+					newConnectors.add(conn);
 			}
-			for(Component c : oldComponents) {
-				Server s=bookKeeper.getHost(c);
-				availableCpuCap.put(s,availableCpuCap.get(s)+c.getCpuReq());
-				availableRamCap.put(s,availableRamCap.get(s)+c.getRamReq());
-			}
-			for(Server s : servers) {
-				GRBLinExpr expr1 = new GRBLinExpr();
-				GRBLinExpr expr2 = new GRBLinExpr();
-				for(Component c : allComponents) {
-					GRBVar xVar=x.get(c, s);
-					expr1.addTerm(c.getCpuReq(), xVar);
-					expr2.addTerm(c.getRamReq(), xVar);
-				}
-				model.addConstr(expr1,GRB.LESS_EQUAL,availableCpuCap.get(s),"NodeCpu_"+s.getId());
-				model.addConstr(expr2,GRB.LESS_EQUAL,availableRamCap.get(s),"NodeRam_"+s.getId());
-			}
-			//(17) bandwidth constraints
-			//first, we need to calculate the available bandwidth, i.e., the bandwidth that would be free if our connectors were unrouted
-			Map<Link,Double> availableBw=new HashMap<>();
-			for(Link l : allLinks)
-				availableBw.put(l,bookKeeper.getFreeBandwidth(l));
-			for(Connector c : allConnectors) {
-				Path p=bookKeeper.getPath(c);
+			addConnectors(pm,newConnectors,ourComponents,ourColony);
+			affectedConnectors.addAll(newConnectors);
+			for(Connector conn : affectedConnectors)
+				updateAllowedPairs(pm,conn,pm.connectors.get(conn));
+			//the available bandwidth, i.e., the bandwidth that would be free if our connectors were unrouted
+			Map<Link,Double> ourBw=new HashMap<>();
+			for(Connector conn : allConnectors) {
+				Path p=bookKeeper.getPath(conn);
 				if(p!=null) {
-					for(Link l : p.getLinks()) {
-						if(allLinks.contains(l))
-							availableBw.put(l,availableBw.get(l)+c.getBwReq());
-					}
+					for(Link l : p.getLinks())
+						ourBw.merge(l,conn.getBwReq(),Double::sum);
 				}
 			}
-			for(Link l : allLinks) {
-				GRBLinExpr expr = new GRBLinExpr();
-				for(Path p : allPaths) {
-					if(p.contains(l)) {
-						for(Connector conn : allConnectors) {
-							GRBVar yVar=y.get(conn, p);
-							expr.addTerm(conn.getBwReq(), yVar);
-						}
-					}
+			for(Link l : pm.bwConstrs.keySet()) {
+				double bw=bookKeeper.getFreeBandwidth(l)+ourBw.getOrDefault(l,0.0);
+				if(bw!=pm.bwRhs.get(l)) {
+					model.setRhs(pm.bwConstrs.get(l),bw);
+					pm.bwRhs.put(l,bw);
 				}
-				model.addConstr(expr,GRB.LESS_EQUAL,availableBw.get(l),"Bw_"+l.getId());
 			}
-			//(18) latency constraints
-			for(Connector conn : allConnectors) {
-				GRBLinExpr expr = new GRBLinExpr();
-				for(Path p : allPaths) {
-					GRBVar yVar=y.get(conn, p);
-					expr.addTerm(p.getLatency(), yVar);
+			//if some component cannot be placed or some connector cannot be routed at all, there is no need for the ILP solver
+			boolean feasible=true;
+			for(Component c : ourComponents) {
+				if(pm.components.get(c).allowedHosts.isEmpty())
+					feasible=false;
+			}
+			for(Connector conn : affectedConnectors) {
+				boolean hasPath=false;
+				for(PairPaths pair : pm.connectors.get(conn).pairs) {
+					if(pair.allowed && !pair.paths.isEmpty())
+						hasPath=true;
 				}
-				model.addConstr(expr,GRB.LESS_EQUAL,conn.getMaxLatency(),"Latency_"+conn.getId());
-			}
-			//(19) setting migration variables
-			for(Component c : oldComponents) {
-				GRBVar zVar=z.get(c);
-				GRBVar xVar=x.get(c,bookKeeper.getHost(c));
-				GRBLinExpr expr = new GRBLinExpr();
-				expr.addTerm(1, zVar);
-				expr.addTerm(1, xVar);
-				model.addConstr(expr,GRB.EQUAL,1,"Migr_"+c);
-			}
-			//foreign components must not be migrated
-			for(Component c : readOnlyComponents) {
-				Server s=bookKeeper.getHost(c);
-				GRBVar xVar=x.get(c, s);
-				GRBLinExpr expr = new GRBLinExpr();
-				expr.addTerm(1, xVar);
-				model.addConstr(expr,GRB.EQUAL,1,"NoMigr_"+c);
-			}
-			if(mode==Conductor.ModeType.communicating) {
-				//A component that colony k received from colony k' may only be placed in k or k'
-				for(Component c : obtainedComponents) {
-					int targetColony=c.getTargetColony();
-					for(Server s : servers) {
-						if(!ourColony.getServers().contains(s) && !s.belongsToColony(targetColony)) {
-							GRBVar xVar=x.get(c, s);
-							GRBLinExpr expr = new GRBLinExpr();
-							expr.addTerm(1, xVar);
-							model.addConstr(expr,GRB.EQUAL,0,"NoForward_"+c+"_"+s);
-						}
-					}
+				if(!hasPath)
+					feasible=false;
+			}
+			if(!feasible) {
+				result.success=0;
+				result.migrations=0;
+				result.timeMs=System.currentTimeMillis()-startTime;
+				if(printResult)
+					System.out.println("Result: "+result);
+				return result;
+			}
+			//MIP start: a quick SolverSB run on a copy of the bookkeeper; if it fails or is switched off, only the current placement of the movable components is used
+			BookKeeper startPlacement=bookKeeper;
+			Result heuristicResult=new Result();
+			if(heuristicStart) {
+				startPlacement=new BookKeeper(bookKeeper);
+				SolverSB heuristic=new SolverSB(startPlacement);
+				heuristic.setQuiet(true);
+				heuristicResult=heuristic.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,deadline.child(heuristicTimeLimitMs));
+				if(heuristicResult.success==0)
+					startPlacement=bookKeeper;
+			}
+			//set the MIP start; if it is complete, only better solutions are of interest
+			model.clearStart();
+			boolean completeStart=heuristicResult.success>0;
+			double startObjective=0;
+			for(Component c : ourComponents) {
+				ComponentEntry entry=pm.components.get(c);
+				Server s=startPlacement.getHost(c);
+				if(s==null || !entry.allowedHosts.contains(s)) {
+					completeStart=false;
+					continue;
 				}
-				//If there is a connector c1-c2, and k' and k'' are colonies different from each other and from ours, then it is forbidden to place c1 on k' and c2 on k''
-				for(Connector conn : allConnectors) {
-					ISwNode sn1=conn.getV1();
-					ISwNode sn2=conn.getV2();
-					if(!ourComponents.contains(sn1) || !ourComponents.contains(sn2))
-						continue;
-					if(sn1 instanceof Component && sn2 instanceof Component) {
-						for(Colony k1 : ourColony.getNeighbors()) {
-							for(Colony k2 : ourColony.getNeighbors()) {
-								if(k1==k2)
-									continue;
-								for(Server s1 : k1.getServers()) {
-									//if(freelyUsableServers.contains(s1))//case of the cloud
-									if(!unpreferredServers.contains(s1))//covers both the case of the cloud and non-communicating colonies
-										continue;
-									GRBVar x1=x.get(sn1,s1);
-									for(Server s2 : k2.getServers()) {
-										//if(freelyUsableServers.contains(s2))//case of the cloud
-										if(!unpreferredServers.contains(s2))//covers both the case of the cloud and non-communicating colonies
-											continue;
-										GRBVar x2=x.get(sn2,s2);
-										GRBLinExpr expr = new GRBLinExpr();
-										expr.addTerm(1,x1);
-										expr.addTerm(1,x2);
-										//System.out.println("NoCross_"+sn1+"_"+sn2+"_"+s1+"_"+s2);
-										model.addConstr(expr,GRB.LESS_EQUAL,1,"NoCross_"+sn1+"_"+sn2+"_"+s1+"_"+s2);
-									}
-								}
-							}
-						}
-					}
+				for(Server hn : entry.x.keySet())
+					model.setStart(entry.x.get(hn),(hn==s)?1:0);
+				if(unpreferredServers.contains(s))
+					startObjective+=mu;
+				if(entry.z>=0) {
+					boolean migrated=(s!=bookKeeper.getHost(c));
+					model.setStart(entry.z,migrated?1:0);
+					if(migrated)
+						startObjective+=1;
 				}
 			}
+			for(Connector conn : allConnectors) {
+				ConnectorEntry entry=pm.connectors.get(conn);
+				Path p=startPlacement.getPath(conn);
+				if(p==null || entry.y.get(p)==null) {
+					completeStart=false;
+					continue;
+				}
+				for(Path path : entry.y.keySet())
+					model.setStart(entry.y.get(path),(path==p)?1:0);
+			}
+			//the objective coefficients are integral, so a better solution is better by at least 1
+			model.setCutoff(completeStart?startObjective+0.5:Double.POSITIVE_INFINITY);
 			//perform optimization
-			//model.write("model.lp");
-			model.getEnv().set(GRB.DoubleParam.TimeLimit,60);
-			model.getEnv().set(GRB.IntParam.LogToConsole,0);
-			model.optimize();
-			if(model.get(IntAttr.SolCount)>0) {
-				//model.write("solution.sol");
+			//the backend derives the time limit from the deadline and stops if the deadline is cancelled
+			model.setTimeLimit(maxTimeLimitSec);
+			model.setDeadline(deadline);
+			if(model.optimize()) {
 				result.success=1;
 				result.migrations=0;
 				//retrieve solution
 				for(Component comp : ourComponents) {
+					ComponentEntry entry=pm.components.get(comp);
 					Server oldServer=bookKeeper.getHost(comp);
-					for(Server s : servers) {
-						GRBVar var=x.get(comp,s);
-						if(var.get(GRB.DoubleAttr.X)>0.5) {
+					for(Server s : entry.allowedHosts) {
+						if(model.getValue(entry.x.get(s))>0.5) {
 							if(newComponents.contains(comp))
 								bookKeeper.place(comp,s);
 							else if(s!=oldServer) {
@@ -365,33 +994,46 @@ public class SolverILP implements ISolver {
 					}
 				}
 				for(Connector conn : allConnectors) {
+					ConnectorEntry entry=pm.connectors.get(conn);
 					Path oldPath=bookKeeper.getPath(conn);
-					for(Path p: allPaths) {
-						GRBVar var=y.get(conn,p);
-						if(var.get(GRB.DoubleAttr.X)>0.5) {
-							if(oldPath==null)
-								bookKeeper.route(conn,p);
-							else if(p!=oldPath) {
-								bookKeeper.unRoute(conn);
-								bookKeeper.route(conn,p);
+					for(PairPaths pair : entry.pairs) {
+						if(!pair.allowed)
+							continue;
+						for(Path p : pair.paths) {
+							if(model.getValue(entry.y.get(p))>0.5) {
+								if(oldPath==null)
+									bookKeeper.route(conn,p);
+								else if(p!=oldPath) {
+									bookKeeper.unRoute(conn);
+									bookKeeper.route(conn,p);
+								}
+								break;
 							}
-							break;
 						}
 					}
 				}
+			} else if(heuristicResult.success>0) { //no solution within the cutoff found in time, so the MIP start itself is used
+				bookKeeper.copyPlacementFrom(startPlacement,ourComponents);
+				result.success=1;
+				result.migrations=heuristicResult.migrations;
 			} else {
 				result.success=0;
 				result.migrations=0;
+				//the time limit of the backend stops the search just like the deadline
+				if(model.wasStopped() || deadline.isExpired())
+					result.timeouts=1;
 			}
-			model.dispose();
-			env.dispose();
-		} catch (GRBException e) {
-			e.printStackTrace();
-			result.success=0;
-			result.migrations=0;
+		} catch (MilpException e) {
+			if(pm!=null) { //the model may be inconsistent, so it is rebuilt in the next run
+				models.remove(pm.freelyUsableServers);
+				disposeQuietly(pm);
+			}
+			//a failure of the backend says nothing about the placement, so it must not be recorded as an unsuccessful run
+			throw new IllegalStateException("ILP backend "+backend+" failed",e);
 		}
 		result.timeMs=System.currentTimeMillis()-startTime;
-		System.out.println("Result: "+result);
+		if(printResult)
+			System.out.println("Result: "+result);
 		return result;
 	}
 }
@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solver for large applications. The new components are partitioned with the
+ * GraphPartitioner into parts of about targetPartSize components, such that little
+ * bandwidth is required between the parts. The servers are split into disjoint candidate
+ * sets, one for each part, and the parts are placed concurrently (on virtual threads) by
+ * SolverSB, each on its own copy of the BookKeeper state. The resulting placements and
+ * routes serve as hints for a final SolverSB run on the real BookKeeper, which takes over
+ * the hinted hosts and paths where they are still valid, routes the connectors between
+ * the parts, and falls back to the usual search (including migrations) for everything
+ * else. Small applications are passed to SolverSB directly.
+ */
+public class SolverPartitioned implements ISolver {
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** Desired number of components per part */
+	private int targetPartSize;
+	/** The partitioner of the component graphs */
+	private GraphPartitioner partitioner;
+
+	/**
+	 * Constructor. Applications with less than twice targetPartSize new components are
+	 * not partitioned.
+	 */
+	public SolverPartitioned(BookKeeper bookKeeper,int targetPartSize) {
+		this.bookKeeper=bookKeeper;
+		this.targetPartSize=targetPartSize;
+		partitioner=new GraphPartitioner();
+	}
+
+	/**
+	 * Split the given servers into disjoint candidate sets for the given parts. Servers
+	 * are assigned in decreasing order of their free CPU capacity, each to the part whose
+	 * CPU requirement is currently the least covered by the servers assigned to it.
+	 */
+	private List<Set<Server>> splitServers(List<Server> servers,List<List<Component>> parts) {
+		List<Server> sortedServers=new ArrayList<>(servers);
+		Collections.sort(sortedServers,new Comparator<Server>() {
+			@Override
+			public int compare(Server lhs,Server rhs) {
+				return Double.compare(bookKeeper.getFreeCpuCap(rhs),bookKeeper.getFreeCpuCap(lhs));
+			}
+		});
+		double[] demand=new double[parts.size()];
+		double[] assigned=new double[parts.size()];
+		List<Set<Server>> candidates=new ArrayList<>();
+		for(int i=0;i<parts.size();i++) {
+			for(Component c : parts.get(i))
+				demand[i]+=c.getCpuReq();
+			demand[i]=Math.max(demand[i],1e-9); //avoid division by zero
+			candidates.add(new HashSet<>());
+		}
+		for(Server s : sortedServers) {
+			int neediest=0;
+			for(int i=1;i<parts.size();i++) {
+				if(assigned[i]/demand[i]<assigned[neediest]/demand[neediest])
+					neediest=i;
+			}
+			candidates.get(neediest).add(s);
+			assigned[neediest]+=bookKeeper.getFreeCpuCap(s);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Perform an optimization run, trying to place the new components.
+	 */
+	@Override
+	public Result optimize(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents,
+			Set<Component> readOnlyComponents,
+			Colony ourColony,
+			Conductor.ModeType mode,
+			Deadline deadline) {
+		if(newComponents.size()<2*targetPartSize)
+			return new SolverSB(bookKeeper).optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,deadline);
+		long startTime=System.currentTimeMillis();
+		int k=(newComponents.size()+targetPartSize-1)/targetPartSize;
+		List<List<Component>> parts=partitioner.partition(new ArrayList<>(newComponents),k);
+		List<Server> servers=new ArrayList<>(freelyUsableServers);
+		servers.addAll(unpreferredServers);
+		List<Set<Server>> candidates=splitServers(servers,parts);
+		//in the sub-problems, the already placed components are not moved
+		Set<Component> fixedComponents=new HashSet<>(readOnlyComponents);
+		fixedComponents.addAll(fullyControlledComponents);
+		fixedComponents.addAll(obtainedComponents);
+		Set<Server> allServers=new HashSet<>(servers);
+		//solve the sub-problems
+		Map<Component,Server> hostHints=new HashMap<>();
+		Map<Connector,Path> pathHints=new HashMap<>();
+		List<Future<BookKeeper>> futures=new ArrayList<>();
+		//own token of the sub-problems, so that they can be stopped if one of them fails
+		Deadline partsDeadline=deadline.child(0);
+		try(ExecutorService executor=Executors.newVirtualThreadPerTaskExecutor()) {
+			for(int i=0;i<parts.size();i++) {
+				Set<Component> part=new HashSet<>(parts.get(i));
+				Set<Server> freelyUsable=new HashSet<>(candidates.get(i));
+				freelyUsable.retainAll(freelyUsableServers);
+				Set<Server> unpreferred=new HashSet<>(candidates.get(i));
+				unpreferred.retainAll(unpreferredServers);
+				futures.add(executor.submit(() -> {
+					BookKeeper fork=new BookKeeper(bookKeeper);
+					SolverSB solver=new SolverSB(fork);
+					solver.setQuiet(true);
+					//the servers of the other parts may be used for routing, but not for placement
+					solver.optimize(freelyUsable,unpreferred,part,new HashSet<>(),new HashSet<>(),fixedComponents,ourColony,mode,partsDeadline,allServers,new HashMap<>(),new HashMap<>());
+					return fork;
+				}));
+			}
+			for(int i=0;i<parts.size();i++) {
+				BookKeeper fork;
+				try {
+					fork=futures.get(i).get();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch(ExecutionException e) { //a failing sub-problem is a bug, so the others are stopped and the failure is passed on
+					partsDeadline.cancel();
+					Throwable cause=e.getCause();
+					if(cause instanceof RuntimeException)
+						throw (RuntimeException)cause;
+					if(cause instanceof Error)
+						throw (Error)cause;
+					throw new IllegalStateException("Sub-problem of SolverPartitioned failed",cause);
+				}
+				for(Component c : parts.get(i)) {
+					Server s=fork.getHost(c);
+					if(s!=null)
+						hostHints.put(c,s);
+					for(Connector conn : c.getConnectors()) {
+						Path p=fork.getPath(conn);
+						if(p!=null)
+							pathHints.put(conn,p);
+					}
+				}
+			}
+		}
+		//final run on the real bookKeeper, which also routes the connectors between the parts
+		SolverSB solver=new SolverSB(bookKeeper);
+		solver.setQuiet(true);
+		Result result=solver.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,deadline,new HashSet<Server>(),hostHints,pathHints);
+		result.timeMs=System.currentTimeMillis()-startTime;
+		System.out.println("Result: "+result);
+		return result;
+	}
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Portfolio solver. Runs several variants of SolverSB concurrently (on virtual
+ * threads), each on its own copy of the BookKeeper state. The variants cycle through
+ * the orderings of new components supported by SolverSB; the first round of variants
+ * uses the default tie-breaking (variant 0 being the default SolverSB), while further
+ * variants break ties in the orderings of components and servers randomly. The solution of one successful variant is then committed to the real
+ * BookKeeper: either the first successful one, or the one with the fewest migrations
+ * among the variants finishing within the time budget.
+ */
+public class SolverPortfolio implements ISolver {
+	/** Criteria for choosing the variant whose solution is committed */
+	enum SelectionType {firstSuccess,fewestMigrations}
+	/** Reference to the bookKeeper */
+	private BookKeeper bookKeeper;
+	/** Number of variants run in each optimization run */
+	private int nrVariants;
+	/** Time budget of the variants (in milliseconds); 0 means that only the deadline of the optimization run applies */
+	private long timeBudgetMs;
+	/** How to choose among the successful variants */
+	private SelectionType selection;
+	/** Random generator for creating the seeds of the randomized variants */
+	private Random seedGenerator;
+
+	/** The outcome of running a variant: the Result and the BookKeeper copy containing the solution */
+	class VariantRun {
+		/** The BookKeeper copy the variant worked on */
+		private BookKeeper fork;
+		/** The Result of the variant */
+		private Result result;
+
+		/** Construct new outcome */
+		public VariantRun(BookKeeper fork,Result result) {
+			this.fork=fork;
+			this.result=result;
+		}
+	}
+
+	/**
+	 * Constructor. The seed determines the tie-breaking of the randomized variants.
+	 */
+	public SolverPortfolio(BookKeeper bookKeeper,int nrVariants,long timeBudgetMs,SelectionType selection,long seed) {
+		this.bookKeeper=bookKeeper;
+		this.nrVariants=nrVariants;
+		this.timeBudgetMs=timeBudgetMs;
+		this.selection=selection;
+		seedGenerator=new Random(seed);
+	}
+
+	/**
+	 * Perform an optimization run, trying to place the new components. The variants stop
+	 * when the deadline expires, when their time budget is used up, or when the variant
+	 * to be committed has been found.
+	 */
+	@Override
+	public Result optimize(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents,
+			Set<Component> readOnlyComponents,
+			Colony ourColony,
+			Conductor.ModeType mode,
+			Deadline deadline) {
+		long startTime=System.currentTimeMillis();
+		Result result=new Result();
+		List<Deadline> tokens=new ArrayList<>();
+		VariantRun best=null;
+		boolean timedOut=false;
+		ExecutorService executor=Executors.newVirtualThreadPerTaskExecutor();
+		ExecutorCompletionService<VariantRun> completionService=new ExecutorCompletionService<>(executor);
+		for(int i=0;i<nrVariants;i++) {
+			SolverSB.OrderingType[] orderings=SolverSB.OrderingType.values();
+			SolverSB.OrderingType ordering=orderings[i%orderings.length];
+			Random tieBreaker=(i<orderings.length)?null:new Random(seedGenerator.nextLong());
+			Deadline token=deadline.child(timeBudgetMs);
+			tokens.add(token);
+			completionService.submit(() -> {
+				BookKeeper fork=new BookKeeper(bookKeeper);
+				SolverSB solver=new SolverSB(fork,ordering,tieBreaker);
+				solver.setQuiet(true);
+				Result r=solver.optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,token);
+				return new VariantRun(fork,r);
+			});
+		}
+		for(int i=0;i<nrVariants;i++) {
+			VariantRun run;
+			try {
+				run=completionService.take().get();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch(ExecutionException e) { //a failing variant is a bug, so the others are stopped and the failure is passed on
+				for(Deadline token : tokens)
+					token.cancel();
+				executor.close();
+				Throwable cause=e.getCause();
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				if(cause instanceof Error)
+					throw (Error)cause;
+				throw new IllegalStateException("Variant of SolverPortfolio failed",cause);
+			}
+			if(run.result.timeouts>0)
+				timedOut=true;
+			if(run.result.success==0)
+				continue;
+			if(best==null || run.result.migrations<best.result.migrations)
+				best=run;
+			if(selection==SelectionType.firstSuccess || best.result.migrations==0) //no other variant can be better
+				break;
+		}
+		//stop the remaining variants and wait for them, so that none of them reads the BookKeeper while we commit
+		for(Deadline token : tokens)
+			token.cancel();
+		executor.close();
+		if(best!=null) {
+			Set<Component> ourComponents=new HashSet<>(newComponents);
+			ourComponents.addAll(fullyControlledComponents);
+			ourComponents.addAll(obtainedComponents);
+			bookKeeper.copyPlacementFrom(best.fork,ourComponents);
+			result.success=1;
+			result.migrations=best.result.migrations;
+		} else {
+			result.success=0;
+			if(timedOut)
+				result.timeouts=1;
+		}
+		result.timeMs=System.currentTimeMillis()-startTime;
+		System.out.println("Result: "+result);
+		return result;
+	}
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -16,8 +17,23 @@ import java.util.Set;
  * be applied to different problem instances.
  */
 public class SolverSB implements ISolver {
+	/** Supported orderings of the new components. In each of them, the components are visited by a BFS in the application graph starting from the components connected to end devices */
+	enum OrderingType {
+		/** BFS order, i.e., increasing distance from the end devices */
+		distanceFromEndDevices,
+		/** Increasing distance from the end devices; within the same distance, components with higher resource requirements first */
+		mostConstrainedFirst,
+		/** BFS that follows the connectors in decreasing order of their bandwidth requirement, so that heavily communicating components are placed one after the other */
+		bandwidthWeighted
+	}
 	/** Reference to the bookKeeper */
 	private BookKeeper bookKeeper;
+	/** The order in which the new components are placed */
+	private OrderingType ordering;
+	/** Contraction of tightly coupled new components into groups that are placed on the same server, or null if no contraction is performed */
+	private CoLocationContraction contraction;
+	/** Random generator for breaking ties in the orderings of components and servers, or null for the default order */
+	private Random tieBreaker;
 
 	/** Interface for undoable placement and routing actions */
 	interface IAction {
@@ -94,12 +110,14 @@ public class SolverSB implements ISolver {
 		@Override
 		public void doIt() {
 			bookKeeper.route(c,p);
+			invalidateRoutes(p);
 		}
 
 		/** Undo the routing action */
 		@Override
 		public void undo() {
 			bookKeeper.unRoute(c);
+			invalidateRoutes(p);
 		}
 	}
 
@@ -120,12 +138,14 @@ public class SolverSB implements ISolver {
 		@Override
 		public void doIt() {
 			bookKeeper.unRoute(c);
+			invalidateRoutes(p);
 		}
 
 		/** Undo the un-routing action */
 		@Override
 		public void undo() {
 			bookKeeper.route(c,p);
+			invalidateRoutes(p);
 		}
 	}
 
@@ -163,19 +183,162 @@ public class SolverSB implements ISolver {
 	/** The stack of undoable actions */
 	private ActionStack actionStack;
 
+	/** A query to findRoute, used as key in the memo table of routes */
+	static class RouteQuery {
+		/** Source node */
+		private IHwNode n1;
+		/** Target node */
+		private IHwNode n2;
+		/** Bandwidth requirement of the connector to route */
+		private double bwReq;
+		/** Maximum allowed latency of the connector to route */
+		private double maxLatency;
+
+		/** Construct new query */
+		public RouteQuery(IHwNode n1,IHwNode n2,double bwReq,double maxLatency) {
+			this.n1=n1;
+			this.n2=n2;
+			this.bwReq=bwReq;
+			this.maxLatency=maxLatency;
+		}
+
+		/** Two queries are equal if they ask for the same route */
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof RouteQuery))
+				return false;
+			RouteQuery other=(RouteQuery)o;
+			return n1==other.n1 && n2==other.n2 && bwReq==other.bwReq && maxLatency==other.maxLatency;
+		}
+
+		/** Hash code consistent with equals */
+		@Override
+		public int hashCode() {
+			return ((n1.hashCode()*31+n2.hashCode())*31+Double.hashCode(bwReq))*31+Double.hashCode(maxLatency);
+		}
+	}
+
+	/** A memoized answer of findRoute */
+	static class RouteAnswer {
+		/** The path found, or null if no valid path was found */
+		private Path path;
+		/** False if the free bandwidth has changed on a link that the answer depends on */
+		private boolean valid;
+
+		/** Construct new, valid answer */
+		public RouteAnswer(Path path) {
+			this.path=path;
+			valid=true;
+		}
+	}
+
+	/** Memo table of findRoute. Only valid within an optimization run, since other parties may change the bookKeeper between runs */
+	private Map<RouteQuery,RouteAnswer> routeMemo;
+	/** For each link, the memoized answers that depend on the free bandwidth of the link */
+	private Map<Link,List<RouteAnswer>> routeMemoDependents;
+	/** Servers to try first for some of the new components in the current optimization run */
+	private Map<Component,Server> hostHints;
+	/** Paths to try first for some connectors in the current optimization run */
+	private Map<Connector,Path> pathHints;
+	/** The group of new components that could not be placed in the last optimization run (empty if the run was successful) */
+	private List<Component> failedComponents;
+	/** Whether the Result of each optimization run is printed */
+	private boolean printResult;
+
 	/**
 	 * Constructor.
 	 */
 	public SolverSB(BookKeeper bookKeeper) {
+		this(bookKeeper,null);
+	}
+
+	/**
+	 * Constructor for a randomized variant of the solver: ties in the orderings of
+	 * components and servers are broken using the given random generator.
+	 */
+	public SolverSB(BookKeeper bookKeeper,Random tieBreaker) {
+		this(bookKeeper,OrderingType.distanceFromEndDevices,tieBreaker);
+	}
+
+	/**
+	 * Constructor for a variant of the solver that places the new components in the
+	 * given order, and breaks ties using the given random generator (or, if it is null,
+	 * keeps the default order).
+	 */
+	public SolverSB(BookKeeper bookKeeper,OrderingType ordering,Random tieBreaker) {
 		this.bookKeeper=bookKeeper;
+		this.ordering=ordering;
+		this.tieBreaker=tieBreaker;
 		actionStack=new ActionStack();
+		routeMemo=new HashMap<>();
+		routeMemoDependents=new HashMap<>();
+		hostHints=new HashMap<>();
+		pathHints=new HashMap<>();
+		failedComponents=new ArrayList<>();
+		contraction=null;
+		printResult=true;
+	}
+
+	/**
+	 * Switch off (or on) printing the Result of each optimization run. Solvers using
+	 * SolverSB for internal runs switch it off, so that only their own Result is printed.
+	 */
+	public void setQuiet(boolean quiet) {
+		printResult=!quiet;
+	}
+
+	/**
+	 * Contract tightly coupled new components before placement as defined by the given
+	 * contraction, or switch off contraction (if null is given). If the contracted groups
+	 * cannot be placed, the solver falls back to placing the components individually.
+	 */
+	public void setContraction(CoLocationContraction contraction) {
+		this.contraction=contraction;
+	}
+
+	/**
+	 * Returns the new components that could not be placed in the last optimization run:
+	 * the group at which the placement got stuck. Empty if the run was successful.
+	 */
+	public List<Component> getFailedComponents() {
+		return failedComponents;
+	}
+
+	/**
+	 * Forget all memoized routes.
+	 */
+	void clearRouteMemo() {
+		routeMemo.clear();
+		routeMemoDependents.clear();
+	}
+
+	/**
+	 * Invalidate the memoized routes that depend on the free bandwidth of a link of the
+	 * given path. Must be called whenever a connector is routed via or un-routed from
+	 * the path.
+	 */
+	private void invalidateRoutes(Path p) {
+		for(Link l : p.getLinks()) {
+			List<RouteAnswer> answers=routeMemoDependents.remove(l);
+			if(answers!=null) {
+				for(RouteAnswer answer : answers)
+					answer.valid=false;
+			}
+		}
 	}
 
 	/**
 	 * Tries to route the given connector between the given infrastructure nodes.
-	 * Returns either a valid path or null if no valid path could be found.
+	 * Returns either a valid path or null if no valid path could be found. The answer
+	 * is memoized, and reused as long as the free bandwidth of the links it depends on
+	 * does not change.
 	 */
-	private Path findRoute(Connector conn,IHwNode n1,IHwNode n2,Set<IHwNode> allHwNodes) {
+	Path findRoute(Connector conn,IHwNode n1,IHwNode n2,Set<IHwNode> allHwNodes) {
+		RouteQuery query=new RouteQuery(n1,n2,conn.getBwReq(),conn.getMaxLatency());
+		RouteAnswer answer=routeMemo.get(query);
+		if(answer!=null && answer.valid)
+			return answer.path;
+		answer=new RouteAnswer(null);
 		for(Path p : bookKeeper.getInfra().getPaths(n1,n2)) {
 			if(p.getLatency() > conn.getMaxLatency())
 				continue;
@@ -188,17 +351,47 @@ public class SolverSB implements ISolver {
 			}
 			if(!relevant)
 				continue;
+			//from here on, the answer depends on the free bandwidth of the links of this path
 			boolean enoughBw=true;
 			for(Link l : p.getLinks()) {
+				routeMemoDependents.computeIfAbsent(l,k -> new ArrayList<>()).add(answer);
 				if(bookKeeper.getFreeBandwidth(l) < conn.getBwReq()) {
 					enoughBw=false;
 					break;
 				}
 			}
-			if(enoughBw)
-				return p;
+			if(enoughBw) {
+				answer.path=p;
+				break;
+			}
 		}
-		return null;
+		routeMemo.put(query,answer);
+		return answer.path;
+	}
+
+	/**
+	 * Return the hinted path of the given connector if it connects n1 and n2 (in either
+	 * direction), uses only the allowed nodes, and fulfills the latency and bandwidth
+	 * requirement of the connector. Otherwise return null.
+	 */
+	private Path getHintedRoute(Connector conn,IHwNode n1,IHwNode n2,Set<IHwNode> allHwNodes) {
+		Path p=pathHints.get(conn);
+		if(p==null)
+			return null;
+		List<IHwNode> nodes=p.getNodes();
+		IHwNode first=nodes.get(0);
+		IHwNode last=nodes.get(nodes.size()-1);
+		if(!((first==n1 && last==n2) || (first==n2 && last==n1)))
+			return null;
+		if(p.getLatency() > conn.getMaxLatency())
+			return null;
+		if(!allHwNodes.containsAll(nodes))
+			return null;
+		for(Link l : p.getLinks()) {
+			if(bookKeeper.getFreeBandwidth(l) < conn.getBwReq())
+				return null;
+		}
+		return p;
 	}
 
 	/**
@@ -250,7 +443,9 @@ public class SolverSB implements ISolver {
 				otherHwNode=bookKeeper.getHost((Component)otherVertex);
 			if(otherHwNode==null) //other component has not been placed yet
 				continue;
-			Path p=findRoute(conn,s,otherHwNode,allHwNodes);
+			Path p=getHintedRoute(conn,s,otherHwNode,allHwNodes);
+			if(p==null)
+				p=findRoute(conn,s,otherHwNode,allHwNodes);
 			if(p!=null)
 				actionStack.perform(new RouteAction(conn,p));
 			else {
@@ -283,6 +478,214 @@ public class SolverSB implements ISolver {
 		return success;
 	}
 
+	/**
+	 * Returns the highest bandwidth requirement among the connectors between the given
+	 * component and end devices, or -1 if the component is not connected to an end device.
+	 */
+	private static double getMaxEndDeviceBw(Component c) {
+		double bw=-1;
+		for(Connector conn : c.getConnectors()) {
+			if(conn.getOtherVertex(c).isEndDevice())
+				bw=Math.max(bw,conn.getBwReq());
+		}
+		return bw;
+	}
+
+	/**
+	 * Determine the order in which the new components are placed. The components are
+	 * visited by a single BFS in the application graph, which starts from the components
+	 * connected to end devices. Components that cannot be reached this way (e.g., because
+	 * the application graph is disconnected) are visited afterwards by continuing the BFS
+	 * from an arbitrary unvisited component. Takes linear time, apart from the sorting
+	 * required by some orderings.
+	 */
+	private List<Component> orderComponents(Set<Component> newComponents,List<Server> servers) {
+		List<Component> roots=new ArrayList<>(newComponents); //candidates for starting the BFS
+		if(tieBreaker!=null)
+			Collections.shuffle(roots,tieBreaker);
+		Map<Component,Double> endDeviceBw=new HashMap<>();
+		for(Component c : roots)
+			endDeviceBw.put(c,getMaxEndDeviceBw(c));
+		//the components connected to end devices come first (the sort is stable)
+		Collections.sort(roots,new Comparator<Component>() {
+			@Override
+			public int compare(Component lhs,Component rhs) {
+				boolean lhsEd=endDeviceBw.get(lhs)>=0;
+				boolean rhsEd=endDeviceBw.get(rhs)>=0;
+				if(lhsEd!=rhsEd)
+					return lhsEd?-1:1;
+				if(ordering==OrderingType.bandwidthWeighted)
+					return Double.compare(endDeviceBw.get(rhs),endDeviceBw.get(lhs));
+				return 0;
+			}
+		});
+		Map<Component,Integer> distanceFromEndDevices=new HashMap<>();
+		List<Component> order=new ArrayList<>(); //the components in the order they are visited; also serves as the queue of the BFS
+		int head=0;
+		for(Component root : roots) {
+			if(endDeviceBw.get(root)>=0) { //all components connected to end devices are sources of the same BFS
+				distanceFromEndDevices.put(root,1);
+				order.add(root);
+				continue;
+			}
+			while(head<order.size()) //complete the BFS trees started so far
+				head=visitNeighbors(order,head,newComponents,distanceFromEndDevices);
+			if(distanceFromEndDevices.containsKey(root))
+				continue;
+			//this component is not reachable from the end devices: start a new BFS tree, which comes after all previous ones
+			int maxDistance=order.isEmpty()?0:distanceFromEndDevices.get(order.get(order.size()-1)); //the BFS visits the components in non-decreasing order of distance
+			distanceFromEndDevices.put(root,maxDistance+1);
+			order.add(root);
+		}
+		while(head<order.size())
+			head=visitNeighbors(order,head,newComponents,distanceFromEndDevices);
+		if(ordering==OrderingType.mostConstrainedFirst) {
+			double avgFreeCpu=0;
+			double avgFreeRam=0;
+			for(Server s : servers) {
+				avgFreeCpu+=bookKeeper.getFreeCpuCap(s)/servers.size();
+				avgFreeRam+=bookKeeper.getFreeRamCap(s)/servers.size();
+			}
+			Map<Component,Double> demand=new HashMap<>();
+			for(Component c : order)
+				demand.put(c,c.getCpuReq()/Math.max(avgFreeCpu,1e-9)+c.getRamReq()/Math.max(avgFreeRam,1e-9));
+			Collections.sort(order,new Comparator<Component>() {
+				@Override
+				public int compare(Component lhs,Component rhs) {
+					int cmp=Integer.compare(distanceFromEndDevices.get(lhs),distanceFromEndDevices.get(rhs));
+					if(cmp!=0)
+						return cmp;
+					return Double.compare(demand.get(rhs),demand.get(lhs));
+				}
+			});
+		}
+		return order;
+	}
+
+	/**
+	 * One step of the BFS of {@link #orderComponents(Set,List)}: visit the not yet visited
+	 * new components adjacent to the component at position head of the queue. Returns the
+	 * new position of the head.
+	 */
+	private int visitNeighbors(List<Component> order,int head,Set<Component> newComponents,Map<Component,Integer> distanceFromEndDevices) {
+		Component c=order.get(head);
+		List<Connector> connectors=new ArrayList<>(c.getConnectors());
+		if(tieBreaker!=null)
+			Collections.shuffle(connectors,tieBreaker);
+		if(ordering==OrderingType.bandwidthWeighted) {
+			Collections.sort(connectors,new Comparator<Connector>() {
+				@Override
+				public int compare(Connector lhs,Connector rhs) {
+					return Double.compare(rhs.getBwReq(),lhs.getBwReq());
+				}
+			});
+		}
+		for(Connector conn : connectors) {
+			ISwNode other=conn.getOtherVertex(c);
+			if(newComponents.contains(other) && !distanceFromEndDevices.containsKey(other)) {
+				distanceFromEndDevices.put((Component)other,distanceFromEndDevices.get(c)+1);
+				order.add((Component)other);
+			}
+		}
+		return head+1;
+	}
+
+	/**
+	 * Try to place all components of the given group on the given server, together with
+	 * the connectors that are incident to them and go to an already placed component or to
+	 * an end device. If successful, return true. Otherwise, undo the changes and return false.
+	 */
+	private boolean tryToPlaceGroup(List<Component> group,Server s,Colony ourColony,Set<IHwNode> allHwNodes,Conductor.ModeType mode) {
+		if(group.size()>1) { //quick check for the whole group, to avoid placing most of it in vain
+			double cpuReq=0;
+			double ramReq=0;
+			for(Component c : group) {
+				cpuReq+=c.getCpuReq();
+				ramReq+=c.getRamReq();
+			}
+			if(bookKeeper.getFreeCpuCap(s) < cpuReq || bookKeeper.getFreeRamCap(s) < ramReq)
+				return false;
+		}
+		int startStackSize=actionStack.getSize();
+		for(Component c : group) {
+			if(!tryToPlace(c,s,ourColony,allHwNodes,mode)) {
+				actionStack.rollback(startStackSize);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Place the given groups of new components one after the other, each group on a single
+	 * server, migrating already placed components if necessary. If the first component of a
+	 * group has a host hint among the servers, that server is tried first. The components placed
+	 * successfully are added to the movable components. If a group cannot be placed, or
+	 * the deadline expires, all changes are undone (also in the list of movable components)
+	 * and false is returned.
+	 */
+	private boolean placeGroups(List<List<Component>> groups,List<Server> servers,List<Component> movableComponents,Colony ourColony,Set<IHwNode> allHwNodes,Conductor.ModeType mode,Deadline deadline) {
+		int beginning=actionStack.getSize();
+		int nrMovableComponents=movableComponents.size();
+		for(List<Component> group : groups) { //we start with the components nearest to the end devices
+			//try to place the group on one of the servers
+			List<Server> candidates=servers;
+			Server hint=hostHints.get(group.get(0));
+			if(hint!=null && servers.contains(hint)) {
+				candidates=new ArrayList<>(servers.size());
+				candidates.add(hint);
+				for(Server server : servers) {
+					if(server!=hint)
+						candidates.add(server);
+				}
+			}
+			boolean succeeded=false;
+			for(Server server : candidates) {
+				if(deadline.isExpired())
+					break;
+				if(tryToPlaceGroup(group,server,ourColony,allHwNodes,mode)) {
+					succeeded=true;
+					break;
+				}
+			}
+			if(!succeeded) { //if we didn't succeed, we try if the migration of an already placed component helps
+				for(Component oldComp : movableComponents) { //for each movable component, we try to find a new host
+					if(deadline.isExpired())
+						break;
+					Server oldServer=bookKeeper.getHost(oldComp);
+					Server migrationTarget=null;
+					int beforeMigration=actionStack.getSize();
+					for(Server newServer : servers) {
+						if(deadline.isExpired())
+							break;
+						if(newServer!=oldServer && tryToMigrate(oldComp,newServer,ourColony,allHwNodes,mode)) {
+							migrationTarget=newServer;
+							break;
+						}
+					}
+					if(migrationTarget!=null) { //if we managed to migrate this existing component
+						if(tryToPlaceGroup(group,oldServer,ourColony,allHwNodes,mode)) { //if this way the relieved server can host the new components, then all is good
+							succeeded=true;
+							break;
+						} else { //if not, then we move back the provisionally moved component to avoid a useless migration
+							actionStack.rollback(beforeMigration);
+						}
+					}
+				}
+			}
+			if(succeeded) { //if either directly or after a migration the group could be placed
+				movableComponents.addAll(group);
+			} else { //if not, then we un-place the whole application
+				failedComponents=new ArrayList<>(group);
+				actionStack.rollback(beginning);
+				while(movableComponents.size()>nrMovableComponents)
+					movableComponents.remove(movableComponents.size()-1);
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Helper method to create the union of an arbitrary number of sets of the same type of objects in 
 	 * the form of a single list.
@@ -296,7 +699,9 @@ public class SolverSB implements ISolver {
 	}
 
 	/**
-	 * Perform an optimization run, trying to place the new components.
+	 * Perform an optimization run, trying to place the new components. The deadline is
+	 * checked in the placement and migration loops; if it expires, the whole application
+	 * is un-placed.
 	 */
 	@Override
 	public Result optimize(
@@ -307,14 +712,44 @@ public class SolverSB implements ISolver {
 			Set<Component> obtainedComponents,
 			Set<Component> readOnlyComponents,
 			Colony ourColony,
-			Conductor.ModeType mode) {
+			Conductor.ModeType mode,
+			Deadline deadline) {
+		return optimize(freelyUsableServers,unpreferredServers,newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents,ourColony,mode,deadline,new HashSet<>(),new HashMap<>(),new HashMap<>());
+	}
+
+	/**
+	 * Perform an optimization run as {@link #optimize(Set,Set,Set,Set,Set,Set,Colony,Conductor.ModeType,Deadline)},
+	 * with two additions. Routes may also traverse the given transit nodes, on which no
+	 * components are placed. And hints can be given from an earlier solution: for the new
+	 * components in hostHints, the hinted server is tried first (if it is one of the servers
+	 * that may be used), and when a new component is placed, the hinted path of a connector
+	 * is used if it is still suitable.
+	 */
+	public Result optimize(
+			Set<Server> freelyUsableServers,
+			Set<Server> unpreferredServers,
+			Set<Component> newComponents,
+			Set<Component> fullyControlledComponents,
+			Set<Component> obtainedComponents,
+			Set<Component> readOnlyComponents,
+			Colony ourColony,
+			Conductor.ModeType mode,
+			Deadline deadline,
+			Set<? extends IHwNode> transitNodes,
+			Map<Component,Server> hostHints,
+			Map<Connector,Path> pathHints) {
 		long startTime=System.currentTimeMillis();
+		this.hostHints=hostHints;
+		this.pathHints=pathHints;
+		clearRouteMemo();
+		failedComponents=new ArrayList<>();
 		//System.out.println("fullyControlledComponents: "+fullyControlledComponents.size());
-		Map<Component,Server> oldAlpha=bookKeeper.getAlpha(); //we save it so that we can compute the number of migrations in the end
 		Result result=new Result();
 		List<Server> servers=union(freelyUsableServers,unpreferredServers);
 		List<Component> movableComponents=union(fullyControlledComponents,obtainedComponents);
-		List<Component> componentsToPlace=new ArrayList<>(newComponents);
+		Map<Component,Server> oldAlpha=new HashMap<>(); //we save the old hosts so that we can compute the number of migrations in the end
+		for(Component c : movableComponents)
+			oldAlpha.put(c,bookKeeper.getHost(c));
 		List<Component> allComponents=union(newComponents,fullyControlledComponents,obtainedComponents,readOnlyComponents);
 		Set<EndDevice> endDevices=new HashSet<>();
 		for(Component comp : allComponents) {
@@ -326,32 +761,13 @@ public class SolverSB implements ISolver {
 		}
 		Set<IHwNode> allHwNodes=new HashSet<>(servers);
 		allHwNodes.addAll(endDevices);
-		//compute for each new component its distance from the end devices in the application graph
-		Map<Component,Integer> distanceFromEndDevices=new HashMap<>();
-		int level=0;
-		while(distanceFromEndDevices.size()<newComponents.size()) {
-			Set<Component> nextLevelComps=new HashSet<>();
-			for(Component c : newComponents) {
-				if(distanceFromEndDevices.containsKey(c))
-					continue;
-				for(Connector conn : c.getConnectors()) {
-					ISwNode otherSwNode=conn.getOtherVertex(c);
-					if(otherSwNode instanceof EndDevice || distanceFromEndDevices.containsKey(otherSwNode)) {
-						nextLevelComps.add(c);
-						break;
-					}
-				}
-			}
-			level++;
-			for(Component c : nextLevelComps)
-				distanceFromEndDevices.put(c,level);
+		allHwNodes.addAll(transitNodes);
+		if(tieBreaker!=null) { //randomize the order of equivalent servers and movable components (the sorting below is stable)
+			Collections.shuffle(servers,tieBreaker);
+			Collections.shuffle(movableComponents,tieBreaker);
 		}
-		Collections.sort(componentsToPlace,new Comparator<Component>() { //we sort the components to be placed in decreasing order of their distance from end devices
-			@Override
-			public int compare(Component lhs,Component rhs) {
-				return Integer.compare(distanceFromEndDevices.get(rhs),distanceFromEndDevices.get(lhs));
-			}
-		});
+		//determine the order in which the new components are placed
+		List<Component> componentsToPlace=orderComponents(newComponents,servers);
 		//find the end devices connected to the application to place
 		Set<EndDevice> importantEndDevices=new HashSet<>();
 		for(Component comp : newComponents) {
@@ -363,19 +779,8 @@ public class SolverSB implements ISolver {
 		}
 		if(importantEndDevices.isEmpty()) //it is important that this set is not empty
 			importantEndDevices.addAll(endDevices);
-		//compute for each server its distance from the end devices connected to the application to place
-		Map<Server,Integer> distanceFromImportantEndDevices=new HashMap<>();
-		for(Server s : servers) {
-			for(EndDevice ed : importantEndDevices) {
-				int dist=-1;
-				for(Path p : bookKeeper.getInfra().getPaths(ed,s)) {
-					if(p.getLinks().size()<dist || dist==-1)
-						dist=p.getLinks().size();
-				}
-				if(!distanceFromImportantEndDevices.containsKey(s) || dist<distanceFromImportantEndDevices.get(s))
-					distanceFromImportantEndDevices.put(s,dist);
-			}
-		}
+		//compute for each server its distance from the end devices connected to the application to place, within the nodes we may use
+		Map<IHwNode,Integer> distanceFromImportantEndDevices=bookKeeper.getInfra().getHopDistances(importantEndDevices,allHwNodes);
 		Collections.sort(servers,new Comparator<Server>() { //we sort the servers such that the best servers are at the beginning
 			@Override
 			public int compare(Server lhs,Server rhs) {
@@ -383,50 +788,34 @@ public class SolverSB implements ISolver {
 					return -1; // the freely usable servers are first, the unpreferred servers only after them
 				if(freelyUsableServers.contains(rhs) && unpreferredServers.contains(lhs))
 					return 1;
-				return Integer.compare(distanceFromImportantEndDevices.get(lhs),distanceFromImportantEndDevices.get(rhs)); //within a category, servers that are closer to the relevant end devices are better
+				int lhsDist=distanceFromImportantEndDevices.getOrDefault(lhs,Integer.MAX_VALUE); //unreachable servers come last
+				int rhsDist=distanceFromImportantEndDevices.getOrDefault(rhs,Integer.MAX_VALUE);
+				return Integer.compare(lhsDist,rhsDist); //within a category, servers that are closer to the relevant end devices are better
 			}
 		});
 		//now the actual algorithm can start
-		int beginning=actionStack.getSize();
-		while(componentsToPlace.size()>0) {
-			Component newComp=componentsToPlace.remove(componentsToPlace.size()-1); //we pick the component that is nearest to the end devices
-			//try to place the component on one of the servers
-			boolean succeeded=false;
-			for(Server server : servers) {
-				if(tryToPlace(newComp,server,ourColony,allHwNodes,mode)) {
-					succeeded=true;
-					break;
-				}
-			}
-			if(!succeeded) { //if we didn't succeed, we try if the migration of an already placed component helps
-				for(Component oldComp : movableComponents) { //for each movable component, we try to find a new host
-					Server oldServer=bookKeeper.getHost(oldComp);
-					Server migrationTarget=null;
-					int beforeMigration=actionStack.getSize();
-					for(Server newServer : servers) {
-						if(newServer!=oldServer && tryToMigrate(oldComp,newServer,ourColony,allHwNodes,mode)) {
-							migrationTarget=newServer;
-							break;
-						}
-					}
-					if(migrationTarget!=null) { //if we managed to migrate this existing component
-						if(tryToPlace(newComp,oldServer,ourColony,allHwNodes,mode)) { //if this way the relieved server can host the new component, then all is good
-							succeeded=true;
-							break;
-						} else { //if not, then we move back the provisionally moved component to avoid a useless migration
-							actionStack.rollback(beforeMigration);
-						}
-					}
-				}
-			}
-			if(succeeded) { //if either directly or after a migration the component could be placed
-				movableComponents.add(newComp);
-				result.success=1;
-			} else { //if not, then we un-place the whole application
-				actionStack.rollback(beginning);
-				result.success=0;
-				break;
-			}
+		List<List<Component>> groups=new ArrayList<>();
+		if(contraction!=null)
+			groups=contraction.contract(componentsToPlace,servers,bookKeeper);
+		boolean contracted=contraction!=null && groups.size()<componentsToPlace.size();
+		if(!contracted) {
+			groups.clear();
+			for(Component newComp : componentsToPlace)
+				groups.add(Collections.singletonList(newComp));
+		}
+		boolean succeeded=placeGroups(groups,servers,movableComponents,ourColony,allHwNodes,mode,deadline);
+		if(!succeeded && contracted && !deadline.isExpired()) { //co-location may be too restrictive, so we try again without contraction
+			groups.clear();
+			for(Component newComp : componentsToPlace)
+				groups.add(Collections.singletonList(newComp));
+			succeeded=placeGroups(groups,servers,movableComponents,ourColony,allHwNodes,mode,deadline);
+		}
+		if(succeeded && !groups.isEmpty()) {
+			result.success=1;
+		} else {
+			result.success=0;
+			if(deadline.isExpired()) //the search was cut short, so the failure is due to the deadline
+				result.timeouts=1;
 		}
 		//calculate number of migrations
 		result.migrations=0;
@@ -436,7 +825,8 @@ public class SolverSB implements ISolver {
 				result.migrations++;
 		}
 		result.timeMs=System.currentTimeMillis()-startTime;
-		System.out.println("Result: "+result);
+		if(printResult)
+			System.out.println("Result: "+result);
 		return result;
 	}
 
@@ -1,6 +1,12 @@
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Abstract ancestor class for different experiments.
@@ -24,8 +30,24 @@ public abstract class TestDriver {
 	protected Colony colonies[];
 	/** To accelerate experiments, the centralized approach can be switched off with this flag */
 	protected boolean skipModel1=false;
-	/** To accelerate experiments, the ILP algorithm can be switched off with this flag */
-	protected boolean skipIlp=false;
+	/** Backend used by the ILP algorithm */
+	protected MilpBackend ilpBackend=MilpBackend.getDefault();
+	/** To accelerate experiments, the ILP algorithm can be switched off with this flag; by default, it is switched off if Gurobi is not available, since the embedded backend is much slower */
+	protected boolean skipIlp=(ilpBackend!=MilpBackend.gurobi);
+	/** The Conductors can be run in parallel with this flag, which speeds up the experiments, but disturbs the measured times */
+	protected boolean parallelConductors=false;
+	/** If positive, the applications of the regions are deployed at the same time by a ParallelConductor with this many threads for each mode and solver, instead of one after the other by a Conductor */
+	protected int parallelDeploymentThreads=0;
+	/** Random generator of this experiment: all random choices of the experiment are made with it */
+	protected Random random;
+
+	/**
+	 * Constructor. The experiment is reproducible: the same seed leads to the same
+	 * infrastructure, applications and placements.
+	 */
+	public TestDriver(long seed) {
+		random=new Random(seed);
+	}
 
 	/** Creation of the infrastructure, delegated to inheriting classes */
 	protected abstract void createInfra();
@@ -33,26 +55,10 @@ public abstract class TestDriver {
 	protected abstract void createApps();
 
 	/**
-	 * Perform the experiments.
+	 * Create the overlapping colonies: copies of the colonies, each sharing some of its
+	 * nodes with each neighboring colony.
 	 */
-	private void doExperiment(String fileNameSuffix) throws IOException {
-		//create Conductors, together with the corresponding BookKeepers and Solvers
-		Map2d<Conductor.ModeType,SolverType,Conductor> conductors=new Map2d<>();
-		for(Conductor.ModeType modeType : Conductor.ModeType.values()) {
-			for(SolverType solverType : SolverType.values()) {
-				if(solverType==SolverType.SolverILP && skipIlp)
-					continue;
-				BookKeeper bookKeeper=new BookKeeper(infra);
-				ISolver solver=null;
-				if(solverType==SolverType.SolverILP)
-					solver=new SolverILP(bookKeeper);
-				if(solverType==SolverType.SolverSB)
-					solver=new SolverSB(bookKeeper);
-				Conductor conductor=new Conductor(bookKeeper,solver,modeType);
-				conductors.put(modeType,solverType,conductor);
-			}
-		}
-		//create overlapping colonies
+	protected Colony[] createOverlappingColonies() {
 		Colony[] bigColonies=new Colony[nrRegions];
 		for(int i=0;i<nrRegions;i++) {
 			bigColonies[i]=colonies[i].clone();
@@ -62,7 +68,7 @@ public abstract class TestDriver {
 			for(int j=0;j<nrRegions;j++) {
 				if(colonies[i].isAdjacentTo(colonies[j])) {
 					bigColonies[i].addNeighbor(bigColonies[j]);
-					Set<Server> shared=bigColonies[i].shareNodes(nrNodesToShareWithNeighbor);
+					Set<Server> shared=bigColonies[i].shareNodes(nrNodesToShareWithNeighbor,random);
 					for(Server s : shared) {
 						bigColonies[j].addServer(s);
 						bigColonies[j].markShared(s);
@@ -71,6 +77,94 @@ public abstract class TestDriver {
 				}
 			}
 		}
+		return bigColonies;
+	}
+
+	/**
+	 * Name of the given solver in the result files, including the backend of the ILP
+	 * algorithm, since the results of the backends are not comparable.
+	 */
+	private String solverName(SolverType solver) {
+		if(solver==SolverType.SolverILP)
+			return solver+"("+ilpBackend+")";
+		return solver.toString();
+	}
+
+	/**
+	 * Create a solver of the given type for the given BookKeeper. The ILP solvers are
+	 * added to the given list, so that they can be disposed at the end; the list may be
+	 * shared by several threads.
+	 */
+	private ISolver createSolver(SolverType solverType,BookKeeper bookKeeper,List<SolverILP> ilpSolvers) {
+		if(solverType==SolverType.SolverILP) {
+			SolverILP solverILP=new SolverILP(bookKeeper,ilpBackend);
+			synchronized(ilpSolvers) {
+				ilpSolvers.add(solverILP);
+			}
+			return solverILP;
+		}
+		return new SolverSB(bookKeeper);
+	}
+
+	/**
+	 * Deploy the j-th application of each region with the given Conductor, or, if it is
+	 * null, with the given ParallelConductor at the same time, and add the results to the
+	 * given total. The (Parallel)Conductor has its own BookKeeper and solvers, and the
+	 * infrastructure, colonies and applications are only read, so the Conductors can
+	 * deploy at the same time.
+	 */
+	private void deployNextApps(int j,Conductor.ModeType mode,SolverType solver,Conductor conductor,ParallelConductor parallelConductor,Colony[] bigColonies,Result totalResult) {
+		List<Colony> targetColonies=new ArrayList<>();
+		List<Application> apps=new ArrayList<>();
+		for(int i=0;i<nrRegions;i++) {
+			System.out.println("app "+j+", region "+i+", model "+mode+", solver "+solver);
+			Colony colony=colonies[i];
+			if(mode==Conductor.ModeType.overlapping)
+				colony=bigColonies[i];
+			if(conductor!=null)
+				totalResult.increaseBy(conductor.deployApplication(colony,colonies[i].getApplication(j)));
+			else {
+				targetColonies.add(colony);
+				apps.add(colonies[i].getApplication(j));
+			}
+		}
+		if(conductor==null) {
+			for(Result result : parallelConductor.deployApplications(targetColonies,apps))
+				totalResult.increaseBy(result);
+		}
+	}
+
+	/**
+	 * Perform the experiments. In each step, the Conductors of all modes and solvers
+	 * deploy the next application of each region, one after the other or, if
+	 * parallelConductors is set, in parallel (on the pool of the calling
+	 * ExperimentRunner, or on the common pool), and the row of the step is written when
+	 * all of them have finished. Since the measured times are wall-clock times, each row
+	 * records whether the Conductors ran in parallel and how many worker threads of the
+	 * calling ExperimentRunner may have run other experiments at the same time, and
+	 * how many threads deployed the applications of the regions at the same time (0 if
+	 * they were deployed one after the other).
+	 */
+	private void doExperiment(String fileNameSuffix) throws IOException {
+		//create (Parallel)Conductors, together with the corresponding BookKeepers and Solvers
+		Map2d<Conductor.ModeType,SolverType,Conductor> conductors=new Map2d<>();
+		Map2d<Conductor.ModeType,SolverType,ParallelConductor> parallelConductorMap=new Map2d<>();
+		List<SolverILP> ilpSolvers=new ArrayList<>();
+		for(Conductor.ModeType modeType : Conductor.ModeType.values()) {
+			for(SolverType solverType : SolverType.values()) {
+				if(solverType==SolverType.SolverILP && skipIlp)
+					continue;
+				BookKeeper bookKeeper=new BookKeeper(infra);
+				if(parallelDeploymentThreads>0)
+					parallelConductorMap.put(modeType,solverType,new ParallelConductor(bookKeeper,bk -> createSolver(solverType,bk,ilpSolvers),modeType,parallelDeploymentThreads));
+				else
+					conductors.put(modeType,solverType,new Conductor(bookKeeper,createSolver(solverType,bookKeeper,ilpSolvers),modeType));
+			}
+		}
+		Colony[] bigColonies=createOverlappingColonies();
+		//the conditions of the time measurements
+		int workers=ForkJoinTask.inForkJoinPool()?ForkJoinTask.getPool().getParallelism():1;
+		String timing=";"+parallelConductors+";"+workers+";"+parallelDeploymentThreads;
 		//initialize file output
 		FileWriter fileWriter=new FileWriter("results_detail"+fileNameSuffix+".csv");
 		fileWriter.write("App;NrRegions");
@@ -78,11 +172,11 @@ public abstract class TestDriver {
 			for(SolverType solver : SolverType.values()) {
 				if(solver==SolverType.SolverILP && skipIlp)
 					continue;
-				String postfix="-"+mode+"-"+solver;
-				fileWriter.write(";Success"+postfix+";TimeMs"+postfix+";Migrations"+postfix);
+				String postfix="-"+mode+"-"+solverName(solver);
+				fileWriter.write(";Success"+postfix+";TimeMs"+postfix+";Migrations"+postfix+";Timeouts"+postfix);
 			}
 		}
-		fileWriter.write("\n");
+		fileWriter.write(";ParallelConductors;Workers;DeploymentThreads\n");
 		//initialize grandTotalResults
 		Map2d<Conductor.ModeType,SolverType,Result> grandTotalResults=new Map2d<>();
 		for(Conductor.ModeType mode : Conductor.ModeType.values()) {
@@ -103,25 +197,24 @@ public abstract class TestDriver {
 					totalResults.put(mode,solver,new Result());
 				}
 			}
-			//add next application in each region
-			for(int i=0;i<nrRegions;i++) {
-				Application app=colonies[i].getApplication(j);
-				for(Conductor.ModeType mode : Conductor.ModeType.values()) {
-					for(SolverType solver : SolverType.values()) {
-						if(solver==SolverType.SolverILP && skipIlp)
-							continue;
-						System.out.println("app "+j+", region "+i+", model "+mode+", solver "+solver);
-						if(skipModel1 && mode==Conductor.ModeType.centralized)
-							continue;
-						Conductor conductor=conductors.get(mode,solver);
-						Colony colony=colonies[i];
-						if(mode==Conductor.ModeType.overlapping)
-							colony=bigColonies[i];
-						Result result=conductor.deployApplication(colony,app);
-						totalResults.get(mode,solver).increaseBy(result);
-					}
+			//add next application in each region, each Conductor in its own task
+			List<ForkJoinTask<?>> tasks=new ArrayList<>();
+			for(Conductor.ModeType mode : Conductor.ModeType.values()) {
+				for(SolverType solver : SolverType.values()) {
+					if(solver==SolverType.SolverILP && skipIlp)
+						continue;
+					if(skipModel1 && mode==Conductor.ModeType.centralized)
+						continue;
+					int appIndex=j;
+					tasks.add(ForkJoinTask.adapt(() -> deployNextApps(appIndex,mode,solver,conductors.get(mode,solver),parallelConductorMap.get(mode,solver),bigColonies,totalResults.get(mode,solver))));
 				}
 			}
+			if(parallelConductors)
+				ForkJoinTask.invokeAll(tasks); //returns when all tasks have finished, so the results are complete
+			else {
+				for(ForkJoinTask<?> task : tasks)
+					task.invoke();
+			}
 			//write result to file
 			fileWriter.write(String.format("%d;%d",j,nrRegions));
 			for(Conductor.ModeType mode : Conductor.ModeType.values()) {
@@ -133,21 +226,29 @@ public abstract class TestDriver {
 					grandTotalResults.get(mode,solver).increaseBy(totalResults.get(mode,solver));
 				}
 			}
-			fileWriter.write("\n");
+			fileWriter.write(timing+"\n");
 			fileWriter.flush();
 		}
 		fileWriter.close();
 		//write aggregated results to the other file
 		fileWriter=new FileWriter("results_total"+fileNameSuffix+".csv");
-		fileWriter.write("Model;Solver;Success;TimeMs;Migrations\n");
+		fileWriter.write("Model;Solver;Success;TimeMs;Migrations;Timeouts;ParallelConductors;Workers;DeploymentThreads\n");
 		for(Conductor.ModeType mode : Conductor.ModeType.values()) {
 			for(SolverType solver : SolverType.values()) {
 				if(solver==SolverType.SolverILP && skipIlp)
 					continue;
-				fileWriter.write(""+mode+";"+solver+";"+grandTotalResults.get(mode,solver).toString()+"\n");
+				fileWriter.write(""+mode+";"+solverName(solver)+";"+grandTotalResults.get(mode,solver).toString()+timing+"\n");
 			}
 		}
 		fileWriter.close();
+		for(Conductor.ModeType mode : Conductor.ModeType.values()) {
+			for(SolverType solver : SolverType.values()) {
+				if(parallelConductorMap.containsKey(mode,solver))
+					parallelConductorMap.get(mode,solver).shutdown();
+			}
+		}
+		for(SolverILP solverILP : ilpSolvers)
+			solverILP.dispose();
 	}
 
 	/**
@@ -158,4 +259,60 @@ public abstract class TestDriver {
 		createApps();
 		doExperiment(fileNameSuffix);
 	}
+
+	/**
+	 * Create infrastructure and applications, and deploy the applications in the given
+	 * mode with a separate process for each colony (see ColonyLauncher), the colonies
+	 * communicating over loopback TCP on the ports starting at basePort.
+	 */
+	public void doProcessTest(Conductor.ModeType mode,int basePort,String fileNameSuffix) throws IOException, InterruptedException {
+		createInfra();
+		createApps();
+		Colony[] processColonies=colonies;
+		if(mode==Conductor.ModeType.overlapping)
+			processColonies=createOverlappingColonies();
+		ColonyLauncher launcher=new ColonyLauncher(infra,processColonies,mode,basePort);
+		launcher.run(nrAppsPerRegion,fileNameSuffix);
+	}
+
+	/**
+	 * Create infrastructure and applications, and deploy the applications in the given
+	 * mode with a colony agent for each colony (see AgentSystem), each agent using
+	 * SolverSB. In each round, the next application of each colony is submitted to all
+	 * agents at the same time, and the round ends when all of them are deployed. The
+	 * results of the rounds and the statistics of the messages are written to files, in
+	 * the same format as by doProcessTest.
+	 */
+	public void doAgentTest(Conductor.ModeType mode,String fileNameSuffix) throws IOException, InterruptedException {
+		createInfra();
+		createApps();
+		Colony[] agentColonies=colonies;
+		if(mode==Conductor.ModeType.overlapping)
+			agentColonies=createOverlappingColonies();
+		AgentSystem agentSystem=AgentSystem.create(infra,Arrays.asList(agentColonies),mode,SolverSB::new);
+		FileWriter fileWriter=new FileWriter("results_agents"+fileNameSuffix+".csv");
+		fileWriter.write("App;NrColonies;Success;TimeMs;Migrations;Timeouts;WallMs\n");
+		Result grandTotalResult=new Result();
+		long totalWallMs=0;
+		for(int j=0;j<nrAppsPerRegion;j++) {
+			long roundStart=System.currentTimeMillis();
+			List<CompletableFuture<Result>> futures=new ArrayList<>();
+			for(int i=0;i<nrRegions;i++)
+				futures.add(agentSystem.submit(agentColonies[i].getNr(),colonies[i].getApplication(j)));
+			Result totalResult=new Result();
+			for(CompletableFuture<Result> future : futures)
+				totalResult.increaseBy(future.join());
+			long wallMs=System.currentTimeMillis()-roundStart;
+			fileWriter.write(j+";"+nrRegions+";"+totalResult+";"+wallMs+"\n");
+			fileWriter.flush();
+			grandTotalResult.increaseBy(totalResult);
+			totalWallMs+=wallMs;
+		}
+		fileWriter.close();
+		agentSystem.shutdown();
+		fileWriter=new FileWriter("results_agents_total"+fileNameSuffix+".csv");
+		fileWriter.write("Model;NrColonies;Success;TimeMs;Migrations;Timeouts;WallMs;Messages;Bytes;RoundTrips;AvgRoundTripMs;MaxRoundTripMs\n");
+		fileWriter.write(mode+";"+nrRegions+";"+grandTotalResult+";"+totalWallMs+";"+agentSystem.getStats()+"\n");
+		fileWriter.close();
+	}
 }
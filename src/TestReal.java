@@ -39,6 +39,13 @@ public class TestReal extends TestDriver {
 	private double connBwMin=0.2;
 	private double connBwMax=0.6;
 
+	/**
+	 * Constructor, with the seed of the random generator of the experiment.
+	 */
+	public TestReal(long seed) {
+		super(seed);
+	}
+
 	/**
 	 * Creates the infrastructure, including the colonies, and the path information.
 	 */
@@ -57,7 +64,7 @@ public class TestReal extends TestDriver {
 			connectRegions(colonies[i],colonies[right]);
 		}
 		infra.pruneParallelLinks();
-		infra.determinePaths(2);
+		infra.determinePaths(2,random);
 	}
 
 	/**
@@ -116,15 +123,15 @@ public class TestReal extends TestDriver {
 		region2.addNeighbor(region1);
 		Server s1,s2;
 		do {
-			s1=region1.getRandomServer();
-			s2=region2.getRandomServer();
+			s1=region1.getRandomServer(random);
+			s2=region2.getRandomServer(random);
 		} while(s1==s2 || s1.isCloud() || s2.isCloud());
 		new Link(bwBetweenColonies,latencyBetweenColonies,s1,s2);
 	}
 
 	private void createConnector(ISwNode v1,ISwNode v2) {
-		double bwReq=connBwMin+Main.random.nextDouble()*(connBwMax-connBwMin);
-		double maxLatency=connLatMin+Main.random.nextDouble()*(connLatMax-connLatMin);
+		double bwReq=connBwMin+random.nextDouble()*(connBwMax-connBwMin);
+		double maxLatency=connLatMin+random.nextDouble()*(connLatMax-connLatMin);
 		new Connector(bwReq,maxLatency,v1,v2);
 	}
 
@@ -136,10 +143,10 @@ public class TestReal extends TestDriver {
 	 */
 	private Application createApp(Colony region, String idPrefix) {
 		Application app=new Application();
-		boolean masterWorkersApp=Main.random.nextBoolean();
+		boolean masterWorkersApp=random.nextBoolean();
 		for(int i=0;i<appSize;i++) {
-			double cpuReq=compCpuMin+Main.random.nextDouble()*(compCpuMax-compCpuMin);
-			double ramReq=compRamMin+Main.random.nextDouble()*(compRamMax-compRamMin);
+			double cpuReq=compCpuMin+random.nextDouble()*(compCpuMax-compCpuMin);
+			double ramReq=compRamMin+random.nextDouble()*(compRamMax-compRamMin);
 			Component comp=new Component(idPrefix+i,cpuReq,ramReq,region.getNr());
 			if(i>0) {
 				Component parent;
@@ -154,7 +161,7 @@ public class TestReal extends TestDriver {
 		if(!masterWorkersApp)
 			createConnector(app.getComponent(0),app.getComponent(appSize-1));
 		Component c=app.getComponent(0);
-		EndDevice d=region.getRandomEndDevice();
+		EndDevice d=region.getRandomEndDevice(random);
 		createConnector(c,d);
 		return app;
 	}
@@ -11,6 +11,13 @@ public class TestSynthetic extends TestDriver {
 	/** Nr. of servers connected to an end device */
 	protected int nrNeighborsOfEndDevice=2;
 
+	/**
+	 * Constructor, with the seed of the random generator of the experiment.
+	 */
+	public TestSynthetic(long seed) {
+		super(seed);
+	}
+
 	/**
 	 * Creates the infrastructure, including the colonies, and the path information.
 	 */
@@ -29,7 +36,7 @@ public class TestSynthetic extends TestDriver {
 			connectRegions(colonies[i],colonies[right]);
 		}
 		infra.pruneParallelLinks();
-		infra.determinePaths(2);
+		infra.determinePaths(2,random);
 	}
 
 	/**
@@ -42,41 +49,41 @@ public class TestSynthetic extends TestDriver {
 		colonies[index].addServer(cloud);
 		for(int i=0;i<nrFogNodesPerRegion;i++) {
 			String serverId="s"+index+"."+i;
-			double cpuCap=Main.random.nextDouble()*9+1;
-			double ramCap=Main.random.nextDouble()*9+1;
+			double cpuCap=random.nextDouble()*9+1;
+			double ramCap=random.nextDouble()*9+1;
 			Server s=new Server(serverId,cpuCap,ramCap,false,index);
 			if(i>0) {
-				Server s0=colonies[index].getRandomServer();
-				double bw=Main.random.nextDouble()*4+1;
-				double latency=Main.random.nextDouble()*4+1;
+				Server s0=colonies[index].getRandomServer(random);
+				double bw=random.nextDouble()*4+1;
+				double latency=random.nextDouble()*4+1;
 				new Link(bw,latency,s0,s);
 			}
 			infra.addServer(s);
 			colonies[index].addServer(s);
 		}
 		for(int i=0;i<nrAdditionalLinks;i++) {
-			Server s1=colonies[index].getRandomServer();
-			Server s2=colonies[index].getRandomServer();
+			Server s1=colonies[index].getRandomServer(random);
+			Server s2=colonies[index].getRandomServer(random);
 			if(s1==s2)
 				continue;
-			double bw=Main.random.nextDouble()*4+1;
-			double latency=Main.random.nextDouble()*4+1;
+			double bw=random.nextDouble()*4+1;
+			double latency=random.nextDouble()*4+1;
 			new Link(bw,latency,s1,s2);
 		}
 		for(int i=0;i<nrEndDevicesPerRegion;i++) {
 			EndDevice d=new EndDevice("d"+index+"."+i);
 			for(int j=0;j<nrNeighborsOfEndDevice;j++) { ///
-				Server s=colonies[index].getRandomServer();
-				double bw=Main.random.nextDouble()*5+5;
-				double latency=Main.random.nextDouble()*3;
+				Server s=colonies[index].getRandomServer(random);
+				double bw=random.nextDouble()*5+5;
+				double latency=random.nextDouble()*3;
 				new Link(bw,latency,s,d);
 			}
 			infra.addEndDevice(d);
 			colonies[index].addEndDevice(d);
 		}
-		Server s=colonies[index].getRandomServer();
-		double bw=Main.random.nextDouble()*4+1;
-		double latency=Main.random.nextDouble()*40+40;///
+		Server s=colonies[index].getRandomServer(random);
+		double bw=random.nextDouble()*4+1;
+		double latency=random.nextDouble()*40+40;///
 		new Link(bw,latency,s,cloud);
 		colonies[index].addServer(cloud);
 	}
@@ -85,16 +92,16 @@ public class TestSynthetic extends TestDriver {
 	 * Creates a link between a random fog node in region1 and a random fog node in
 	 * region2.
 	 */
-	private static void connectRegions(Colony region1, Colony region2) {
+	private void connectRegions(Colony region1, Colony region2) {
 		region1.addNeighbor(region2);
 		region2.addNeighbor(region1);
 		Server s1,s2;
 		do {
-			s1=region1.getRandomServer();
-			s2=region2.getRandomServer();
+			s1=region1.getRandomServer(random);
+			s2=region2.getRandomServer(random);
 		} while(s1==s2 || s1.isCloud() || s2.isCloud());
-		double bw=Main.random.nextDouble()*4+1;
-		double latency=Main.random.nextDouble()*4+1;
+		double bw=random.nextDouble()*4+1;
+		double latency=random.nextDouble()*4+1;
 		new Link(bw,latency,s1,s2);
 	}
 
@@ -107,13 +114,13 @@ public class TestSynthetic extends TestDriver {
 	private Application createApp(Colony region, String idPrefix) {
 		Application app=new Application();
 		for(int i=0;i<appSize;i++) {
-			double cpuReq=Main.random.nextDouble()*5;
-			double ramReq=Main.random.nextDouble()*5;
+			double cpuReq=random.nextDouble()*5;
+			double ramReq=random.nextDouble()*5;
 			Component comp=new Component(idPrefix+i,cpuReq,ramReq,region.getNr());
 			if(i>0) {
-				double bwReq=Main.random.nextDouble()*3;
-				double maxLatency=Main.random.nextDouble()*30+30;///
-				new Connector(bwReq, maxLatency, comp, app.getRandomComponent());
+				double bwReq=random.nextDouble()*3;
+				double maxLatency=random.nextDouble()*30+30;///
+				new Connector(bwReq, maxLatency, comp, app.getRandomComponent(random));
 			}
 			app.addComponent(comp);
 		}
@@ -129,10 +136,10 @@ public class TestSynthetic extends TestDriver {
 			}
 		}
 		*/
-		Component c=app.getRandomComponent();
-		EndDevice d=region.getRandomEndDevice();
-		double bwReq=Main.random.nextDouble()*2;
-		double maxLatency=Main.random.nextDouble()*20+20;///
+		Component c=app.getRandomComponent(random);
+		EndDevice d=region.getRandomEndDevice(random);
+		double bwReq=random.nextDouble()*2;
+		double maxLatency=random.nextDouble()*20+20;///
 		new Connector(bwReq, maxLatency, c, d);
 		return app;
 	}
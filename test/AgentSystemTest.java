@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cross-check of the deployment through colony agents (see AgentSystem) against a plain
+ * Conductor on small synthetic instances.
+ */
+public class AgentSystemTest {
+	/**
+	 * Deploy the applications one after the other through the agents and with a plain
+	 * Conductor on its own BookKeeper, both using SolverSB, in the given mode. Since the
+	 * agents synchronize their replicas before each deployment, each application must be
+	 * deployed by the agents exactly if it is deployed by the Conductor.
+	 */
+	private static void checkAgainstConductor(Conductor.ModeType mode) throws InterruptedException {
+		for(long seed=1;seed<=3;seed++) {
+			TestSynthetic driver=new TestSynthetic(seed);
+			driver.nrRegions=3;
+			driver.nrFogNodesPerRegion=4;
+			driver.nrEndDevicesPerRegion=3;
+			driver.nrAdditionalLinks=4;
+			driver.appSize=6;
+			driver.nrAppsPerRegion=3;
+			driver.createInfra();
+			driver.createApps();
+			Colony[] colonies=driver.colonies;
+			if(mode==Conductor.ModeType.overlapping)
+				colonies=driver.createOverlappingColonies();
+			AgentSystem agentSystem=AgentSystem.create(driver.infra,Arrays.asList(colonies),mode,SolverSB::new);
+			BookKeeper bookKeeper=new BookKeeper(driver.infra);
+			Conductor conductor=new Conductor(bookKeeper,new SolverSB(bookKeeper),mode);
+			int nrSuccesses=0;
+			for(int j=0;j<driver.nrAppsPerRegion;j++) {
+				for(int i=0;i<driver.nrRegions;i++) {
+					Application app=driver.colonies[i].getApplication(j);
+					Result agentResult=agentSystem.submit(colonies[i].getNr(),app).join();
+					Result conductorResult=conductor.deployApplication(colonies[i],app);
+					assertEquals(conductorResult.success,agentResult.success,"seed "+seed+", app "+j+", colony "+i);
+					nrSuccesses+=agentResult.success;
+				}
+			}
+			agentSystem.shutdown();
+			assertTrue(nrSuccesses>0,"seed "+seed+": no application deployed");
+			assertTrue(agentSystem.getStats().getNrMessages()>0,"seed "+seed+": the agents did not communicate");
+		}
+	}
+
+	/**
+	 * Agents in the communicating mode against a plain Conductor.
+	 */
+	@Test
+	public void testCommunicating() throws InterruptedException {
+		checkAgainstConductor(Conductor.ModeType.communicating);
+	}
+
+	/**
+	 * Agents in the overlapping mode against a plain Conductor.
+	 */
+	@Test
+	public void testOverlapping() throws InterruptedException {
+		checkAgainstConductor(Conductor.ModeType.overlapping);
+	}
+}
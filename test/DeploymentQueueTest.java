@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of DeploymentQueue on a small synthetic instance.
+ */
+public class DeploymentQueueTest {
+	/**
+	 * Fill the queue of a colony while its worker is blocked, and check that a further
+	 * submission blocks until the worker can deploy again, and that all submitted
+	 * applications are deployed afterwards.
+	 */
+	@Test
+	public void testBackpressure() throws InterruptedException {
+		TestSynthetic driver=new TestSynthetic(1);
+		driver.nrRegions=2;
+		driver.nrFogNodesPerRegion=4;
+		driver.nrEndDevicesPerRegion=3;
+		driver.nrAdditionalLinks=4;
+		driver.appSize=4;
+		driver.nrAppsPerRegion=4;
+		driver.createInfra();
+		driver.createApps();
+		Colony colony=driver.colonies[0];
+		BookKeeper bookKeeper=new BookKeeper(driver.infra);
+		ParallelConductor parallelConductor=new ParallelConductor(bookKeeper,SolverSB::new,Conductor.ModeType.independent,1);
+		DeploymentQueue queue=new DeploymentQueue(parallelConductor,1,2);
+		//block the deployments by holding the colonies exclusively
+		CountDownLatch blocked=new CountDownLatch(1);
+		CountDownLatch release=new CountDownLatch(1);
+		Thread blocker=Thread.ofVirtual().start(() -> parallelConductor.runExclusively(() -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		blocked.await();
+		//submit more applications than the worker and the queue can take
+		List<CompletableFuture<Result>> futures=new ArrayList<>();
+		Thread submitter=Thread.ofVirtual().start(() -> {
+			try {
+				for(int j=0;j<driver.nrAppsPerRegion;j++) {
+					CompletableFuture<Result> future=queue.submit(colony,colony.getApplication(j));
+					synchronized(futures) {
+						futures.add(future);
+					}
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		long waitUntil=System.currentTimeMillis()+10000;
+		while(submitter.getState()!=Thread.State.WAITING && System.currentTimeMillis()<waitUntil)
+			Thread.sleep(10);
+		//the submitter is blocked by the full queue, and nothing has been deployed yet
+		assertEquals(Thread.State.WAITING,submitter.getState());
+		synchronized(futures) {
+			assertTrue(futures.size()<driver.nrAppsPerRegion);
+			for(CompletableFuture<Result> future : futures)
+				assertFalse(future.isDone());
+		}
+		//let the deployments run
+		release.countDown();
+		blocker.join();
+		assertTrue(submitter.join(Duration.ofSeconds(10)));
+		assertEquals(driver.nrAppsPerRegion,futures.size());
+		queue.shutdown();
+		parallelConductor.shutdown();
+		int nrSuccesses=0;
+		for(CompletableFuture<Result> future : futures)
+			nrSuccesses+=future.orTimeout(10,TimeUnit.SECONDS).join().success;
+		assertTrue(nrSuccesses>0);
+		ParallelConductorTest.assertConsistent(bookKeeper);
+	}
+}
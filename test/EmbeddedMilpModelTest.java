@@ -0,0 +1,231 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of EmbeddedMilpModel on small models with known optima. Note that the models are
+ * minimized.
+ */
+public class EmbeddedMilpModelTest {
+	/** Tolerance for comparing objective and variable values */
+	private static final double eps=1e-6;
+
+	/**
+	 * Helper method to create a linear expression from alternating coefficients and variables.
+	 */
+	private static LinExpr expr(double... coefsAndVars) {
+		LinExpr e=new LinExpr();
+		for(int i=0;i<coefsAndVars.length;i+=2)
+			e.addTerm(coefsAndVars[i],(int)coefsAndVars[i+1]);
+		return e;
+	}
+
+	/**
+	 * max 3x+2y s.t. x+y<=4, x+3y<=6, x<=3: optimum x=3, y=1.
+	 */
+	@Test
+	public void testLp() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,3,-3,false,"x");
+		int y=m.addVar(0,10,-2,false,"y");
+		m.addConstr(expr(1,x,1,y),IMilpModel.Sense.lessEqual,4,"c1");
+		m.addConstr(expr(1,x,3,y),IMilpModel.Sense.lessEqual,6,"c2");
+		assertTrue(m.optimize());
+		assertEquals(-11,m.getObjValue(),eps);
+		assertEquals(3,m.getValue(x),eps);
+		assertEquals(1,m.getValue(y),eps);
+		m.dispose();
+	}
+
+	/**
+	 * min x+y s.t. x+2y>=3, 2x+y>=3, x-y=0: optimum x=y=1, with equality and greater-equal rows.
+	 */
+	@Test
+	public void testLpEqualityAndGreaterEqual() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,10,1,false,"x");
+		int y=m.addVar(0,10,1,false,"y");
+		m.addConstr(expr(1,x,2,y),IMilpModel.Sense.greaterEqual,3,"c1");
+		m.addConstr(expr(2,x,1,y),IMilpModel.Sense.greaterEqual,3,"c2");
+		m.addConstr(expr(1,x,-1,y),IMilpModel.Sense.equal,0,"c3");
+		assertTrue(m.optimize());
+		assertEquals(2,m.getObjValue(),eps);
+		assertEquals(1,m.getValue(x),eps);
+		assertEquals(1,m.getValue(y),eps);
+		m.dispose();
+	}
+
+	/**
+	 * Knapsack: max 5a+4b+3c s.t. 2a+3b+c<=5, binary variables: optimum a=c=1 (value 8),
+	 * whereas the LP relaxation is fractional.
+	 */
+	@Test
+	public void testMip() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int a=m.addVar(0,1,-5,true,"a");
+		int b=m.addVar(0,1,-4,true,"b");
+		int c=m.addVar(0,1,-3,true,"c");
+		m.addConstr(expr(2,a,3,b,1,c),IMilpModel.Sense.lessEqual,5,"cap");
+		assertTrue(m.optimize());
+		assertEquals(-9,m.getObjValue(),eps);
+		assertEquals(1,m.getValue(a),eps);
+		assertEquals(1,m.getValue(b),eps);
+		assertEquals(0,m.getValue(c),eps);
+		//after tightening the capacity, b does not fit anymore together with a
+		m.setRhs(0,4);
+		assertTrue(m.optimize());
+		assertEquals(-8,m.getObjValue(),eps);
+		assertEquals(0,m.getValue(b),eps);
+		m.dispose();
+	}
+
+	/**
+	 * General integers: max x+y s.t. 2x+2y<=7, 0<=x,y<=3: the LP optimum 3.5 is cut to 3.
+	 */
+	@Test
+	public void testMipGeneralIntegers() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,3,-1,true,"x");
+		int y=m.addVar(0,3,-1,true,"y");
+		m.addConstr(expr(2,x,2,y),IMilpModel.Sense.lessEqual,7,"c");
+		assertTrue(m.optimize());
+		assertEquals(-3,m.getObjValue(),eps);
+		assertEquals(3,m.getValue(x)+m.getValue(y),eps);
+		m.dispose();
+	}
+
+	/**
+	 * Assignment problem with 2 items and 2 bins, as in SolverILP: each item in exactly
+	 * one bin, capacity constraints, and a MIP start.
+	 */
+	@Test
+	public void testAssignmentWithStart() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		double[][] cost={{1,3},{4,2}};
+		int[][] v=new int[2][2];
+		for(int i=0;i<2;i++) {
+			for(int j=0;j<2;j++)
+				v[i][j]=m.addVar(0,1,cost[i][j],true,"x"+i+j);
+		}
+		for(int i=0;i<2;i++)
+			m.addConstr(expr(1,v[i][0],1,v[i][1]),IMilpModel.Sense.equal,1,"item"+i);
+		for(int j=0;j<2;j++)
+			m.addConstr(expr(1,v[0][j],1,v[1][j]),IMilpModel.Sense.lessEqual,1,"bin"+j);
+		m.setStart(v[0][1],1);
+		m.setStart(v[1][0],1);
+		m.setStart(v[0][0],0);
+		m.setStart(v[1][1],0);
+		assertTrue(m.optimize());
+		assertEquals(3,m.getObjValue(),eps);
+		assertEquals(1,m.getValue(v[0][0]),eps);
+		assertEquals(1,m.getValue(v[1][1]),eps);
+		m.dispose();
+	}
+
+	/**
+	 * Infeasible LP: x+y>=5 with x,y<=2.
+	 */
+	@Test
+	public void testInfeasibleLp() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,2,1,false,"x");
+		int y=m.addVar(0,2,1,false,"y");
+		m.addConstr(expr(1,x,1,y),IMilpModel.Sense.greaterEqual,5,"c");
+		assertFalse(m.optimize());
+		m.dispose();
+	}
+
+	/**
+	 * Infeasible MIP whose LP relaxation is feasible: 2x=1 with integer x.
+	 */
+	@Test
+	public void testInfeasibleMip() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,5,1,true,"x");
+		m.addConstr(expr(2,x),IMilpModel.Sense.equal,1,"c");
+		assertFalse(m.optimize());
+		m.dispose();
+	}
+
+	/**
+	 * Unbounded objective direction: maximizing a variable without upper bound is not
+	 * supported, which is reported by an exception.
+	 */
+	@Test
+	public void testUnbounded() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,Double.POSITIVE_INFINITY,-1,false,"x");
+		int y=m.addVar(0,Double.POSITIVE_INFINITY,0,false,"y");
+		m.addConstr(expr(1,x,-1,y),IMilpModel.Sense.lessEqual,1,"c");
+		assertThrows(MilpException.class,() -> m.optimize());
+		m.dispose();
+	}
+
+	/**
+	 * The cutoff excludes solutions that are not better than it.
+	 */
+	@Test
+	public void testCutoff() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,1,-1,true,"x");
+		m.addConstr(expr(1,x),IMilpModel.Sense.lessEqual,1,"c");
+		m.setCutoff(-2);
+		assertFalse(m.optimize());
+		m.setCutoff(Double.POSITIVE_INFINITY);
+		assertTrue(m.optimize());
+		assertEquals(-1,m.getObjValue(),eps);
+		m.dispose();
+	}
+
+	/**
+	 * A run that ends without a solution because of the time limit is reported as stopped,
+	 * while a complete search is not.
+	 */
+	@Test
+	public void testStopReason() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int x=m.addVar(0,5,1,true,"x");
+		m.addConstr(expr(2,x),IMilpModel.Sense.equal,1,"c");
+		assertFalse(m.optimize());
+		assertFalse(m.wasStopped());
+		m.setTimeLimit(0);
+		assertFalse(m.optimize());
+		assertTrue(m.wasStopped());
+		m.dispose();
+	}
+
+	/**
+	 * A larger assignment model (50000 variables), for which a dense tableau would need
+	 * more than 400 MB.
+	 */
+	@Test
+	public void testLargeSparseModel() throws MilpException {
+		IMilpModel m=new EmbeddedMilpModel();
+		int nItems=1000;
+		int nBins=50;
+		int[][] v=new int[nItems][nBins];
+		for(int i=0;i<nItems;i++) {
+			for(int j=0;j<nBins;j++)
+				v[i][j]=m.addVar(0,1,(i*7+j*13)%10+1,true,"x"+i+"_"+j);
+		}
+		for(int i=0;i<nItems;i++) {
+			LinExpr e=new LinExpr();
+			for(int j=0;j<nBins;j++)
+				e.addTerm(1,v[i][j]);
+			m.addConstr(e,IMilpModel.Sense.equal,1,"item"+i);
+		}
+		for(int j=0;j<nBins;j++) {
+			LinExpr e=new LinExpr();
+			for(int i=0;i<nItems;i++)
+				e.addTerm(1,v[i][j]);
+			m.addConstr(e,IMilpModel.Sense.lessEqual,nItems/nBins+10,"bin"+j);
+		}
+		assertTrue(m.optimize());
+		//each item has 5 bins with cost 1, with enough capacity for all items of the same cost pattern
+		assertEquals(nItems,m.getObjValue(),eps);
+		m.dispose();
+	}
+}
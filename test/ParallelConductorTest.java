@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cross-check of ParallelConductor against a sequential Conductor on small synthetic
+ * instances.
+ */
+public class ParallelConductorTest {
+	/** Tolerance for capacity checks */
+	private static final double eps=1e-6;
+
+	/**
+	 * Helper method to check the free capacities of the given BookKeeper: they must be
+	 * non-negative, and equal to the capacities minus the demands of the placed
+	 * components and routed connectors, so that no update has been lost by concurrent
+	 * deployments.
+	 */
+	static void assertConsistent(BookKeeper bookKeeper) {
+		Infrastructure infra=bookKeeper.getInfra();
+		for(Server s : infra.getServers()) {
+			double cpu=s.getCpuCap(), ram=s.getRamCap();
+			for(Map.Entry<Component,Server> entry : bookKeeper.getAlpha().entrySet()) {
+				if(entry.getValue()==s) {
+					cpu-=entry.getKey().getCpuReq();
+					ram-=entry.getKey().getRamReq();
+				}
+			}
+			assertEquals(cpu,bookKeeper.getFreeCpuCap(s),eps,"free CPU of "+s);
+			assertEquals(ram,bookKeeper.getFreeRamCap(s),eps,"free RAM of "+s);
+			assertTrue(bookKeeper.getFreeCpuCap(s)>=-eps,"CPU overloaded on "+s);
+			assertTrue(bookKeeper.getFreeRamCap(s)>=-eps,"RAM overloaded on "+s);
+		}
+		Set<Link> links=new HashSet<>();
+		for(IHwNode n : infra.getNodes())
+			links.addAll(n.getLinks());
+		for(Link l : links) {
+			double bw=l.getBw();
+			for(Map.Entry<Connector,Path> entry : bookKeeper.getBeta().entrySet()) {
+				if(entry.getValue().getLinks().contains(l))
+					bw-=entry.getKey().getBwReq();
+			}
+			assertEquals(bw,bookKeeper.getFreeBandwidth(l),eps,"free bandwidth of "+l);
+			assertTrue(bookKeeper.getFreeBandwidth(l)>=-eps,"bandwidth exceeded on "+l);
+		}
+	}
+
+	/**
+	 * Create a small synthetic instance with the given seed.
+	 */
+	private static TestSynthetic createInstance(long seed) {
+		TestSynthetic driver=new TestSynthetic(seed);
+		driver.nrRegions=4;
+		driver.nrFogNodesPerRegion=4;
+		driver.nrEndDevicesPerRegion=3;
+		driver.nrAdditionalLinks=4;
+		driver.appSize=6;
+		driver.nrAppsPerRegion=3;
+		driver.createInfra();
+		driver.createApps();
+		return driver;
+	}
+
+	/**
+	 * Deploy the applications with a ParallelConductor of the given number of threads
+	 * and with a sequential Conductor, both using SolverSB, in the given mode, round by
+	 * round: in each round, the next application of each region. Returns the number of
+	 * applications whose result differs; the BookKeepers are checked after each round.
+	 */
+	private static int compare(long seed,Conductor.ModeType mode,int nrThreads) {
+		TestSynthetic driver=createInstance(seed);
+		Colony[] colonies=driver.colonies;
+		if(mode==Conductor.ModeType.overlapping)
+			colonies=driver.createOverlappingColonies();
+		BookKeeper parallelBookKeeper=new BookKeeper(driver.infra);
+		ParallelConductor parallelConductor=new ParallelConductor(parallelBookKeeper,SolverSB::new,mode,nrThreads);
+		BookKeeper bookKeeper=new BookKeeper(driver.infra);
+		Conductor conductor=new Conductor(bookKeeper,new SolverSB(bookKeeper),mode);
+		int nrDifferences=0;
+		for(int j=0;j<driver.nrAppsPerRegion;j++) {
+			List<Colony> targetColonies=new ArrayList<>();
+			List<Application> apps=new ArrayList<>();
+			for(int i=0;i<driver.nrRegions;i++) {
+				targetColonies.add(colonies[i]);
+				apps.add(driver.colonies[i].getApplication(j));
+			}
+			List<Result> parallelResults=parallelConductor.deployApplications(targetColonies,apps);
+			for(int i=0;i<driver.nrRegions;i++) {
+				Result result=conductor.deployApplication(colonies[i],apps.get(i));
+				if(result.success!=parallelResults.get(i).success)
+					nrDifferences++;
+			}
+			assertConsistent(parallelBookKeeper);
+			assertConsistent(bookKeeper);
+		}
+		parallelConductor.shutdown();
+		return nrDifferences;
+	}
+
+	/**
+	 * In the independent mode, the deployments to different colonies do not interfere,
+	 * so the parallel deployments must have the same results as the sequential ones.
+	 */
+	@Test
+	public void testIndependent() {
+		for(long seed=1;seed<=3;seed++)
+			assertEquals(0,compare(seed,Conductor.ModeType.independent,4),"seed "+seed);
+	}
+
+	/**
+	 * In the overlapping mode, the order of the deployments sharing nodes depends on the
+	 * threads, so only the consistency of the placement is checked. With one thread, the
+	 * applications are deployed in the order of submission, so the results must be the
+	 * same as the sequential ones.
+	 */
+	@Test
+	public void testOverlapping() {
+		for(long seed=1;seed<=3;seed++) {
+			compare(seed,Conductor.ModeType.overlapping,4);
+			assertEquals(0,compare(seed,Conductor.ModeType.overlapping,1),"seed "+seed);
+		}
+	}
+}
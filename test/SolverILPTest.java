@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cross-check of SolverILP (with the embedded backend) against SolverSB on tiny
+ * synthetic instances.
+ */
+public class SolverILPTest {
+	/** Tolerance for capacity and latency checks */
+	private static final double eps=1e-9;
+
+	/**
+	 * Helper method to check that the placement of the given BookKeeper is feasible:
+	 * no server or link is overloaded, and each connector is routed within its latency
+	 * bound.
+	 */
+	private static void assertFeasible(BookKeeper bookKeeper) {
+		for(Server s : bookKeeper.getInfra().getServers()) {
+			assertTrue(bookKeeper.getFreeCpuCap(s)>=-eps,"CPU overloaded on "+s);
+			assertTrue(bookKeeper.getFreeRamCap(s)>=-eps,"RAM overloaded on "+s);
+		}
+		for(Component c : bookKeeper.getComponents()) {
+			for(Connector conn : c.getConnectors()) {
+				Path p=bookKeeper.getPath(conn);
+				assertNotNull(p,"unrouted connector "+conn);
+				assertTrue(p.getLatency()<=conn.getMaxLatency()+eps,"latency violated by "+conn);
+				for(Link l : p.getLinks())
+					assertTrue(bookKeeper.getFreeBandwidth(l)>=-eps,"bandwidth exceeded on "+l);
+			}
+		}
+	}
+
+	/**
+	 * Deploy the applications of tiny instances with SolverILP in each mode, and check
+	 * that the placements are feasible. In the centralized mode, each application is
+	 * also deployed by SolverSB on a copy of the same placement: the ILP is warm-started
+	 * with the SolverSB solution, so it must place every application that SolverSB places.
+	 */
+	@Test
+	public void testAgainstSolverSB() {
+		for(long seed=1;seed<=3;seed++) {
+			TestSynthetic driver=new TestSynthetic(seed);
+			driver.nrRegions=2;
+			driver.nrFogNodesPerRegion=3;
+			driver.nrEndDevicesPerRegion=2;
+			driver.nrAdditionalLinks=2;
+			driver.appSize=4;
+			driver.nrAppsPerRegion=3;
+			driver.createInfra();
+			driver.createApps();
+			for(Conductor.ModeType mode : Conductor.ModeType.values()) {
+				if(mode==Conductor.ModeType.overlapping)
+					continue;
+				BookKeeper bookKeeper=new BookKeeper(driver.infra);
+				SolverILP solverILP=new SolverILP(bookKeeper,MilpBackend.embedded);
+				Conductor conductor=new Conductor(bookKeeper,solverILP,mode);
+				for(int j=0;j<driver.nrAppsPerRegion;j++) {
+					for(int i=0;i<driver.nrRegions;i++) {
+						Colony colony=driver.colonies[i];
+						Application app=colony.getApplication(j);
+						boolean sbSuccess=false;
+						if(mode==Conductor.ModeType.centralized) {
+							BookKeeper sbBookKeeper=new BookKeeper(bookKeeper);
+							Result sbResult=new Conductor(sbBookKeeper,new SolverSB(sbBookKeeper),mode).deployApplication(colony,app);
+							assertFeasible(sbBookKeeper);
+							sbSuccess=sbResult.success>0;
+						}
+						Result ilpResult=conductor.deployApplication(colony,app);
+						if(sbSuccess)
+							assertTrue(ilpResult.success>0,"seed "+seed+": SolverILP failed where SolverSB succeeded");
+						assertFeasible(bookKeeper);
+					}
+				}
+				solverILP.dispose();
+			}
+		}
+	}
+}